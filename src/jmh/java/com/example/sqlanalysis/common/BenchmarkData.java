@@ -0,0 +1,38 @@
+package com.example.sqlanalysis.common;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试的样例数据：模拟一张订单表，包含整数、字符串、小数、时间和可为null的列
+ */
+public final class BenchmarkData {
+
+    public static final List<String> COLUMNS = Arrays.asList(
+            "id", "user_name", "amount", "status", "created_at", "remark");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成指定行数的数据，values顺序与COLUMNS一致
+     */
+    public static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        long base = 1700000000000L;
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{
+                    (long) i,
+                    "user_" + i,
+                    BigDecimal.valueOf(i * 37L % 100000, 2),
+                    i % 5,
+                    new Timestamp(base + i * 1000L),
+                    i % 3 == 0 ? null : "remark for order " + i
+            });
+        }
+        return rows;
+    }
+}
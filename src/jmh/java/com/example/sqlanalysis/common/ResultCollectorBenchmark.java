@@ -0,0 +1,112 @@
+package com.example.sqlanalysis.common;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果行映射：按结果格式收集（每行LinkedHashMap / 每行数组 / 按列存储），
+ * 另外给出预设容量的LinkedHashMap和HashMap作为对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultCollectorBenchmark {
+
+    @Param({"10000"})
+    private int rowCount;
+
+    private List<Object[]> rows;
+
+    private int[] sqlTypes;
+
+    @Setup
+    public void setUp() {
+        rows = BenchmarkData.rows(rowCount);
+        sqlTypes = new int[]{Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR};
+    }
+
+    @Benchmark
+    public SqlResult collect(FormatState state) {
+        ResultCollector collector = new ResultCollector(state.resultFormat, BenchmarkData.COLUMNS, sqlTypes);
+        for (Object[] values : rows) {
+            collector.addRow(values);
+        }
+        SqlResult result = new SqlResult();
+        collector.fill(result);
+        return result;
+    }
+
+    /**
+     * 对照：预设容量的LinkedHashMap，避免每行扩容
+     */
+    @Benchmark
+    public List<Map<String, Object>> presizedLinkedHashMap() {
+        List<String> columns = BenchmarkData.COLUMNS;
+        int capacity = (int) (columns.size() / 0.75f) + 1;
+        List<Map<String, Object>> data = new ArrayList<>(rows.size());
+        for (Object[] values : rows) {
+            Map<String, Object> row = new LinkedHashMap<>(capacity);
+            for (int i = 0; i < values.length; i++) {
+                row.put(columns.get(i), values[i]);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * 对照：HashMap，不保证列顺序
+     */
+    @Benchmark
+    public List<Map<String, Object>> hashMap() {
+        List<String> columns = BenchmarkData.COLUMNS;
+        List<Map<String, Object>> data = new ArrayList<>(rows.size());
+        for (Object[] values : rows) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                row.put(columns.get(i), values[i]);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * 结果格式只用于collect，对照组不按格式重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class FormatState {
+
+        @Param({"map", "array", "columnar"})
+        private String format;
+
+        private ResultFormat resultFormat;
+
+        @Setup
+        public void setUp() {
+            resultFormat = ResultFormat.fromCode(format);
+        }
+    }
+}
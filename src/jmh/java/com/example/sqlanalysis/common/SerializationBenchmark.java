@@ -0,0 +1,69 @@
+package com.example.sqlanalysis.common;
+
+import com.alibaba.fastjson.JSON;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大结果集的序列化：fastjson与Jackson（接口响应实际使用的序列化方式）分别序列化三种结果格式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"map", "array", "columnar"})
+    private String format;
+
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private Result<SqlResult> response;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        ResultCollector collector = new ResultCollector(ResultFormat.fromCode(format), BenchmarkData.COLUMNS, null);
+        for (Object[] values : BenchmarkData.rows(rowCount)) {
+            collector.addRow(values);
+        }
+        SqlResult result = new SqlResult();
+        result.setSql("SELECT * FROM orders");
+        result.setSqlType("SELECT");
+        result.setExecutionTime(12L);
+        collector.fill(result);
+        response = Result.success(result);
+        // 与Spring MVC的默认配置相近
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public byte[] fastjson() {
+        return JSON.toJSONBytes(response);
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoDB查询结果的转换（Document复制为Map、汇总列、按格式收集），不需要MongoDB服务
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoDocumentBenchmark {
+
+    @Param({"map", "array", "columnar"})
+    private String format;
+
+    @Param({"10000"})
+    private int rowCount;
+
+    private ResultFormat resultFormat;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        resultFormat = ResultFormat.fromCode(format);
+        documents = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            Document doc = new Document("_id", new ObjectId())
+                    .append("userName", "user_" + i)
+                    .append("age", 18 + i % 50)
+                    .append("score", i * 0.5)
+                    .append("tags", Arrays.asList("a", "b"))
+                    .append("address", new Document("city", "city_" + i % 100).append("zip", "1000" + i % 10))
+                    .append("createdAt", new Date(1700000000000L + i * 1000L));
+            // 部分文档有额外字段，列为所有文档字段的并集
+            if (i % 10 == 0) {
+                doc.append("vip", true);
+            }
+            documents.add(doc);
+        }
+    }
+
+    @Benchmark
+    public SqlResult fillDocuments() {
+        SqlResult result = new SqlResult();
+        MongoDBExecutor.fillDocuments(documents, rowCount, result, resultFormat);
+        return result;
+    }
+}
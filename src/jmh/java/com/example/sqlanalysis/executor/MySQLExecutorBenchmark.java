@@ -0,0 +1,87 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.common.BenchmarkData;
+import com.example.sqlanalysis.datasource.ReadWriteRouter;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MySQLExecutor查询的完整路径（分页改写、取值、按格式收集、行数统计），使用MySQL模式的H2内存库代替MySQL
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MySQLExecutorBenchmark {
+
+    @Param({"map", "array", "columnar"})
+    private String format;
+
+    @Param({"10000"})
+    private int rowCount;
+
+    private SingleConnectionDataSource dataSource;
+
+    private MySQLExecutor executor;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS orders");
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, user_name VARCHAR(64), amount DECIMAL(10, 2),"
+                + " status INT, created_at TIMESTAMP, remark VARCHAR(255))");
+        jdbcTemplate.batchUpdate("INSERT INTO orders VALUES (?, ?, ?, ?, ?, ?)", BenchmarkData.rows(rowCount));
+
+        // 不配置从库，所有语句走默认数据源
+        ReadWriteRouter router = new ReadWriteRouter();
+        ReflectionTestUtils.setField(router, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(router, "enabled", false);
+
+        executor = new MySQLExecutor();
+        ReflectionTestUtils.setField(executor, "readWriteRouter", router);
+        ReflectionTestUtils.setField(executor, "largeScanRows", 100000L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public SqlResult selectAll() {
+        return executor.execute(request(null));
+    }
+
+    @Benchmark
+    public SqlResult selectPage() {
+        return executor.execute(request(1000));
+    }
+
+    private SqlRequest request(Integer pageSize) {
+        SqlRequest request = new SqlRequest();
+        request.setSql("SELECT id, user_name, amount, status, created_at, remark FROM orders");
+        request.setResultFormat(format);
+        request.setPageSize(pageSize);
+        return request;
+    }
+}
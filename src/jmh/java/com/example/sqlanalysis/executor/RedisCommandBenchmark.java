@@ -0,0 +1,140 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis命令的解析和分发：分词、命令表查找、参数检查、结果构建和格式转换
+ * 连接是返回固定回复的代理，只测量执行器自身的开销，不包含网络往返
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCommandBenchmark {
+
+    private static final String[] NATIVE_COMMANDS = {
+            "GET user:1",
+            "HGET user:1 name",
+            "SET greeting \"hello world\" EX 60",
+            "ZRANGEBYSCORE leaderboard 0 100 WITHSCORES LIMIT 0 10",
+            "EVAL \"return redis.call('GET', KEYS[1])\" 1 user:1"
+    };
+
+    private RedisExecutor executor;
+
+    @Setup
+    public void setUp() {
+        StringRedisTemplate template = new StringRedisTemplate();
+        template.setConnectionFactory(new CannedConnectionFactory());
+        template.afterPropertiesSet();
+
+        executor = new RedisExecutor();
+        ReflectionTestUtils.setField(executor, "stringRedisTemplate", template);
+        executor.initCommandTable();
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        for (String nativeCommand : NATIVE_COMMANDS) {
+            blackhole.consume(RedisCommandTokenizer.tokenize(nativeCommand));
+        }
+    }
+
+    @Benchmark
+    public SqlResult execute(CommandState state) {
+        SqlRequest request = new SqlRequest();
+        request.setSql(state.command);
+        request.setResultFormat(state.format);
+        return executor.execute(request);
+    }
+
+    /**
+     * 命令和结果格式只用于execute，分词不按参数重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class CommandState {
+
+        @Param({"GET user:1", "HGET user:1 name", "{\"command\": \"GET\", \"key\": \"user:1\"}",
+                "{\"command\": \"HGET\", \"args\": [\"user:1\", \"name\"]}"})
+        private String command;
+
+        @Param({"map", "array"})
+        private String format;
+    }
+
+    /**
+     * GET/HGET返回固定值的连接，其余命令不支持
+     */
+    private static class CannedConnectionFactory implements RedisConnectionFactory {
+
+        private static final byte[] VALUE = "{\"id\":1,\"name\":\"user_1\",\"age\":30}".getBytes(StandardCharsets.UTF_8);
+
+        private final RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+                RedisConnection.class.getClassLoader(), new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "get":
+                        case "hGet":
+                            return VALUE;
+                        case "close":
+                            return null;
+                        case "isClosed":
+                        case "isPipelined":
+                        case "isQueueing":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        @Override
+        public RedisConnection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public RedisClusterConnection getClusterConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean getConvertPipelineAndTxResults() {
+            return false;
+        }
+
+        @Override
+        public RedisSentinelConnection getSentinelConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// 压测数据：test.orders集合100000个文档，按userId建索引
+const orders = db.getSiblingDB("test").orders;
+const batch = [];
+for (let n = 1; n <= 100000; n++) {
+    batch.push({
+        orderId: n,
+        userId: n % 10000 + 1,
+        amount: (n * 37 % 100000) / 100,
+        status: n % 5,
+        createdAt: new Date(Date.UTC(2024, 0, 1) + n * 60000),
+        address: {city: "city_" + (n % 100), zip: "1000" + (n % 10)},
+        tags: ["t" + (n % 7), "t" + (n % 11)]
+    });
+    if (batch.length === 1000) {
+        orders.insertMany(batch);
+        batch.length = 0;
+    }
+}
+orders.createIndex({userId: 1});
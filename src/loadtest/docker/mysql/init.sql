@@ -0,0 +1,27 @@
+-- 压测数据：orders表100000行，按user_id和status建索引
+CREATE TABLE IF NOT EXISTS orders (
+    id         BIGINT PRIMARY KEY,
+    user_id    INT           NOT NULL,
+    amount     DECIMAL(10, 2) NOT NULL,
+    status     TINYINT       NOT NULL,
+    created_at DATETIME      NOT NULL,
+    remark     VARCHAR(255),
+    KEY idx_user_id (user_id),
+    KEY idx_status_created (status, created_at)
+);
+
+SET SESSION cte_max_recursion_depth = 1000000;
+
+INSERT INTO orders (id, user_id, amount, status, created_at, remark)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 100000
+)
+SELECT n,
+       n % 10000 + 1,
+       (n * 37 % 100000) / 100,
+       n % 5,
+       TIMESTAMPADD(SECOND, n * 60, '2024-01-01 00:00:00'),
+       IF(n % 3 = 0, NULL, CONCAT('remark for order ', n))
+FROM seq;
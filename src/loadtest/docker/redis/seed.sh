@@ -0,0 +1,21 @@
+#!/bin/sh
+# 生成压测数据的命令，通过redis-cli批量写入
+until redis-cli -h redis -a 1023 --no-auth-warning ping | grep -q PONG; do
+    sleep 1
+done
+
+i=1
+while [ "$i" -le 10000 ]; do
+    echo "SET user:$i user_$i"
+    echo "HSET user:hash:$i id $i name user_$i level $((i % 10)) city city_$((i % 100))"
+    i=$((i + 1))
+done > /tmp/seed.txt
+
+i=1
+while [ "$i" -le 1000 ]; do
+    echo "RPUSH orders:recent order_$i"
+    i=$((i + 1))
+done >> /tmp/seed.txt
+
+redis-cli -h redis -a 1023 --no-auth-warning < /tmp/seed.txt > /dev/null
+echo "Redis压测数据已写入"
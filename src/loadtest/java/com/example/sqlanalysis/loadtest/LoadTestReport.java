@@ -0,0 +1,73 @@
+package com.example.sqlanalysis.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测报告，以JSON保存，可以作为下次压测的对比基线
+ */
+@Data
+public class LoadTestReport {
+
+    private String workload;
+
+    private String baseUrl;
+
+    private Integer concurrency;
+
+    /**
+     * 统计时长（秒，不含预热）
+     */
+    private Double duration;
+
+    private Long seed;
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private Long startTime;
+
+    private List<ScenarioReport> scenarios = new ArrayList<>();
+
+    /**
+     * 全部请求的汇总
+     */
+    private ScenarioReport total;
+
+    /**
+     * 单个请求类型的结果，耗时单位为毫秒
+     */
+    @Data
+    public static class ScenarioReport {
+
+        private String name;
+
+        private Long requests;
+
+        private Long errors;
+
+        /**
+         * 每秒请求数
+         */
+        private Double throughput;
+
+        /**
+         * 响应总字节数
+         */
+        private Long bytes;
+
+        private Double mean;
+
+        private Double p50;
+
+        private Double p90;
+
+        private Double p99;
+
+        private Double p999;
+
+        private Double max;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.sqlanalysis.loadtest;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/sql 接口的压测工具
+ * 按负载文件中的权重随机发送请求，统计每种请求的吞吐量和延迟分布，结果写入JSON报告，可与之前的报告对比
+ *
+ * 用法：LoadTestRunner 负载文件 [--base-url=地址] [--concurrency=并发数] [--duration=秒] [--warmup=秒]
+ *                     [--report=报告文件] [--baseline=对比的报告文件]
+ */
+public class LoadTestRunner {
+
+    /**
+     * 检查请求是否成功时保留的响应末尾字节数
+     */
+    private static final int TAIL_BYTES = 4096;
+
+    private final Workload workload;
+
+    private final List<ScenarioStats> stats = new ArrayList<>();
+
+    /**
+     * 累计权重，用于按权重随机选取请求
+     */
+    private final int[] cumulativeWeights;
+
+    private volatile boolean running = true;
+
+    public LoadTestRunner(Workload workload) {
+        this.workload = workload;
+        this.cumulativeWeights = new int[workload.getScenarios().size()];
+        int sum = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            Scenario scenario = workload.getScenarios().get(i);
+            if (scenario.getWeight() <= 0) {
+                throw new IllegalArgumentException("请求权重必须大于0: " + scenario.getName());
+            }
+            sum += scenario.getWeight();
+            cumulativeWeights[i] = sum;
+            stats.add(new ScenarioStats(scenario.getName() != null ? scenario.getName() : "scenario-" + i));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("用法: LoadTestRunner 负载文件 [--base-url=] [--concurrency=] [--duration=] [--warmup=]"
+                    + " [--report=] [--baseline=]");
+            System.exit(1);
+        }
+
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("参数格式错误: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        Path workloadFile = Paths.get(args[0]);
+        Workload workload = JSON.parseObject(new String(Files.readAllBytes(workloadFile), StandardCharsets.UTF_8),
+                Workload.class);
+        if (workload.getName() == null) {
+            String fileName = workloadFile.getFileName().toString();
+            workload.setName(fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - 5) : fileName);
+        }
+        if (options.containsKey("base-url")) {
+            workload.setBaseUrl(options.get("base-url"));
+        }
+        if (options.containsKey("concurrency")) {
+            workload.setConcurrency(Integer.parseInt(options.get("concurrency")));
+        }
+        if (options.containsKey("duration")) {
+            workload.setDuration(Integer.parseInt(options.get("duration")));
+        }
+        if (options.containsKey("warmup")) {
+            workload.setWarmup(Integer.parseInt(options.get("warmup")));
+        }
+        if (workload.getScenarios().isEmpty()) {
+            throw new IllegalArgumentException("负载文件中没有请求（scenarios）");
+        }
+
+        LoadTestReport report = new LoadTestRunner(workload).run();
+        print(report);
+
+        Path reportFile = Paths.get(options.containsKey("report") ? options.get("report")
+                : "target/loadtest/" + workload.getName() + "-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(report.getStartTime())) + ".json");
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+        Files.write(reportFile, JSON.toJSONString(report, SerializerFeature.PrettyFormat).getBytes(StandardCharsets.UTF_8));
+        System.out.println("报告已保存: " + reportFile.toAbsolutePath());
+
+        if (options.containsKey("baseline")) {
+            LoadTestReport baseline = JSON.parseObject(
+                    new String(Files.readAllBytes(Paths.get(options.get("baseline"))), StandardCharsets.UTF_8),
+                    LoadTestReport.class);
+            compare(baseline, report);
+        }
+    }
+
+    /**
+     * 预热后压测
+     */
+    public LoadTestReport run() throws InterruptedException {
+        // HttpURLConnection默认每个地址只保持5个空闲连接，并发更高时会不断新建连接
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(workload.getConcurrency(), 5)));
+
+        ExecutorService workers = Executors.newFixedThreadPool(workload.getConcurrency());
+        for (int i = 0; i < workload.getConcurrency(); i++) {
+            // 每个线程使用独立的种子，相同配置下请求序列可重现
+            Random random = new Random(workload.getSeed() + i);
+            workers.execute(() -> work(random));
+        }
+
+        System.out.println("预热 " + workload.getWarmup() + " 秒，并发 " + workload.getConcurrency());
+        TimeUnit.SECONDS.sleep(workload.getWarmup());
+        for (ScenarioStats s : stats) {
+            s.reset();
+        }
+
+        long startTime = System.currentTimeMillis();
+        long start = System.nanoTime();
+        System.out.println("压测 " + workload.getDuration() + " 秒");
+        TimeUnit.SECONDS.sleep(workload.getDuration());
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(workload.getRequestTimeout() + 10L, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LoadTestReport report = new LoadTestReport();
+        report.setWorkload(workload.getName());
+        report.setBaseUrl(workload.getBaseUrl());
+        report.setConcurrency(workload.getConcurrency());
+        report.setDuration(Math.round(seconds * 100) / 100.0);
+        report.setSeed(workload.getSeed());
+        report.setStartTime(startTime);
+        ScenarioStats.fillReport(stats, seconds, report);
+        return report;
+    }
+
+    private void work(Random random) {
+        while (running) {
+            int index = pick(random);
+            Scenario scenario = workload.getScenarios().get(index);
+            String body = scenario.render(random);
+            long start = System.nanoTime();
+            Response response = send(scenario.getPath(), body);
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            stats.get(index).record(micros, response.success, response.bytes);
+        }
+    }
+
+    private int pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    /**
+     * 发送请求并读完响应（读完才能复用连接）
+     * 只保留响应末尾用于判断成功：统一响应的success字段在最后，流式查询出错时最后一行是error
+     */
+    private Response send(String path, String body) {
+        Response response = new Response();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(workload.getBaseUrl() + path).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(workload.getRequestTimeout() * 1000);
+            connection.setRequestProperty("Content-Type", "application/json");
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            byte[] tail = new byte[TAIL_BYTES];
+            int tailLength = 0;
+            if (in != null) {
+                try (InputStream stream = in) {
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = stream.read(buffer)) > 0) {
+                        response.bytes += n;
+                        if (n >= TAIL_BYTES) {
+                            System.arraycopy(buffer, n - TAIL_BYTES, tail, 0, TAIL_BYTES);
+                            tailLength = TAIL_BYTES;
+                        } else {
+                            int keep = Math.min(tailLength, TAIL_BYTES - n);
+                            System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+                            System.arraycopy(buffer, 0, tail, keep, n);
+                            tailLength = keep + n;
+                        }
+                    }
+                }
+            }
+            String end = new String(tail, 0, tailLength, StandardCharsets.UTF_8).trim();
+            response.success = status == 200 && !end.contains("\"success\":false")
+                    && !end.substring(end.lastIndexOf('\n') + 1).startsWith("{\"error\"");
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        return response;
+    }
+
+    private static void print(LoadTestReport report) {
+        System.out.println();
+        System.out.printf("负载: %s, 地址: %s, 并发: %d, 时长: %.1f秒%n", report.getWorkload(), report.getBaseUrl(),
+                report.getConcurrency(), report.getDuration());
+        String format = "%-28s %10s %8s %10s %9s %9s %9s %9s %9s %9s%n";
+        System.out.printf(format, "请求", "请求数", "失败", "吞吐(/s)", "平均ms", "p50", "p90", "p99", "p99.9", "max");
+        List<LoadTestReport.ScenarioReport> rows = new ArrayList<>(report.getScenarios());
+        rows.add(report.getTotal());
+        for (LoadTestReport.ScenarioReport row : rows) {
+            System.out.printf(format, row.getName(), row.getRequests(), row.getErrors(), row.getThroughput(),
+                    row.getMean(), row.getP50(), row.getP90(), row.getP99(), row.getP999(), row.getMax());
+        }
+    }
+
+    /**
+     * 与基线报告对比吞吐量和p99延迟
+     */
+    private static void compare(LoadTestReport baseline, LoadTestReport report) {
+        Map<String, LoadTestReport.ScenarioReport> previous = new HashMap<>();
+        for (LoadTestReport.ScenarioReport row : baseline.getScenarios()) {
+            previous.put(row.getName(), row);
+        }
+        previous.put("TOTAL", baseline.getTotal());
+
+        System.out.println();
+        System.out.println("与基线对比（负载: " + baseline.getWorkload() + ", 并发: " + baseline.getConcurrency() + "）");
+        String format = "%-28s %12s %12s %10s %10s %10s %10s%n";
+        System.out.printf(format, "请求", "吞吐(基线)", "吞吐", "变化", "p99(基线)", "p99", "变化");
+        List<LoadTestReport.ScenarioReport> rows = new ArrayList<>(report.getScenarios());
+        rows.add(report.getTotal());
+        for (LoadTestReport.ScenarioReport row : rows) {
+            LoadTestReport.ScenarioReport before = previous.get(row.getName());
+            if (before == null) {
+                continue;
+            }
+            System.out.printf(format, row.getName(), before.getThroughput(), row.getThroughput(),
+                    change(before.getThroughput(), row.getThroughput()), before.getP99(), row.getP99(),
+                    change(before.getP99(), row.getP99()));
+        }
+    }
+
+    private static String change(Double before, Double after) {
+        if (before == null || after == null || before == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", (after - before) * 100 / before);
+    }
+
+    private static class Response {
+
+        private long bytes;
+
+        private boolean success;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.sqlanalysis.loadtest;
+
+import com.alibaba.fastjson.JSON;
+import lombok.Data;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 一种请求：接口路径和请求体
+ * 请求体中的 ${random:min:max} 每次发送时替换为[min, max]之间的随机整数，用于分散主键、避开结果缓存
+ */
+@Data
+public class Scenario {
+
+    private static final Pattern RANDOM = Pattern.compile("\\$\\{random:(-?\\d+):(-?\\d+)}");
+
+    /**
+     * 名称，报告按名称统计
+     */
+    private String name;
+
+    /**
+     * 权重，按权重比例随机选取
+     */
+    private int weight = 1;
+
+    /**
+     * 接口路径
+     */
+    private String path = "/api/sql/execute";
+
+    /**
+     * 请求体：SqlRequest（/execute、/stream）或SqlRequest数组（/batch）
+     */
+    private Object body;
+
+    private transient String template;
+
+    /**
+     * 生成一次请求的请求体
+     */
+    public String render(Random random) {
+        if (template == null) {
+            template = body instanceof String ? (String) body : JSON.toJSONString(body);
+        }
+        Matcher matcher = RANDOM.matcher(template);
+        if (!matcher.find()) {
+            return template;
+        }
+        StringBuffer sb = new StringBuffer();
+        do {
+            long min = Long.parseLong(matcher.group(1));
+            long max = Long.parseLong(matcher.group(2));
+            long value = min + (long) (random.nextDouble() * (max - min + 1));
+            matcher.appendReplacement(sb, String.valueOf(value));
+        } while (matcher.find());
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.sqlanalysis.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个请求类型的统计：延迟直方图（HdrHistogram，多线程写入）、请求数、失败数、响应字节数
+ */
+public class ScenarioStats {
+
+    /**
+     * 直方图记录的最大耗时（微秒），更大的值按该值记录
+     */
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String name;
+
+    private final Recorder recorder = new Recorder(MAX_MICROS, 3);
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    public ScenarioStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录一次请求
+     * @param micros 耗时（微秒）
+     * @param success 是否成功（HTTP 200且响应中success为true）
+     */
+    public void record(long micros, boolean success, long responseBytes) {
+        recorder.recordValue(Math.min(Math.max(micros, 1), MAX_MICROS));
+        requests.increment();
+        if (!success) {
+            errors.increment();
+        }
+        bytes.add(responseBytes);
+    }
+
+    /**
+     * 清空统计（预热结束时调用）
+     */
+    public void reset() {
+        recorder.reset();
+        requests.reset();
+        errors.reset();
+        bytes.reset();
+    }
+
+    /**
+     * 生成各请求类型的报告行，最后一行为全部请求的汇总
+     * @param seconds 统计时长（秒）
+     */
+    public static void fillReport(List<ScenarioStats> stats, double seconds, LoadTestReport report) {
+        Histogram total = new Histogram(MAX_MICROS, 3);
+        long totalRequests = 0;
+        long totalErrors = 0;
+        long totalBytes = 0;
+        for (ScenarioStats s : stats) {
+            Histogram histogram = s.recorder.getIntervalHistogram();
+            total.add(histogram);
+            totalRequests += s.requests.sum();
+            totalErrors += s.errors.sum();
+            totalBytes += s.bytes.sum();
+            report.getScenarios().add(row(s.name, histogram, s.requests.sum(), s.errors.sum(), s.bytes.sum(), seconds));
+        }
+        report.setTotal(row("TOTAL", total, totalRequests, totalErrors, totalBytes, seconds));
+    }
+
+    private static LoadTestReport.ScenarioReport row(String name, Histogram histogram, long requests, long errors,
+                                                     long bytes, double seconds) {
+        LoadTestReport.ScenarioReport row = new LoadTestReport.ScenarioReport();
+        row.setName(name);
+        row.setRequests(requests);
+        row.setErrors(errors);
+        row.setThroughput(round(requests / seconds));
+        row.setBytes(bytes);
+        row.setMean(round(histogram.getMean() / 1000));
+        row.setP50(millis(histogram.getValueAtPercentile(50)));
+        row.setP90(millis(histogram.getValueAtPercentile(90)));
+        row.setP99(millis(histogram.getValueAtPercentile(99)));
+        row.setP999(millis(histogram.getValueAtPercentile(99.9)));
+        row.setMax(millis(histogram.getMaxValue()));
+        return row;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sqlanalysis.loadtest;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测负载定义（JSON文件）
+ */
+@Data
+public class Workload {
+
+    /**
+     * 负载名称，写入报告
+     */
+    private String name;
+
+    /**
+     * 被测服务地址
+     */
+    private String baseUrl = "http://localhost:8080";
+
+    /**
+     * 并发数（闭环：每个线程收到响应后才发下一个请求）
+     */
+    private int concurrency = 16;
+
+    /**
+     * 预热时间（秒），预热期间的请求不计入报告
+     */
+    private int warmup = 10;
+
+    /**
+     * 压测时间（秒）
+     */
+    private int duration = 60;
+
+    /**
+     * 单个请求的超时时间（秒）
+     */
+    private int requestTimeout = 60;
+
+    /**
+     * 随机数种子，相同的种子和并发数产生相同的请求序列
+     */
+    private long seed = 42L;
+
+    /**
+     * 按权重随机选取的请求
+     */
+    private List<Scenario> scenarios = new ArrayList<>();
+}
@@ -0,0 +1,395 @@
+package com.example.sqlanalysis.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.executor.MySQLExecutor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询结果缓存
+ * - 只缓存只读查询：MySQL的SELECT，MongoDB的find/count/aggregate
+ * - 使用Caffeine（W-TinyLFU淘汰），按结果的估算字节数限制总大小
+ * - 支持按请求覆盖TTL（SqlRequest.cacheTtl）
+ * - MySQL写语句、MongoDB写操作执行后，自动失效涉及相同表/集合的缓存
+ */
+@Slf4j
+@Component
+public class QueryResultCache {
+
+    private static final char SEPARATOR = '\u0001';
+
+    @Value("${sql.cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 默认过期时间（秒）
+     */
+    @Value("${sql.cache.ttl:60}")
+    private long defaultTtl;
+
+    /**
+     * 缓存总大小上限（估算字节数）
+     */
+    @Value("${sql.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    /**
+     * 单个结果的大小上限，超过的不缓存
+     */
+    @Value("${sql.cache.max-entry-bytes:4194304}")
+    private long maxEntryBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedResult> cache;
+
+    /**
+     * 每种数据源的写版本号，写操作时递增
+     * 查询开始后如果发生了写操作，查询结果可能已经过期，不再放入缓存
+     */
+    private final Map<DataSourceType, AtomicLong> writeGenerations = new EnumMap<>(DataSourceType.class);
+
+    @PostConstruct
+    public void init() {
+        for (DataSourceType type : DataSourceType.values()) {
+            writeGenerations.put(type, new AtomicLong());
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResult value) -> value.weight)
+                .expireAfter(new Expiry<String, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResult value, long currentTime) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResult value, long currentTime, long currentDuration) {
+                        return value.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResult value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // 命中/未命中、淘汰等指标（cache.gets{cache="sqlQueryResult"}）
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sqlQueryResult");
+    }
+
+    /**
+     * 计算缓存key，不可缓存的请求返回null
+     * key由数据源类型、数据源名称、规范化后的语句、分页参数和结果格式组成
+     */
+    public String keyOf(DataSourceType type, SqlRequest request) {
+        if (!enabled || request.getSql() == null) {
+            return null;
+        }
+        if (request.getCacheTtl() != null && request.getCacheTtl() <= 0) {
+            return null;
+        }
+
+        String statement = normalize(request.getSql());
+        if (!isReadOnly(type, statement)) {
+            return null;
+        }
+
+        return type.getCode() + SEPARATOR + request.getDataSource() + SEPARATOR + statement
+                + SEPARATOR + (request.getParams() != null ? JSON.toJSONString(request.getParams()) : null)
+                + SEPARATOR + request.getPage()
+                + SEPARATOR + request.getPageSize()
+                + SEPARATOR + request.getMaxRows()
+                + SEPARATOR + request.getCursor()
+                + SEPARATOR + request.getResultFormat();
+    }
+
+    /**
+     * 读取缓存，命中时返回结果副本（cached=true）
+     */
+    public SqlResult get(String key) {
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+
+        SqlResult copy = new SqlResult();
+        BeanUtils.copyProperties(cached.result, copy);
+        copy.setCached(true);
+        return copy;
+    }
+
+    /**
+     * 当前写版本号，查询执行前获取
+     */
+    public long currentGeneration(DataSourceType type) {
+        return writeGenerations.get(type).get();
+    }
+
+    /**
+     * 放入缓存
+     * @param generation 查询执行前的写版本号，期间发生过写操作则不缓存
+     */
+    public void put(String key, DataSourceType type, SqlRequest request, SqlResult result, long generation) {
+        if (writeGenerations.get(type).get() != generation) {
+            return;
+        }
+
+        long weight = estimateBytes(result);
+        if (weight > maxEntryBytes) {
+            log.debug("查询结果过大（约{}字节），不放入缓存", weight);
+            return;
+        }
+
+        long ttlSeconds = request.getCacheTtl() != null ? request.getCacheTtl() : defaultTtl;
+        Set<String> tables = tablesOf(type, normalize(request.getSql()), false);
+        cache.put(key, new CachedResult(result, type, tables, (int) weight, TimeUnit.SECONDS.toNanos(ttlSeconds)));
+    }
+
+    /**
+     * 写操作执行后调用，失效涉及相同表/集合的缓存
+     * 无法识别目标表时失效该数据源的全部缓存
+     */
+    public void onWrite(DataSourceType type, SqlRequest request) {
+        if (request.getSql() == null || type == DataSourceType.REDIS) {
+            return;
+        }
+
+        String statement = normalize(request.getSql());
+        if (isReadOnly(type, statement)) {
+            return;
+        }
+
+        writeGenerations.get(type).incrementAndGet();
+        Set<String> tables = tablesOf(type, statement, true);
+        int before = cache.asMap().size();
+        if (tables.isEmpty()) {
+            cache.asMap().values().removeIf(entry -> entry.type == type);
+        } else {
+            cache.asMap().values().removeIf(entry -> entry.type == type && entry.touches(tables));
+        }
+        log.debug("写操作失效缓存，表: {}，失效条数: {}", tables, before - cache.asMap().size());
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("enabled", enabled);
+        data.put("entries", cache.estimatedSize());
+        data.put("weightedBytes", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        data.put("maxBytes", maxBytes);
+        data.put("hitCount", stats.hitCount());
+        data.put("missCount", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictionCount", stats.evictionCount());
+        return data;
+    }
+
+    /**
+     * 规范化语句：合并引号外的空白、去掉末尾分号
+     * 字符串字面量（'...'、"..."、`...`）和注释原样保留，只差空白的不同值不会命中同一个缓存
+     */
+    static String normalize(String sql) {
+        String trimmed = sql.trim();
+        StringBuilder builder = new StringBuilder(trimmed.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == '\\' && i + 1 < trimmed.length()) {
+                    builder.append(trimmed.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else if (c == '#' || c == '-' && trimmed.startsWith("-- ", i) || trimmed.startsWith("/*", i)) {
+                // 注释中的引号不算字面量，注释原样保留到结尾
+                int end = c == '/' ? trimmed.indexOf("*/", i + 2) : trimmed.indexOf('\n', i);
+                end = end < 0 ? trimmed.length() : (c == '/' ? end + 2 : end);
+                if (space) {
+                    builder.append(' ');
+                    space = false;
+                }
+                builder.append(trimmed, i, end);
+                i = end - 1;
+            } else {
+                if (space) {
+                    builder.append(' ');
+                    space = false;
+                }
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                builder.append(c);
+            }
+        }
+        String statement = builder.toString();
+        while (statement.endsWith(";")) {
+            statement = statement.substring(0, statement.length() - 1).trim();
+        }
+        return statement;
+    }
+
+    /**
+     * 是否为只读语句
+     */
+    private static boolean isReadOnly(DataSourceType type, String statement) {
+        switch (type) {
+            case MYSQL:
+                return statement.toUpperCase(Locale.ROOT).startsWith("SELECT") && !MySQLExecutor.isLockingRead(statement);
+            case MONGODB:
+                JSONObject command = parseMongoCommand(statement);
+                if (command == null) {
+                    return false;
+                }
+                String operation = command.getString("operation");
+                operation = operation != null ? operation.toLowerCase(Locale.ROOT) : "find";
+                if ("aggregate".equals(operation)) {
+                    // 带$out/$merge的聚合会写集合
+                    String pipeline = command.getString("pipeline");
+                    return pipeline == null || (!pipeline.contains("$out") && !pipeline.contains("$merge"));
+                }
+                return "find".equals(operation) || "count".equals(operation);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 语句涉及的表/集合
+     */
+    private static Set<String> tablesOf(DataSourceType type, String statement, boolean write) {
+        if (type == DataSourceType.MONGODB) {
+            JSONObject command = parseMongoCommand(statement);
+            String collection = command != null ? command.getString("collection") : null;
+            return collection != null ? Collections.singleton(collection) : Collections.emptySet();
+        }
+        return write ? SqlTableExtractor.writeTables(statement) : SqlTableExtractor.readTables(statement);
+    }
+
+    private static JSONObject parseMongoCommand(String statement) {
+        try {
+            return JSON.parseObject(statement);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 估算结果占用的字节数（用于按大小淘汰）
+     */
+    private static long estimateBytes(SqlResult result) {
+        long bytes = 256;
+        if (result.getData() != null) {
+            for (Map<String, Object> row : result.getData()) {
+                bytes += 64;
+                for (Map.Entry<String, Object> entry : row.entrySet()) {
+                    bytes += 32 + ResultCollector.estimateBytes(entry.getValue());
+                }
+            }
+        }
+        if (result.getRows() != null) {
+            for (Object[] row : result.getRows()) {
+                bytes += 16 + 8L * row.length;
+                for (Object value : row) {
+                    bytes += ResultCollector.estimateBytes(value);
+                }
+            }
+        }
+        if (result.getColumnData() != null) {
+            for (Object column : result.getColumnData()) {
+                if (column instanceof long[]) {
+                    bytes += 8L * ((long[]) column).length;
+                } else if (column instanceof double[]) {
+                    bytes += 8L * ((double[]) column).length;
+                } else if (column instanceof Collection) {
+                    for (Object value : (Collection<?>) column) {
+                        bytes += 8 + ResultCollector.estimateBytes(value);
+                    }
+                }
+            }
+        }
+        return Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class CachedResult {
+
+        private final SqlResult result;
+
+        private final DataSourceType type;
+
+        private final Set<String> tables;
+
+        private final int weight;
+
+        private final long ttlNanos;
+
+        CachedResult(SqlResult result, DataSourceType type, Set<String> tables, int weight, long ttlNanos) {
+            this.result = result;
+            this.type = type;
+            this.tables = tables;
+            this.weight = weight;
+            this.ttlNanos = ttlNanos;
+        }
+
+        /**
+         * 是否涉及写操作的表；查询的表无法识别时按涉及处理
+         */
+        boolean touches(Set<String> writeTables) {
+            if (tables.isEmpty()) {
+                return true;
+            }
+            for (String table : writeTables) {
+                if (tables.contains(table)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
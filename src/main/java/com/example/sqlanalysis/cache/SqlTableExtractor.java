@@ -0,0 +1,70 @@
+package com.example.sqlanalysis.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从SQL语句中提取涉及的表名（用于缓存失效）
+ * 只做轻量的正则匹配，无法识别时返回空集合，由调用方按保守策略处理
+ */
+public final class SqlTableExtractor {
+
+    /**
+     * 查询语句中的表：FROM a, b / JOIN c
+     */
+    private static final Pattern READ_TABLE = Pattern.compile(
+            "\\b(?:from|join)\\s+([`\\w.]+(?:\\s*,\\s*[`\\w.]+)*)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 写语句的目标表
+     */
+    private static final Pattern WRITE_TABLE = Pattern.compile(
+            "^\\s*(?:insert\\s+(?:ignore\\s+)?into|replace\\s+into|update|delete\\s+from"
+                    + "|truncate(?:\\s+table)?|alter\\s+table|drop\\s+table(?:\\s+if\\s+exists)?"
+                    + "|create\\s+table(?:\\s+if\\s+not\\s+exists)?)\\s+([`\\w.]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlTableExtractor() {
+    }
+
+    /**
+     * 提取查询语句涉及的表
+     */
+    public static Set<String> readTables(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = READ_TABLE.matcher(sql);
+        while (matcher.find()) {
+            for (String table : matcher.group(1).split(",")) {
+                tables.add(normalize(table));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 提取写语句的目标表，无法识别时返回空集合
+     */
+    public static Set<String> writeTables(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = WRITE_TABLE.matcher(sql);
+        if (matcher.find()) {
+            tables.add(normalize(matcher.group(1)));
+        }
+        return tables;
+    }
+
+    /**
+     * 统一表名：去掉反引号和库名前缀，转小写
+     */
+    private static String normalize(String table) {
+        String name = table.trim().replace("`", "");
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
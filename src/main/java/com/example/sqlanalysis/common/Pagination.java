@@ -0,0 +1,152 @@
+package com.example.sqlanalysis.common;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import lombok.Getter;
+
+/**
+ * 分页参数（由SqlRequest的page/pageSize/maxRows/cursor计算得出）
+ * 用于把分页和行数限制下推到数据源执行
+ */
+@Getter
+public class Pagination {
+
+    /**
+     * 单页最大行数
+     */
+    public static final int MAX_PAGE_SIZE = 10000;
+
+    /**
+     * 不分页、不限制行数
+     */
+    public static final Pagination NONE = new Pagination(0, null, false, false);
+
+    /**
+     * 起始偏移量
+     */
+    private final long offset;
+
+    /**
+     * 本次最多返回的行数，null表示不限制
+     */
+    private final Integer limit;
+
+    /**
+     * 是否为分页查询（分页查询才返回nextCursor）
+     */
+    private final boolean paged;
+
+    /**
+     * 本页已到达maxRows，没有下一页
+     */
+    private final boolean lastPage;
+
+    private Pagination(long offset, Integer limit, boolean paged, boolean lastPage) {
+        this.offset = offset;
+        this.limit = limit;
+        this.paged = paged;
+        this.lastPage = lastPage;
+    }
+
+    /**
+     * 根据请求计算分页参数
+     */
+    public static Pagination of(SqlRequest request) {
+        Integer pageSize = request.getPageSize();
+        Integer maxRows = request.getMaxRows();
+
+        if (pageSize != null && (pageSize <= 0 || pageSize > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("pageSize必须在1到" + MAX_PAGE_SIZE + "之间");
+        }
+        if (maxRows != null && maxRows <= 0) {
+            throw new IllegalArgumentException("maxRows必须大于0");
+        }
+        if (pageSize == null && maxRows == null) {
+            return NONE;
+        }
+
+        long offset = 0;
+        if (pageSize != null) {
+            offset = parseOffset(request, pageSize);
+        }
+
+        Integer limit;
+        boolean lastPage = false;
+        if (pageSize != null && maxRows != null) {
+            // maxRows限制所有页的总行数：本页截止到第maxRows行
+            if (offset >= maxRows) {
+                throw new IllegalArgumentException("分页起始位置" + offset + "超出maxRows（" + maxRows + "）");
+            }
+            limit = (int) Math.min(pageSize, maxRows - offset);
+            lastPage = offset + limit >= maxRows;
+        } else {
+            limit = pageSize != null ? pageSize : maxRows;
+        }
+        return new Pagination(offset, limit, pageSize != null, lastPage);
+    }
+
+    /**
+     * 只限制行数、不分页（流式查询使用）
+     */
+    public static Pagination ofMaxRows(Integer maxRows) {
+        if (maxRows == null) {
+            return NONE;
+        }
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("maxRows必须大于0");
+        }
+        return new Pagination(0, maxRows, false, false);
+    }
+
+    private static long parseOffset(SqlRequest request, int pageSize) {
+        String cursor = request.getCursor();
+        if (cursor != null && !cursor.trim().isEmpty()) {
+            try {
+                long offset = Long.parseLong(cursor.trim());
+                if (offset < 0) {
+                    throw new IllegalArgumentException("cursor格式错误: " + cursor);
+                }
+                return offset;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cursor格式错误: " + cursor);
+            }
+        }
+
+        Integer page = request.getPage();
+        if (page == null) {
+            return 0;
+        }
+        if (page < 1) {
+            throw new IllegalArgumentException("page必须从1开始");
+        }
+        return (long) (page - 1) * pageSize;
+    }
+
+    /**
+     * 是否需要限制行数
+     */
+    public boolean isLimited() {
+        return limit != null;
+    }
+
+    /**
+     * 实际向数据源请求的行数：分页时多取一行，用来判断是否还有下一页（已到达maxRows时不需要）
+     */
+    public int getFetchLimit() {
+        return paged && !lastPage ? limit + 1 : limit;
+    }
+
+    /**
+     * 根据实际取到的行数填充hasMore/nextCursor
+     * @param result 查询结果
+     * @param fetched 数据源返回的行数（可能比limit多一行）
+     */
+    public void fillResult(SqlResult result, int fetched) {
+        if (!paged) {
+            return;
+        }
+        boolean hasMore = !lastPage && fetched > limit;
+        result.setHasMore(hasMore);
+        result.setNextCursor(hasMore ? String.valueOf(offset + limit) : null);
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.sqlanalysis.common;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询结果收集器
+ * 按请求的结果格式逐行收集数据，避免先构建Map再转换
+ */
+public class ResultCollector {
+
+    private final ResultFormat format;
+
+    private final List<String> columns;
+
+    private final int[] sqlTypes;
+
+    private final List<Map<String, Object>> mapRows;
+
+    private final List<Object[]> arrayRows;
+
+    private final ColumnVector[] vectors;
+
+    private int size;
+
+    /**
+     * @param format 结果格式
+     * @param columns 列名
+     * @param sqlTypes 每列的java.sql.Types类型，为空时按数据推断（列式格式和Arrow输出使用）
+     */
+    public ResultCollector(ResultFormat format, List<String> columns, int[] sqlTypes) {
+        this.format = format;
+        this.columns = columns;
+        this.sqlTypes = sqlTypes;
+        this.mapRows = format == ResultFormat.MAP ? new ArrayList<>() : null;
+        this.arrayRows = format == ResultFormat.ARRAY ? new ArrayList<>() : null;
+        if (format == ResultFormat.COLUMNAR) {
+            vectors = new ColumnVector[columns.size()];
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = new ColumnVector(sqlTypes != null ? sqlTypes[i] : Types.NULL);
+            }
+        } else {
+            vectors = null;
+        }
+    }
+
+    /**
+     * 添加一行，values顺序与columns一致
+     * 调用方可以复用values数组
+     */
+    public void addRow(Object[] values) {
+        switch (format) {
+            case ARRAY:
+                arrayRows.add(Arrays.copyOf(values, values.length));
+                break;
+            case COLUMNAR:
+                for (int i = 0; i < vectors.length; i++) {
+                    vectors[i].add(values[i]);
+                }
+                break;
+            default:
+                // 使用LinkedHashMap保持列顺序
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < values.length; i++) {
+                    row.put(columns.get(i), values[i]);
+                }
+                mapRows.add(row);
+        }
+        size++;
+    }
+
+    /**
+     * 已收集的行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 把收集的数据写入结果
+     */
+    public void fill(SqlResult result) {
+        result.setColumns(columns);
+        result.setColumnTypes(sqlTypes);
+        result.setAffectedRows(size);
+        switch (format) {
+            case ARRAY:
+                result.setData(null);
+                result.setRows(arrayRows);
+                break;
+            case COLUMNAR:
+                List<Object> columnData = new ArrayList<>(vectors.length);
+                for (ColumnVector vector : vectors) {
+                    columnData.add(vector.toValues());
+                }
+                result.setData(null);
+                result.setColumnData(columnData);
+                break;
+            default:
+                result.setData(mapRows);
+                return;
+        }
+        result.setResultFormat(format.getCode());
+    }
+
+    /**
+     * 把已经按Map构建的结果转换为指定格式（用于行数较少、字段不固定的数据源）
+     */
+    public static void convert(SqlResult result, ResultFormat format) {
+        if (format == ResultFormat.MAP || result.getData() == null) {
+            return;
+        }
+
+        List<String> columns = result.getColumns() != null ? result.getColumns() : new ArrayList<>();
+        ResultCollector collector = new ResultCollector(format, columns, null);
+        Object[] values = new Object[columns.size()];
+        for (Map<String, Object> row : result.getData()) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.get(columns.get(i));
+            }
+            collector.addRow(values);
+        }
+
+        Integer affectedRows = result.getAffectedRows();
+        collector.fill(result);
+        // 写操作的影响行数与返回的数据行数无关，保持原值
+        result.setAffectedRows(affectedRows);
+    }
+
+    /**
+     * 单列数据
+     * 整数列使用long[]、浮点列使用double[]；出现null或无法表示的值时退化为Object列表
+     */
+    private static class ColumnVector {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private static final int MODE_UNKNOWN = 0;
+        private static final int MODE_LONG = 1;
+        private static final int MODE_DOUBLE = 2;
+        private static final int MODE_OBJECT = 3;
+
+        private int mode;
+
+        private long[] longs;
+
+        private double[] doubles;
+
+        private List<Object> objects;
+
+        private int size;
+
+        ColumnVector(int sqlType) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    startLong();
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    startDouble();
+                    break;
+                case Types.NULL:
+                    // 类型未知，根据第一个非null值推断
+                    mode = MODE_UNKNOWN;
+                    break;
+                default:
+                    startObject();
+            }
+        }
+
+        void add(Object value) {
+            if (mode == MODE_UNKNOWN) {
+                if (value == null) {
+                    startObject();
+                } else if (isIntegral(value)) {
+                    startLong();
+                } else if (value instanceof Double || value instanceof Float) {
+                    startDouble();
+                } else {
+                    startObject();
+                }
+            }
+
+            if (mode == MODE_LONG) {
+                if (isIntegral(value)) {
+                    ensureCapacity();
+                    longs[size++] = ((Number) value).longValue();
+                    return;
+                }
+                toObjects();
+            } else if (mode == MODE_DOUBLE) {
+                if (value instanceof Double || value instanceof Float) {
+                    ensureCapacity();
+                    doubles[size++] = ((Number) value).doubleValue();
+                    return;
+                }
+                toObjects();
+            }
+            objects.add(value);
+            size++;
+        }
+
+        Object toValues() {
+            switch (mode) {
+                case MODE_LONG:
+                    return Arrays.copyOf(longs, size);
+                case MODE_DOUBLE:
+                    return Arrays.copyOf(doubles, size);
+                case MODE_UNKNOWN:
+                    return new ArrayList<>();
+                default:
+                    return objects;
+            }
+        }
+
+        private static boolean isIntegral(Object value) {
+            return value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte;
+        }
+
+        private void startLong() {
+            mode = MODE_LONG;
+            longs = new long[INITIAL_CAPACITY];
+        }
+
+        private void startDouble() {
+            mode = MODE_DOUBLE;
+            doubles = new double[INITIAL_CAPACITY];
+        }
+
+        private void startObject() {
+            mode = MODE_OBJECT;
+            objects = new ArrayList<>();
+        }
+
+        private void ensureCapacity() {
+            if (mode == MODE_LONG && size == longs.length) {
+                longs = Arrays.copyOf(longs, size * 2);
+            } else if (mode == MODE_DOUBLE && size == doubles.length) {
+                doubles = Arrays.copyOf(doubles, size * 2);
+            }
+        }
+
+        /**
+         * 退化为Object列表，保留已有的数据
+         */
+        private void toObjects() {
+            List<Object> boxed = new ArrayList<>(Math.max(size * 2, INITIAL_CAPACITY));
+            for (int i = 0; i < size; i++) {
+                boxed.add(mode == MODE_LONG ? (Object) longs[i] : (Object) doubles[i]);
+            }
+            longs = null;
+            doubles = null;
+            objects = boxed;
+            mode = MODE_OBJECT;
+        }
+    }
+
+    /**
+     * 估算单个值占用的字节数（结果缓存和结果大小上限使用）
+     */
+    public static long estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 40 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 24;
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof Map) {
+            long bytes = 64;
+            for (Object nested : ((Map<?, ?>) value).values()) {
+                bytes += 32 + estimateBytes(nested);
+            }
+            return bytes;
+        }
+        if (value instanceof List) {
+            long bytes = 32;
+            for (Object nested : (List<?>) value) {
+                bytes += 8 + estimateBytes(nested);
+            }
+            return bytes;
+        }
+        return 48;
+    }
+}
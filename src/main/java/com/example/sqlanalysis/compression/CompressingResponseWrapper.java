@@ -0,0 +1,322 @@
+package com.example.sqlanalysis.compression;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.MimeType;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 压缩的响应包装（gzip或zstd）
+ * 先缓冲响应体，超过 minResponseSize 时开始压缩；响应结束时仍未超过则原样写出
+ * 流式响应（异步请求进行中）调用flush时立即开始压缩，并把已写出的行同步刷新到客户端
+ */
+public class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    public static final String GZIP = "gzip";
+
+    public static final String ZSTD = "zstd";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private enum State { BUFFERING, COMPRESSING, IDENTITY }
+
+    private final HttpServletRequest request;
+
+    private final List<MimeType> mimeTypes;
+
+    private final int minResponseSize;
+
+    /**
+     * 内容编码：gzip或zstd
+     */
+    private final String encoding;
+
+    /**
+     * zstd压缩级别
+     */
+    private final int zstdLevel;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private State state = State.BUFFERING;
+
+    /**
+     * 压缩时为压缩流，不压缩时为原始响应流
+     */
+    private OutputStream target;
+
+    /**
+     * 缓冲期间设置的Content-Length，不压缩时再设置到响应上
+     */
+    private long contentLength = -1;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    public CompressingResponseWrapper(HttpServletRequest request, HttpServletResponse response, String encoding,
+                                      List<MimeType> mimeTypes, int minResponseSize, int zstdLevel) {
+        super(response);
+        this.request = request;
+        this.encoding = encoding;
+        this.mimeTypes = mimeTypes;
+        this.minResponseSize = minResponseSize;
+        this.zstdLevel = zstdLevel;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("已调用过getWriter()");
+        }
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("已调用过getOutputStream()");
+        }
+        if (writer == null) {
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (state == State.IDENTITY) {
+            super.setContentLengthLong(len);
+        } else if (state == State.BUFFERING) {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        } else if (outputStream != null) {
+            outputStream.flush();
+        }
+        if (state != State.BUFFERING) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (state == State.BUFFERING) {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (state == State.BUFFERING) {
+            buffer.reset();
+            contentLength = -1;
+        }
+    }
+
+    /**
+     * 响应结束：写出缓冲的数据，或结束压缩流
+     */
+    public void finish() throws IOException {
+        if (outputStream == null) {
+            // 没有响应体（如sendError），由容器处理
+            return;
+        }
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.BUFFERING) {
+            start(false);
+        } else if (state == State.COMPRESSING) {
+            // 写出gzip尾部或结束zstd帧，不关闭响应流
+            target.close();
+        }
+    }
+
+    /**
+     * 开始写出：满足条件时压缩，否则原样写出缓冲的数据
+     */
+    private void start(boolean compress) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        if (compress && isCompressible(response)) {
+            state = State.COMPRESSING;
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            OutputStream out = new NonClosingOutputStream(response.getOutputStream());
+            // gzip使用同步刷新，flush时已写入的数据能被客户端解压
+            target = ZSTD.equals(encoding)
+                    ? new ZstdOutputStream(out, zstdLevel) : new GZIPOutputStream(out, BUFFER_SIZE, true);
+        } else {
+            state = State.IDENTITY;
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            }
+            target = response.getOutputStream();
+        }
+        buffer.writeTo(target);
+        buffer.reset();
+    }
+
+    private boolean isCompressible(HttpServletResponse response) {
+        int status = response.getStatus();
+        if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT
+                || status == HttpServletResponse.SC_NOT_MODIFIED || response.isCommitted()
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+                || contentLength >= 0 && contentLength < minResponseSize) {
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        MimeType mimeType = MimeType.valueOf(contentType);
+        for (MimeType candidate : mimeTypes) {
+            if (candidate.isCompatibleWith(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (state != State.BUFFERING) {
+                target.write(b, off, len);
+                return;
+            }
+            buffer.write(b, off, len);
+            if (buffer.size() >= minResponseSize) {
+                start(true);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (state == State.BUFFERING) {
+                // 普通响应写完时的flush忽略，等响应结束再决定是否压缩；流式响应立即开始压缩
+                if (!request.isAsyncStarted()) {
+                    return;
+                }
+                start(true);
+            }
+            target.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            // 不压缩时target为原始响应流
+            return state != State.IDENTITY || ((ServletOutputStream) target).isReady();
+        }
+
+        /**
+         * 非阻塞写出时不压缩：写出已缓冲的数据后交给原始响应流，由容器回调writeListener
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if (state == State.BUFFERING) {
+                    start(false);
+                }
+                if (state == State.COMPRESSING) {
+                    throw new IllegalStateException("已开始压缩的响应不能切换为非阻塞写出");
+                }
+                ((ServletOutputStream) target).setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 结束压缩流时不关闭响应流，由容器关闭
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.sqlanalysis.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 查询执行线程池配置
+ * 每种数据源一个有界线程池，请求线程只负责提交，慢查询不会占满Tomcat线程；
+ * 线程数即该数据源同时执行的查询数上限，队列满时直接拒绝，由调用方返回失败结果
+ */
+@Configuration
+public class QueryExecutorConfig implements WebMvcConfigurer {
+
+    @Value("${sql.execution.pool-size.mysql:5}")
+    private int mysqlPoolSize;
+
+    @Value("${sql.execution.pool-size.mongodb:5}")
+    private int mongodbPoolSize;
+
+    @Value("${sql.execution.pool-size.redis:8}")
+    private int redisPoolSize;
+
+    @Value("${sql.execution.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${sql.guard.low-priority.pool-size:1}")
+    private int lowPriorityPoolSize;
+
+    @Value("${sql.guard.low-priority.queue-capacity:20}")
+    private int lowPriorityQueueCapacity;
+
+    @Value("${sql.guard.estimate-pool-size:2}")
+    private int estimatePoolSize;
+
+    @Value("${sql.guard.estimate-queue-capacity:100}")
+    private int estimateQueueCapacity;
+
+    @Value("${sql.stream.pool-size:8}")
+    private int streamPoolSize;
+
+    @Value("${sql.stream.queue-capacity:50}")
+    private int streamQueueCapacity;
+
+    @Value("${sql.job.max-concurrent:2}")
+    private int jobMaxConcurrent;
+
+    @Value("${sql.job.queue-capacity:20}")
+    private int jobQueueCapacity;
+
+    @Bean(name = "mysqlQueryExecutor")
+    public ThreadPoolTaskExecutor mysqlQueryExecutor() {
+        return newExecutor(mysqlPoolSize, queueCapacity, "sql-mysql-");
+    }
+
+    @Bean(name = "mongodbQueryExecutor")
+    public ThreadPoolTaskExecutor mongodbQueryExecutor() {
+        return newExecutor(mongodbPoolSize, queueCapacity, "sql-mongodb-");
+    }
+
+    @Bean(name = "redisQueryExecutor")
+    public ThreadPoolTaskExecutor redisQueryExecutor() {
+        return newExecutor(redisPoolSize, queueCapacity, "sql-redis-");
+    }
+
+    /**
+     * 低优先级查询线程池：代价守卫判定为昂贵的语句在这里排队，不占用各数据源的执行线程
+     */
+    @Bean(name = "lowPriorityQueryExecutor")
+    public ThreadPoolTaskExecutor lowPriorityQueryExecutor() {
+        return newExecutor(lowPriorityPoolSize, lowPriorityQueueCapacity, "sql-low-priority-");
+    }
+
+    /**
+     * 代价守卫估算线程池：未缓存的估算（EXPLAIN、explain、集合大小）在这里执行，不阻塞请求线程
+     */
+    @Bean(name = "estimateTaskExecutor")
+    public ThreadPoolTaskExecutor estimateTaskExecutor() {
+        return newExecutor(estimatePoolSize, estimateQueueCapacity, "sql-estimate-");
+    }
+
+    /**
+     * 流式响应（StreamingResponseBody）的写出线程池
+     * 未配置时Spring MVC使用SimpleAsyncTaskExecutor，每个请求新建一个线程，没有上限
+     */
+    @Bean(name = "streamTaskExecutor")
+    public ThreadPoolTaskExecutor streamTaskExecutor() {
+        return newExecutor(streamPoolSize, streamQueueCapacity, "sql-stream-");
+    }
+
+    /**
+     * 异步查询任务线程池，线程数即同时执行的任务数上限
+     */
+    @Bean(name = "jobTaskExecutor")
+    public ThreadPoolTaskExecutor jobTaskExecutor() {
+        return newExecutor(jobMaxConcurrent, jobQueueCapacity, "sql-job-");
+    }
+
+    /**
+     * 慢查询获取执行计划的线程池，单线程，队列满时放弃本次获取
+     */
+    @Bean(name = "explainTaskExecutor")
+    public ThreadPoolTaskExecutor explainTaskExecutor() {
+        return newExecutor(1, 20, "sql-explain-");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamTaskExecutor());
+    }
+
+    private ThreadPoolTaskExecutor newExecutor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
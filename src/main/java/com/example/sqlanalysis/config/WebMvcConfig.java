@@ -0,0 +1,32 @@
+package com.example.sqlanalysis.config;
+
+import com.example.sqlanalysis.converter.ArrowHttpMessageConverter;
+import com.example.sqlanalysis.converter.MessagePackHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 响应格式配置
+ * 按Accept请求头返回Arrow IPC流或MessagePack；两者加在转换器列表末尾，未指定Accept或接受任意类型时仍返回JSON
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ArrowHttpMessageConverter(objectMapper));
+        converters.add(new MessagePackHttpMessageConverter(objectMapperBuilder));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.sqlanalysis.controller;
+
+import com.example.sqlanalysis.cache.QueryResultCache;
+import com.example.sqlanalysis.common.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 查询结果缓存控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sql/cache")
+public class QueryCacheController {
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    /**
+     * 缓存统计（命中、未命中、淘汰次数、占用字节数）
+     * GET /api/sql/cache/stats
+     */
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(queryResultCache.stats());
+    }
+
+    /**
+     * 清空缓存
+     * DELETE /api/sql/cache
+     */
+    @DeleteMapping
+    public Result<Void> clear() {
+        queryResultCache.clear();
+        log.info("查询结果缓存已清空");
+        return Result.success();
+    }
+}
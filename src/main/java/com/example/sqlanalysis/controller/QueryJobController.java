@@ -0,0 +1,87 @@
+package com.example.sqlanalysis.controller;
+
+import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.entity.QueryJob;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.service.QueryJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 异步查询任务控制器
+ * 长时间查询提交为任务，轮询状态，完成后分页获取结果
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sql/jobs")
+public class QueryJobController {
+
+    @Autowired
+    private QueryJobService queryJobService;
+
+    /**
+     * 提交任务
+     * POST /api/sql/jobs
+     * Body: {"sql": "SELECT * FROM orders", "timeout": 3600}
+     */
+    @PostMapping
+    public Result<QueryJob> submit(@RequestBody SqlRequest request) {
+        log.info("收到异步任务提交请求: {}", request.getSql());
+
+        try {
+            return Result.success("任务已提交", queryJobService.submit(request));
+        } catch (IllegalArgumentException e) {
+            log.error("参数错误: {}", e.getMessage());
+            return Result.error(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("任务提交失败: {}", e.getMessage(), e);
+            return Result.error("任务提交失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询任务状态
+     * GET /api/sql/jobs/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public Result<QueryJob> status(@PathVariable String jobId) {
+        return Result.success(queryJobService.getJob(jobId));
+    }
+
+    /**
+     * 分页获取任务结果
+     * GET /api/sql/jobs/{jobId}/result?page=1&pageSize=1000&resultFormat=array
+     */
+    @GetMapping("/{jobId}/result")
+    public Result<SqlResult> fetch(@PathVariable String jobId,
+                                   @RequestParam(required = false) Integer page,
+                                   @RequestParam(required = false) Integer pageSize,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(required = false) String resultFormat) {
+        return Result.success(queryJobService.fetch(jobId, page, pageSize, cursor, resultFormat));
+    }
+
+    /**
+     * 取消排队中或执行中的任务
+     * POST /api/sql/jobs/{jobId}/cancel
+     */
+    @PostMapping("/{jobId}/cancel")
+    public Result<Void> cancel(@PathVariable String jobId) {
+        queryJobService.cancel(jobId);
+        log.info("异步任务已取消: {}", jobId);
+        return Result.success();
+    }
+
+    /**
+     * 删除已结束的任务及结果文件
+     * DELETE /api/sql/jobs/{jobId}
+     */
+    @DeleteMapping("/{jobId}")
+    public Result<Void> delete(@PathVariable String jobId) {
+        queryJobService.delete(jobId);
+        log.info("异步任务已删除: {}", jobId);
+        return Result.success();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.sqlanalysis.controller;
+
+import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.entity.SlowQuery;
+import com.example.sqlanalysis.entity.StatementStats;
+import com.example.sqlanalysis.metrics.SlowQueryLog;
+import com.example.sqlanalysis.metrics.TopStatements;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 查询统计控制器（按语句指纹的汇总、慢查询）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sql/stats")
+public class QueryStatsController {
+
+    @Autowired
+    private TopStatements topStatements;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    /**
+     * 开销最大的语句
+     * GET /api/sql/stats/statements?limit=20&orderBy=totalTime
+     */
+    @GetMapping("/statements")
+    public Result<List<StatementStats>> statements(@RequestParam(defaultValue = "20") int limit,
+                                                   @RequestParam(required = false) String orderBy) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit必须大于0");
+        }
+        return Result.success(topStatements.top(limit, orderBy));
+    }
+
+    /**
+     * 清空语句统计
+     * DELETE /api/sql/stats/statements
+     */
+    @DeleteMapping("/statements")
+    public Result<Void> resetStatements() {
+        topStatements.reset();
+        log.info("语句统计已清空");
+        return Result.success();
+    }
+
+    /**
+     * 最近的慢查询（MySQL附带执行计划）
+     * GET /api/sql/stats/slow-queries
+     */
+    @GetMapping("/slow-queries")
+    public Result<List<SlowQuery>> slowQueries() {
+        return Result.success(slowQueryLog.list());
+    }
+
+    /**
+     * 清空慢查询记录
+     * DELETE /api/sql/stats/slow-queries
+     */
+    @DeleteMapping("/slow-queries")
+    public Result<Void> clearSlowQueries() {
+        slowQueryLog.clear();
+        log.info("慢查询记录已清空");
+        return Result.success();
+    }
+}
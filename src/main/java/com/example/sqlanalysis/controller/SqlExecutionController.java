@@ -1,14 +1,27 @@
 package com.example.sqlanalysis.controller;
 
 import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.datasource.DataSourceCatalog;
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
 import com.example.sqlanalysis.service.SqlExecutionService;
+import com.example.sqlanalysis.stream.JsonResultStreamWriter;
+import com.example.sqlanalysis.stream.NdjsonResultStreamWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * SQL执行控制器
@@ -18,50 +31,179 @@ import java.util.List;
 @RequestMapping("/api/sql")
 public class SqlExecutionController {
 
+    /**
+     * NDJSON响应类型
+     */
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private SqlExecutionService sqlExecutionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSourceCatalog dataSourceCatalog;
+
     /**
      * 执行单条SQL
      * POST /api/sql/execute
-     * Body: {"sql": "SELECT * FROM users", "timeout": 30}
+     * Body: {"sql": "SELECT * FROM users", "timeout": 30, "queryId": "report-42"}
+     * 查询在数据源对应的线程池中执行，请求线程立即释放，执行完成后再写出响应；
+     * 客户端断开或请求超时（spring.mvc.async.request-timeout）时取消查询
      */
     @PostMapping("/execute")
-    public Result<SqlResult> executeSql(@RequestBody SqlRequest request) {
+    public DeferredResult<Result<SqlResult>> executeSql(@RequestBody SqlRequest request) {
         log.info("收到SQL执行请求: {}", request.getSql());
-        
+
+        DeferredResult<Result<SqlResult>> deferred = new DeferredResult<>();
+        sqlExecutionService.executeSqlAsync(request).<Result<SqlResult>>handle((result, e) -> {
+            if (e == null) {
+                return Result.success("SQL执行成功", result);
+            }
+            Throwable cause = SqlExecutionService.unwrap(e);
+            if (cause instanceof IllegalArgumentException) {
+                log.error("参数错误: {}", cause.getMessage());
+                return Result.error(400, cause.getMessage());
+            }
+            log.error("SQL执行失败: {}", cause.getMessage(), cause);
+            return Result.error("SQL执行失败: " + cause.getMessage());
+        }).thenAccept(deferred::setResult);
+
+        deferred.onTimeout(() -> {
+            sqlExecutionService.cancel(request, "请求超时");
+            deferred.setResult(Result.error("SQL执行失败: 请求超时，查询已取消"));
+        });
+        deferred.onError(e -> {
+            log.warn("客户端连接异常，取消查询: {}, 错误: {}", request.getQueryId(), e.getMessage());
+            sqlExecutionService.cancel(request, "客户端已断开");
+        });
+        return deferred;
+    }
+
+    /**
+     * 流式执行SQL，结果边读边写，适合大结果集导出
+     * POST /api/sql/stream
+     * Body: {"sql": "SELECT * FROM orders", "timeout": 300}
+     * 默认以NDJSON逐行返回；Accept为application/json时返回与 /execute 相同的统一响应格式
+     */
+    @PostMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamSql(@RequestBody SqlRequest request,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.info("收到SQL流式执行请求: {}", request.getSql());
+
+        // 提前校验，参数错误时由全局异常处理器返回普通JSON
+        sqlExecutionService.getStreamingExecutor(request);
+
+        if (prefersJson(accept)) {
+            ResultFormat format = ResultFormat.fromCode(request.getResultFormat());
+            StreamingResponseBody body = outputStream -> sqlExecutionService.executeStream(request,
+                    new JsonResultStreamWriter(objectMapper, outputStream, format));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        StreamingResponseBody body = outputStream ->
+                sqlExecutionService.executeStream(request, new NdjsonResultStreamWriter(objectMapper, outputStream));
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Accept中application/json的优先级高于NDJSON时返回true，未指定或通配时仍返回NDJSON
+     */
+    private static boolean prefersJson(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
         try {
-            SqlResult result = sqlExecutionService.executeSql(request);
-            return Result.success("SQL执行成功", result);
-        } catch (IllegalArgumentException e) {
-            log.error("参数错误: {}", e.getMessage());
-            return Result.error(400, e.getMessage());
-        } catch (Exception e) {
-            log.error("SQL执行失败: {}", e.getMessage(), e);
-            return Result.error("SQL执行失败: " + e.getMessage());
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
         }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(APPLICATION_NDJSON)) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * 批量执行SQL
-     * POST /api/sql/batch
+     * POST /api/sql/batch?parallel=true&deadline=30
      * Body: [{"sql": "SELECT * FROM users"}, {"sql": "SELECT * FROM orders"}]
+     * parallel=true 时并行执行，deadline为整个批次的截止时间（秒）
      */
     @PostMapping("/batch")
-    public Result<List<SqlResult>> executeBatchSql(@RequestBody List<SqlRequest> requests) {
-        log.info("收到批量SQL执行请求，数量: {}", requests.size());
-        
-        try {
-            if (requests == null || requests.isEmpty()) {
-                return Result.error(400, "SQL请求列表不能为空");
+    public CompletableFuture<Result<List<SqlResult>>> executeBatchSql(@RequestBody List<SqlRequest> requests,
+                                                                      @RequestParam(defaultValue = "false") boolean parallel,
+                                                                      @RequestParam(required = false) Integer deadline) {
+        if (requests == null || requests.isEmpty()) {
+            return CompletableFuture.completedFuture(Result.error(400, "SQL请求列表不能为空"));
+        }
+        log.info("收到批量SQL执行请求，数量: {}，并行: {}", requests.size(), parallel);
+
+        CompletableFuture<List<SqlResult>> results = parallel
+                ? sqlExecutionService.executeBatchSqlParallel(requests, deadline)
+                : sqlExecutionService.executeBatchSql(requests);
+        return results.handle((list, e) -> {
+            if (e == null) {
+                return Result.success("批量SQL执行完成", list);
             }
-            
-            List<SqlResult> results = sqlExecutionService.executeBatchSql(requests);
-            return Result.success("批量SQL执行完成", results);
-        } catch (Exception e) {
-            log.error("批量SQL执行失败: {}", e.getMessage(), e);
-            return Result.error("批量SQL执行失败: " + e.getMessage());
+            Throwable cause = SqlExecutionService.unwrap(e);
+            log.error("批量SQL执行失败: {}", cause.getMessage(), cause);
+            return Result.error("批量SQL执行失败: " + cause.getMessage());
+        });
+    }
+
+    /**
+     * 分析MySQL执行计划（全表扫描、文件排序、临时表、缺少索引、估算扫描行数）
+     * POST /api/sql/explain?analyze=false
+     * Body: {"sql": "SELECT * FROM orders WHERE user_id = ?", "params": [1]}
+     * analyze=true 时追加EXPLAIN ANALYZE（MySQL 8.0.18+，会真正执行语句）
+     */
+    @PostMapping("/explain")
+    public Result<SqlResult> explainSql(@RequestBody SqlRequest request,
+                                        @RequestParam(defaultValue = "false") boolean analyze) {
+        SqlResult result = sqlExecutionService.explain(request, analyze);
+        return Result.success("执行计划分析完成", result);
+    }
+
+    /**
+     * 执行中的查询列表
+     * GET /api/sql/queries
+     */
+    @GetMapping("/queries")
+    public Result<List<Map<String, Object>>> listRunningQueries() {
+        return Result.success(sqlExecutionService.listRunningQueries());
+    }
+
+    /**
+     * 取消执行中的查询
+     * DELETE /api/sql/queries/{queryId}
+     */
+    @DeleteMapping("/queries/{queryId}")
+    public Result<Void> cancelQuery(@PathVariable String queryId) {
+        if (!sqlExecutionService.cancel(queryId, "用户取消")) {
+            return Result.error(400, "查询不存在或已结束: " + queryId);
         }
+        log.info("查询已取消: {}", queryId);
+        return Result.success();
+    }
+
+    /**
+     * 命名数据源列表（名称 -> 类型）
+     * GET /api/sql/datasources
+     */
+    @GetMapping("/datasources")
+    public Result<Map<String, String>> listDataSources() {
+        return Result.success(dataSourceCatalog.listTargets());
     }
 
     /**
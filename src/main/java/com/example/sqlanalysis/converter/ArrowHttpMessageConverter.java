@@ -0,0 +1,85 @@
+package com.example.sqlanalysis.converter;
+
+import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Arrow IPC流格式的消息转换器（Accept: application/vnd.apache.arrow.stream）
+ * 只用于单条语句的结果（Result&lt;SqlResult&gt;）以及出错时的Result&lt;Void&gt;，其余响应没有表格结构，仍按JSON返回
+ * 只支持写出，不能作为请求体
+ */
+public class ArrowHttpMessageConverter extends AbstractGenericHttpMessageConverter<Result<?>> {
+
+    public static final MediaType APPLICATION_ARROW_STREAM = MediaType.parseMediaType("application/vnd.apache.arrow.stream");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 所有响应共用的根分配器，每次写出使用子分配器，写完释放
+     */
+    private final BufferAllocator rootAllocator = new RootAllocator();
+
+    public ArrowHttpMessageConverter(ObjectMapper objectMapper) {
+        super(APPLICATION_ARROW_STREAM);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Result.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(@Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        if (type == null) {
+            return true;
+        }
+        // 只接受 Result<SqlResult> 和 Result<Void>
+        Class<?> data = ResolvableType.forType(type).as(Result.class).getGeneric(0).resolve();
+        return data == null || data == SqlResult.class || data == Void.class;
+    }
+
+    @Override
+    protected void writeInternal(Result<?> result, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        try (BufferAllocator allocator = rootAllocator.newChildAllocator("response", 0, Long.MAX_VALUE)) {
+            ArrowResultWriter.write(result, allocator, objectMapper, outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public Result<?> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持Arrow格式的请求体", inputMessage);
+    }
+
+    @Override
+    protected Result<?> readInternal(Class<? extends Result<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支持Arrow格式的请求体", inputMessage);
+    }
+}
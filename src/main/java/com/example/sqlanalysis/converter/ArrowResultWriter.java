@@ -0,0 +1,421 @@
+package com.example.sqlanalysis.converter;
+
+import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把查询结果写为Arrow IPC流（按列存储的二进制格式，数值不需要转成文本）
+ * - 列类型优先按java.sql.Types确定（MySQL），没有类型或值与类型不符时按列中的值推断
+ * - 整数→Int64，浮点→Float64，DECIMAL→Decimal128（小数位数取列中的最大值），布尔→Bool，日期→Date，
+ *   日期时间→Timestamp（毫秒，不带时区，与JSON中显示的时间一致），二进制→Binary，其余→Utf8（对象和数组为JSON文本）
+ * - code/message/success以及sqlType、executionTime、affectedRows等元信息写在schema的自定义元数据中（执行计划为JSON文本）
+ * - 每 BATCH_SIZE 行一个RecordBatch
+ */
+public final class ArrowResultWriter {
+
+    /**
+     * 每个RecordBatch的行数
+     */
+    static final int BATCH_SIZE = 8192;
+
+    /**
+     * Decimal128的最大精度，超过时按文本输出
+     */
+    private static final int MAX_DECIMAL_PRECISION = 38;
+
+    private enum Kind { INT64, FLOAT64, DECIMAL, BOOL, DATE, TIMESTAMP, BINARY, UTF8 }
+
+    private ArrowResultWriter() {
+    }
+
+    /**
+     * 写出结果
+     * @param result 统一响应，data为SqlResult或null（出错时只有元数据，没有列和行）
+     * @param objectMapper 对象、数组类型的值按JSON文本输出
+     */
+    public static void write(Result<?> result, BufferAllocator allocator, ObjectMapper objectMapper, OutputStream out)
+            throws IOException {
+        SqlResult sqlResult = result.getData() instanceof SqlResult ? (SqlResult) result.getData() : null;
+        Map<String, String> metadata = metadata(result, sqlResult, objectMapper);
+        List<String> columns = sqlResult != null && sqlResult.getColumns() != null
+                ? sqlResult.getColumns() : Collections.emptyList();
+        Rows rows = Rows.of(sqlResult, columns.size());
+
+        List<Field> fields = new ArrayList<>(columns.size());
+        Kind[] kinds = new Kind[columns.size()];
+        int[] scales = new int[columns.size()];
+        for (int c = 0; c < columns.size(); c++) {
+            int sqlType = sqlResult.getColumnTypes() != null && c < sqlResult.getColumnTypes().length
+                    ? sqlResult.getColumnTypes()[c] : Types.NULL;
+            kinds[c] = resolveKind(rows, c, sqlType);
+            if (kinds[c] == Kind.DECIMAL) {
+                scales[c] = decimalScale(rows, c);
+                if (scales[c] < 0) {
+                    kinds[c] = Kind.UTF8;
+                }
+            }
+            fields.add(new Field(columns.get(c), FieldType.nullable(arrowType(kinds[c], scales[c])), null));
+        }
+
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields, metadata), allocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(out))) {
+            writer.start();
+            for (int start = 0; start < rows.size(); start += BATCH_SIZE) {
+                int count = Math.min(BATCH_SIZE, rows.size() - start);
+                root.allocateNew();
+                for (int c = 0; c < kinds.length; c++) {
+                    FieldVector vector = root.getVector(c);
+                    for (int i = 0; i < count; i++) {
+                        setValue(vector, kinds[c], scales[c], i, rows.get(start + i, c), objectMapper);
+                    }
+                }
+                root.setRowCount(count);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    private static Map<String, String> metadata(Result<?> result, SqlResult sqlResult, ObjectMapper objectMapper)
+            throws IOException {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        put(metadata, "code", result.getCode());
+        put(metadata, "message", result.getMessage());
+        put(metadata, "success", result.getSuccess());
+        if (sqlResult != null) {
+            put(metadata, "sqlType", sqlResult.getSqlType());
+            put(metadata, "sql", sqlResult.getSql());
+            put(metadata, "affectedRows", sqlResult.getAffectedRows());
+            put(metadata, "executionTime", sqlResult.getExecutionTime());
+            put(metadata, "hasMore", sqlResult.getHasMore());
+            put(metadata, "nextCursor", sqlResult.getNextCursor());
+            put(metadata, "cached", sqlResult.getCached());
+            put(metadata, "notice", sqlResult.getNotice());
+            put(metadata, "errorMessage", sqlResult.getErrorMessage());
+            if (sqlResult.getPlan() != null) {
+                metadata.put("plan", objectMapper.writeValueAsString(sqlResult.getPlan()));
+            }
+        }
+        return metadata;
+    }
+
+    private static void put(Map<String, String> metadata, String key, Object value) {
+        if (value != null) {
+            metadata.put(key, String.valueOf(value));
+        }
+    }
+
+    /**
+     * 按列类型确定输出类型，列中有不符合该类型的值时改为按值推断
+     */
+    private static Kind resolveKind(Rows rows, int column, int sqlType) {
+        Kind kind = fromSqlType(sqlType);
+        if (kind != null && allMatch(rows, column, kind)) {
+            return kind;
+        }
+        for (Kind candidate : new Kind[]{Kind.BOOL, Kind.INT64, Kind.DECIMAL, Kind.FLOAT64, Kind.DATE, Kind.TIMESTAMP,
+                Kind.BINARY}) {
+            if (allMatch(rows, column, candidate) && hasValue(rows, column)) {
+                return candidate;
+            }
+        }
+        return Kind.UTF8;
+    }
+
+    private static Kind fromSqlType(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Kind.INT64;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Kind.FLOAT64;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return Kind.DECIMAL;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return Kind.BOOL;
+            case Types.DATE:
+                return Kind.DATE;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return Kind.TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return Kind.BINARY;
+            case Types.NULL:
+                return null;
+            default:
+                return Kind.UTF8;
+        }
+    }
+
+    private static boolean allMatch(Rows rows, int column, Kind kind) {
+        for (int r = 0; r < rows.size(); r++) {
+            Object value = rows.get(r, column);
+            if (value != null && !matches(kind, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasValue(Rows rows, int column) {
+        for (int r = 0; r < rows.size(); r++) {
+            if (rows.get(r, column) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(Kind kind, Object value) {
+        switch (kind) {
+            case INT64:
+                return isIntegral(value) || value instanceof BigInteger && ((BigInteger) value).bitLength() < 64;
+            case FLOAT64:
+                return value instanceof Double || value instanceof Float || isIntegral(value);
+            case DECIMAL:
+                return value instanceof BigDecimal || value instanceof BigInteger || isIntegral(value);
+            case BOOL:
+                return value instanceof Boolean;
+            case DATE:
+                return value instanceof java.sql.Date || value instanceof LocalDate;
+            case TIMESTAMP:
+                return value instanceof java.util.Date && !(value instanceof java.sql.Date)
+                        && !(value instanceof java.sql.Time) || value instanceof LocalDateTime;
+            case BINARY:
+                return value instanceof byte[];
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * DECIMAL列的小数位数（列中的最大值），精度超过Decimal128时返回-1
+     */
+    private static int decimalScale(Rows rows, int column) {
+        int scale = 0;
+        int integerDigits = 1;
+        for (int r = 0; r < rows.size(); r++) {
+            BigDecimal value = toDecimal(rows.get(r, column));
+            if (value != null) {
+                scale = Math.max(scale, value.scale());
+                integerDigits = Math.max(integerDigits, value.precision() - value.scale());
+            }
+        }
+        return integerDigits + scale <= MAX_DECIMAL_PRECISION ? scale : -1;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        return value instanceof Number ? BigDecimal.valueOf(((Number) value).longValue()) : null;
+    }
+
+    private static ArrowType arrowType(Kind kind, int scale) {
+        switch (kind) {
+            case INT64:
+                return new ArrowType.Int(64, true);
+            case FLOAT64:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case DECIMAL:
+                return new ArrowType.Decimal(MAX_DECIMAL_PRECISION, scale, 128);
+            case BOOL:
+                return ArrowType.Bool.INSTANCE;
+            case DATE:
+                return new ArrowType.Date(DateUnit.DAY);
+            case TIMESTAMP:
+                return new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+            case BINARY:
+                return ArrowType.Binary.INSTANCE;
+            default:
+                return ArrowType.Utf8.INSTANCE;
+        }
+    }
+
+    private static void setValue(FieldVector vector, Kind kind, int scale, int index, Object value,
+                                 ObjectMapper objectMapper) {
+        if (value == null) {
+            vector.setNull(index);
+            return;
+        }
+        switch (kind) {
+            case INT64:
+                ((BigIntVector) vector).setSafe(index, ((Number) value).longValue());
+                break;
+            case FLOAT64:
+                ((Float8Vector) vector).setSafe(index, ((Number) value).doubleValue());
+                break;
+            case DECIMAL:
+                ((DecimalVector) vector).setSafe(index, toDecimal(value).setScale(scale, RoundingMode.UNNECESSARY));
+                break;
+            case BOOL:
+                ((BitVector) vector).setSafe(index, (Boolean) value ? 1 : 0);
+                break;
+            case DATE:
+                LocalDate date = value instanceof LocalDate ? (LocalDate) value : ((java.sql.Date) value).toLocalDate();
+                ((DateDayVector) vector).setSafe(index, (int) date.toEpochDay());
+                break;
+            case TIMESTAMP:
+                long millis = value instanceof LocalDateTime
+                        ? ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli()
+                        : ((java.util.Date) value).getTime();
+                ((TimeStampMilliVector) vector).setSafe(index, millis);
+                break;
+            case BINARY:
+                ((VarBinaryVector) vector).setSafe(index, (byte[]) value);
+                break;
+            default:
+                ((VarCharVector) vector).setSafe(index, toText(value, objectMapper).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 文本列：字符串原样输出，其余值按JSON输出（字符串形式的值如日期不带引号）
+     */
+    private static String toText(Object value, ObjectMapper objectMapper) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return value.toString();
+        }
+        JsonNode node = objectMapper.valueToTree(value);
+        return node.isTextual() ? node.asText() : node.toString();
+    }
+
+    /**
+     * 按行列读取三种结果格式（map、array、columnar）的数据
+     */
+    private abstract static class Rows {
+
+        abstract int size();
+
+        abstract Object get(int row, int column);
+
+        static Rows of(SqlResult result, int columnCount) {
+            if (result == null || columnCount == 0) {
+                return new ListRows(Collections.emptyList());
+            }
+            if (result.getRows() != null) {
+                return new ListRows(result.getRows());
+            }
+            if (result.getColumnData() != null) {
+                return new ColumnRows(result.getColumnData(), result.getAffectedRows());
+            }
+            List<Map<String, Object>> data = result.getData() != null ? result.getData() : Collections.emptyList();
+            List<Object[]> rows = new ArrayList<>(data.size());
+            for (Map<String, Object> row : data) {
+                Object[] values = new Object[columnCount];
+                for (int c = 0; c < columnCount; c++) {
+                    values[c] = row.get(result.getColumns().get(c));
+                }
+                rows.add(values);
+            }
+            return new ListRows(rows);
+        }
+    }
+
+    private static class ListRows extends Rows {
+
+        private final List<Object[]> rows;
+
+        ListRows(List<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        int size() {
+            return rows.size();
+        }
+
+        @Override
+        Object get(int row, int column) {
+            Object[] values = rows.get(row);
+            return column < values.length ? values[column] : null;
+        }
+    }
+
+    private static class ColumnRows extends Rows {
+
+        private final List<Object> columns;
+
+        private final int size;
+
+        ColumnRows(List<Object> columns, Integer size) {
+            this.columns = columns;
+            this.size = size != null ? size : 0;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        Object get(int row, int column) {
+            Object values = columns.get(column);
+            if (values instanceof long[]) {
+                return ((long[]) values)[row];
+            }
+            if (values instanceof double[]) {
+                return ((double[]) values)[row];
+            }
+            List<?> list = (List<?>) values;
+            return row < list.size() ? list.get(row) : null;
+        }
+    }
+}
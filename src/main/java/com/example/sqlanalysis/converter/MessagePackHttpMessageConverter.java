@@ -0,0 +1,38 @@
+package com.example.sqlanalysis.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+
+/**
+ * MessagePack格式的消息转换器（Accept: application/x-msgpack 或 application/msgpack）
+ * 结构与JSON响应完全相同，只是编码为二进制，数值和二进制数据不需要转成文本
+ * BigDecimal按字符串输出：MessagePack只有浮点数，转成double会丢失DECIMAL列的精度
+ */
+public class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType APPLICATION_MSGPACK = MediaType.parseMediaType("application/x-msgpack");
+
+    public static final MediaType APPLICATION_MSGPACK_STANDARD = MediaType.parseMediaType("application/msgpack");
+
+    /**
+     * @param builder Spring Boot配置好的builder（日期格式、时区等与JSON响应一致）
+     */
+    public MessagePackHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(createObjectMapper(builder), APPLICATION_MSGPACK, APPLICATION_MSGPACK_STANDARD);
+    }
+
+    private static ObjectMapper createObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        SimpleModule module = new SimpleModule("MessagePackDecimal");
+        module.addSerializer(BigDecimal.class, ToStringSerializer.instance);
+        ObjectMapper objectMapper = builder.factory(new MessagePackFactory()).build();
+        objectMapper.registerModule(module);
+        return objectMapper;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.sqlanalysis.datasource;
+
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命名数据源目录
+ * 每个数据源在第一次使用时才创建独立的连接池，JdbcTemplate/MongoTemplate/StringRedisTemplate按名称缓存复用
+ * 连接池默认最小空闲为0，空闲连接超过idleTimeout后自动回收
+ */
+@Slf4j
+@Component
+public class DataSourceCatalog {
+
+    @Autowired
+    private DataSourceCatalogProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Spring Boot创建的Lettuce客户端资源（带命令耗时指标），命名数据源共用
+     */
+    @Autowired(required = false)
+    private ClientResources lettuceClientResources;
+
+    /**
+     * 是否使用服务端预编译语句
+     */
+    @Value("${sql.prepared-statement.server-side:true}")
+    private boolean serverPrepStmts;
+
+    /**
+     * 每个连接缓存的预编译语句数
+     */
+    @Value("${sql.prepared-statement.cache-size:250}")
+    private int prepStmtCacheSize;
+
+    /**
+     * 可缓存的SQL最大长度
+     */
+    @Value("${sql.prepared-statement.cache-sql-limit:2048}")
+    private int prepStmtCacheSqlLimit;
+
+    /**
+     * 命名Redis数据源未配置command-timeout时的命令超时时间，与默认数据源一致
+     */
+    @Value("${spring.redis.timeout:3000}")
+    private Duration defaultRedisCommandTimeout;
+
+    private final Map<String, JdbcTemplate> jdbcTemplates = new ConcurrentHashMap<>();
+
+    private final Map<String, MongoTemplate> mongoTemplates = new ConcurrentHashMap<>();
+
+    private final Map<String, StringRedisTemplate> redisTemplates = new ConcurrentHashMap<>();
+
+    private final Map<String, HikariDataSource> hikariDataSources = new ConcurrentHashMap<>();
+
+    private final Map<String, MongoClient> mongoClients = new ConcurrentHashMap<>();
+
+    private final Map<String, LettuceConnectionFactory> redisConnectionFactories = new ConcurrentHashMap<>();
+
+    /**
+     * 命名数据源的类型
+     */
+    public DataSourceType getType(String name) {
+        DataSourceTargetProperties target = getTarget(name);
+        if (target.getType() == null || target.getType().trim().isEmpty()) {
+            throw new IllegalStateException("数据源 " + name + " 未配置type");
+        }
+        return DataSourceType.fromCode(target.getType());
+    }
+
+    /**
+     * 所有命名数据源：名称 -> 类型
+     */
+    public Map<String, String> listTargets() {
+        Map<String, String> targets = new LinkedHashMap<>();
+        for (String name : properties.getDatasources().keySet()) {
+            targets.put(name, getType(name).getCode());
+        }
+        return targets;
+    }
+
+    /**
+     * 获取MySQL数据源的JdbcTemplate（首次调用时创建连接池）
+     */
+    public JdbcTemplate getJdbcTemplate(String name) {
+        checkType(name, DataSourceType.MYSQL);
+        return jdbcTemplates.computeIfAbsent(name, key -> new JdbcTemplate(createHikariDataSource(key)));
+    }
+
+    /**
+     * 获取MongoDB数据源的MongoTemplate（首次调用时创建连接池）
+     */
+    public MongoTemplate getMongoTemplate(String name) {
+        checkType(name, DataSourceType.MONGODB);
+        return mongoTemplates.computeIfAbsent(name, this::createMongoTemplate);
+    }
+
+    /**
+     * 获取Redis数据源的StringRedisTemplate（首次调用时创建连接池）
+     */
+    public StringRedisTemplate getStringRedisTemplate(String name) {
+        checkType(name, DataSourceType.REDIS);
+        return redisTemplates.computeIfAbsent(name, key -> new StringRedisTemplate(createRedisConnectionFactory(key)));
+    }
+
+    private HikariDataSource createHikariDataSource(String name) {
+        DataSourceTargetProperties target = getTarget(name);
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("sql-" + name);
+        config.setJdbcUrl(target.getUrl());
+        config.setUsername(target.getUsername());
+        config.setPassword(target.getPassword());
+        config.setMaximumPoolSize(target.getMaxPoolSize());
+        config.setMinimumIdle(target.getMinIdle());
+        config.setIdleTimeout(target.getIdleTimeout());
+        config.setConnectionTimeout(target.getConnectionTimeout());
+        // 与默认数据源一致，开启驱动的预编译语句缓存
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", String.valueOf(serverPrepStmts));
+        config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(prepStmtCacheSize));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(prepStmtCacheSqlLimit));
+        // 连接池指标（hikaricp.connections.acquire为获取连接的等待时间），默认数据源由Spring Boot自动注册
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        hikariDataSources.put(name, dataSource);
+        log.info("创建MySQL连接池: {}，最大连接数: {}", name, target.getMaxPoolSize());
+        return dataSource;
+    }
+
+    private MongoTemplate createMongoTemplate(String name) {
+        DataSourceTargetProperties target = getTarget(name);
+        ConnectionString connectionString = new ConnectionString(target.getUrl());
+        String database = target.getDatabase() != null ? target.getDatabase() : connectionString.getDatabase();
+        if (database == null) {
+            throw new IllegalStateException("数据源 " + name + " 未配置database");
+        }
+
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(target.getMaxPoolSize())
+                        .minSize(target.getMinIdle())
+                        .maxConnectionIdleTime(target.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                        .maxWaitTime(target.getConnectionTimeout(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)))
+                // 命令耗时指标（mongodb.driver.commands）
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .build();
+        MongoClient client = MongoClients.create(settings);
+        mongoClients.put(name, client);
+        log.info("创建MongoDB连接池: {}，最大连接数: {}", name, target.getMaxPoolSize());
+        return new MongoTemplate(client, database);
+    }
+
+    private LettuceConnectionFactory createRedisConnectionFactory(String name) {
+        DataSourceTargetProperties target = getTarget(name);
+        RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration(
+                target.getHost() != null ? target.getHost() : "localhost",
+                target.getPort() != null ? target.getPort() : 6379);
+        if (target.getPassword() != null) {
+            standalone.setPassword(RedisPassword.of(target.getPassword()));
+        }
+        if (target.getDatabase() != null) {
+            standalone.setDatabase(Integer.parseInt(target.getDatabase()));
+        }
+
+        GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(target.getMaxPoolSize());
+        poolConfig.setMaxIdle(target.getMaxPoolSize());
+        poolConfig.setMinIdle(target.getMinIdle());
+        // 定期回收空闲连接
+        poolConfig.setMinEvictableIdleTime(Duration.ofMillis(target.getIdleTimeout()));
+        poolConfig.setTimeBetweenEvictionRuns(Duration.ofMillis(Math.max(1000, target.getIdleTimeout() / 2)));
+        poolConfig.setMaxWait(Duration.ofMillis(target.getConnectionTimeout()));
+
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder builder =
+                LettucePoolingClientConfiguration.builder()
+                        .poolConfig(poolConfig)
+                        .commandTimeout(target.getCommandTimeout() != null
+                                ? Duration.ofMillis(target.getCommandTimeout()) : defaultRedisCommandTimeout);
+        if (lettuceClientResources != null) {
+            // 共用客户端资源，命令耗时指标（lettuce.command.*）与默认数据源一起统计
+            builder.clientResources(lettuceClientResources);
+        }
+        LettucePoolingClientConfiguration clientConfig = builder.build();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(standalone, clientConfig);
+        factory.afterPropertiesSet();
+        redisConnectionFactories.put(name, factory);
+        log.info("创建Redis连接池: {}，最大连接数: {}", name, target.getMaxPoolSize());
+        return factory;
+    }
+
+    private DataSourceTargetProperties getTarget(String name) {
+        DataSourceTargetProperties target = properties.getDatasources().get(name);
+        if (target == null) {
+            throw new IllegalArgumentException("未找到数据源: " + name);
+        }
+        return target;
+    }
+
+    private void checkType(String name, DataSourceType expected) {
+        DataSourceType type = getType(name);
+        if (type != expected) {
+            throw new IllegalArgumentException("数据源 " + name + " 的类型为 " + type.getCode()
+                    + "，不是 " + expected.getCode());
+        }
+    }
+
+    /**
+     * 关闭所有已创建的连接池
+     */
+    @PreDestroy
+    public void destroy() {
+        hikariDataSources.forEach((name, dataSource) -> dataSource.close());
+        mongoClients.forEach((name, client) -> client.close());
+        redisConnectionFactories.forEach((name, factory) -> factory.destroy());
+        log.info("命名数据源连接池已关闭");
+    }
+}
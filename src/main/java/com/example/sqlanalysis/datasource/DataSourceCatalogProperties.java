@@ -0,0 +1,23 @@
+package com.example.sqlanalysis.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 命名数据源目录配置
+ * 例如：sql.datasources.orders-replica-3.type=mysql
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql")
+public class DataSourceCatalogProperties {
+
+    /**
+     * 数据源名称 -> 数据源配置
+     */
+    private Map<String, DataSourceTargetProperties> datasources = new LinkedHashMap<>();
+}
@@ -0,0 +1,282 @@
+package com.example.sqlanalysis.datasource;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MySQL读写分离路由
+ * - 写语句始终走主库
+ * - 读语句在健康的从库中选择未完成查询数最少的一个（相同时轮询）
+ * - 写操作之后的一段时间内（sticky-window），同一会话的读语句仍走主库，保证读到自己的写入；未指定会话的写操作不影响其它会话
+ * 主库为默认数据源或命名数据源，从库为sql.datasources中配置的MySQL数据源
+ */
+@Slf4j
+@Component
+public class ReadWriteRouter {
+
+    /**
+     * 默认数据源的名称（用于粘滞key和日志）
+     */
+    private static final String DEFAULT_PRIMARY = "default";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceCatalog dataSourceCatalog;
+
+    @Autowired
+    private DataSourceCatalogProperties catalogProperties;
+
+    @Value("${sql.read-write.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 默认数据源的从库（sql.datasources中的名称，逗号分隔）
+     */
+    @Value("${sql.read-write.replicas:}")
+    private String[] defaultReplicas;
+
+    /**
+     * 写后读粘滞时间（毫秒）
+     */
+    @Value("${sql.read-write.sticky-window:5000}")
+    private long stickyWindow;
+
+    /**
+     * 健康检查超时时间（秒）
+     */
+    @Value("${sql.read-write.health-check-timeout:2}")
+    private int healthCheckTimeout;
+
+    /**
+     * 主库名称 -> 从库列表
+     */
+    private final Map<String, List<ReplicaState>> replicasByPrimary = new ConcurrentHashMap<>();
+
+    /**
+     * 从库名称 -> 从库状态（多个主库可以共用同一个从库配置）
+     */
+    private final Map<String, ReplicaState> replicaStates = new ConcurrentHashMap<>();
+
+    /**
+     * 轮询计数，在未完成查询数相同的从库之间轮换
+     */
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    /**
+     * 最近发生写操作的（主库, 会话），在粘滞时间内读走主库
+     */
+    private Cache<String, Boolean> recentWrites;
+
+    @PostConstruct
+    public void init() {
+        recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow, TimeUnit.MILLISECONDS)
+                .maximumSize(100000)
+                .build();
+
+        registerReplicas(DEFAULT_PRIMARY, Arrays.asList(defaultReplicas));
+        for (Map.Entry<String, DataSourceTargetProperties> entry : catalogProperties.getDatasources().entrySet()) {
+            List<String> replicas = entry.getValue().getReplicas();
+            if (replicas != null && !replicas.isEmpty()) {
+                registerReplicas(entry.getKey(), replicas);
+            }
+        }
+        if (!replicasByPrimary.isEmpty()) {
+            log.info("MySQL读写分离已配置: {}", replicasByPrimary.keySet());
+        }
+    }
+
+    private void registerReplicas(String primary, List<String> replicaNames) {
+        List<ReplicaState> replicas = new ArrayList<>();
+        for (String name : replicaNames) {
+            if (name == null || name.trim().isEmpty()) {
+                continue;
+            }
+            String replicaName = name.trim();
+            if (dataSourceCatalog.getType(replicaName) != DataSourceType.MYSQL) {
+                throw new IllegalStateException("从库 " + replicaName + " 不是MySQL数据源");
+            }
+            replicas.add(replicaStates.computeIfAbsent(replicaName, ReplicaState::new));
+        }
+        if (!replicas.isEmpty()) {
+            replicasByPrimary.put(primary, Collections.unmodifiableList(replicas));
+        }
+    }
+
+    /**
+     * 为请求选择连接池
+     * @param request 请求
+     * @param write 是否为写语句（根据SQL类型判断）
+     * @return 路由结果，使用完毕后必须调用release()
+     */
+    public Route route(SqlRequest request, boolean write) {
+        String dataSource = request.getDataSource();
+        boolean named = dataSource != null && !dataSource.trim().isEmpty();
+        String primary = named ? dataSource.trim() : DEFAULT_PRIMARY;
+        JdbcTemplate primaryTemplate = named ? dataSourceCatalog.getJdbcTemplate(primary) : jdbcTemplate;
+
+        List<ReplicaState> replicas = replicasByPrimary.get(primary);
+        if (!enabled || replicas == null) {
+            return new Route(primary, primaryTemplate, null);
+        }
+
+        String session = request.getSessionId();
+        if (write) {
+            // 只有指定了会话的写操作才需要写后读粘滞，否则无法判断哪些读属于同一个调用方
+            if (session != null) {
+                recentWrites.put(primary + '|' + session, Boolean.TRUE);
+            }
+            return new Route(primary, primaryTemplate, null);
+        }
+
+        // 写后读粘滞：本会话刚写过，读主库
+        if (session != null && recentWrites.getIfPresent(primary + '|' + session) != null) {
+            return new Route(primary, primaryTemplate, null);
+        }
+
+        ReplicaState replica = chooseReplica(replicas);
+        if (replica == null) {
+            // 没有健康的从库，降级读主库
+            return new Route(primary, primaryTemplate, null);
+        }
+        return new Route(replica.name, dataSourceCatalog.getJdbcTemplate(replica.name), replica);
+    }
+
+    /**
+     * 选择未完成查询数最少的健康从库，相同时轮询
+     */
+    private ReplicaState chooseReplica(List<ReplicaState> replicas) {
+        int size = replicas.size();
+        int start = Math.floorMod(roundRobin.getAndIncrement(), size);
+        ReplicaState chosen = null;
+        int minOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ReplicaState replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            int outstanding = replica.outstanding.get();
+            if (outstanding < minOutstanding) {
+                minOutstanding = outstanding;
+                chosen = replica;
+            }
+        }
+        if (chosen != null) {
+            chosen.outstanding.incrementAndGet();
+        }
+        return chosen;
+    }
+
+    /**
+     * 定期检查从库健康状态，不健康的从库在恢复前不参与路由
+     */
+    @Scheduled(fixedDelayString = "${sql.read-write.health-check-interval:10000}")
+    public void checkReplicas() {
+        for (ReplicaState replica : replicaStates.values()) {
+            boolean healthy;
+            try {
+                JdbcTemplate template = dataSourceCatalog.getJdbcTemplate(replica.name);
+                template.execute(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("SELECT 1");
+                    ps.setQueryTimeout(healthCheckTimeout);
+                    return ps;
+                }, (PreparedStatement ps) -> ps.execute());
+                healthy = true;
+            } catch (Exception e) {
+                healthy = false;
+                log.warn("从库健康检查失败: {}，{}", replica.name, e.getMessage());
+            }
+            if (healthy != replica.healthy) {
+                log.info("从库 {} 状态变更为: {}", replica.name, healthy ? "健康" : "不健康");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * 从库运行状态
+     */
+    private static class ReplicaState {
+
+        private final String name;
+
+        /**
+         * 正在执行的查询数
+         */
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        ReplicaState(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 路由结果
+     */
+    public static class Route {
+
+        private final String target;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final ReplicaState replica;
+
+        Route(String target, JdbcTemplate jdbcTemplate, ReplicaState replica) {
+            this.target = target;
+            this.jdbcTemplate = jdbcTemplate;
+            this.replica = replica;
+        }
+
+        /**
+         * 实际执行的数据源名称
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public JdbcTemplate getJdbcTemplate() {
+            return jdbcTemplate;
+        }
+
+        /**
+         * 执行完成，释放从库的未完成计数
+         */
+        public void release() {
+            if (replica != null) {
+                replica.outstanding.decrementAndGet();
+            }
+        }
+
+        /**
+         * 从库连接失败，标记为不健康，等待下一次健康检查恢复
+         */
+        public void markFailed() {
+            if (replica != null) {
+                replica.healthy = false;
+            }
+        }
+    }
+}
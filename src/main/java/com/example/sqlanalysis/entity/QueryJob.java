@@ -0,0 +1,92 @@
+package com.example.sqlanalysis.entity;
+
+import com.example.sqlanalysis.enums.JobStatus;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 异步查询任务
+ */
+@Data
+public class QueryJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    private volatile JobStatus status;
+
+    /**
+     * 数据源类型
+     */
+    private String dataSourceType;
+
+    /**
+     * 命名数据源
+     */
+    private String dataSource;
+
+    /**
+     * 查询语句
+     */
+    private String sql;
+
+    /**
+     * SQL类型（SELECT、MONGODB_FIND等）
+     */
+    private String sqlType;
+
+    /**
+     * 列名列表
+     */
+    private List<String> columns;
+
+    /**
+     * 已写入的行数（执行中为当前进度）
+     */
+    private volatile Long rowCount;
+
+    /**
+     * 结果文件大小（字节）
+     */
+    private volatile Long resultBytes;
+
+    /**
+     * 提交时间、开始时间、结束时间（毫秒时间戳）
+     */
+    private Long submitTime;
+
+    private volatile Long startTime;
+
+    private volatile Long finishTime;
+
+    /**
+     * 结果过期时间（毫秒时间戳），过期后任务和结果文件被清理
+     */
+    private volatile Long expireTime;
+
+    /**
+     * 执行时间（毫秒）
+     */
+    private Long executionTime;
+
+    /**
+     * 遍历达到上限时的续扫游标（Redis SCAN）
+     */
+    private Boolean hasMore;
+
+    private String nextCursor;
+
+    /**
+     * 失败原因
+     */
+    private volatile String errorMessage;
+}
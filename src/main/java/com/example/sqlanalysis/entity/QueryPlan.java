@@ -0,0 +1,81 @@
+package com.example.sqlanalysis.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行计划分析结果（MySQL EXPLAIN FORMAT=JSON）
+ */
+@Data
+public class QueryPlan implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 优化器估算的总成本
+     */
+    private Double queryCost;
+
+    /**
+     * 估算的扫描行数（各表每次扫描行数 × 扫描次数之和）
+     */
+    private Long estimatedRows;
+
+    /**
+     * 存在全表扫描
+     */
+    private Boolean fullScan;
+
+    /**
+     * 存在全索引扫描
+     */
+    private Boolean fullIndexScan;
+
+    /**
+     * 使用文件排序（Using filesort）
+     */
+    private Boolean filesort;
+
+    /**
+     * 使用临时表（Using temporary）
+     */
+    private Boolean temporaryTable;
+
+    /**
+     * 存在没有可用索引的表
+     */
+    private Boolean missingIndex;
+
+    /**
+     * 问题说明
+     */
+    private List<String> warnings = new ArrayList<>();
+
+    /**
+     * EXPLAIN FORMAT=JSON 的原始结果
+     */
+    private Map<String, Object> rawPlan;
+
+    /**
+     * EXPLAIN ANALYZE 的输出（树形文本），未执行时为null
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String analyzeOutput;
+
+    /**
+     * EXPLAIN ANALYZE 实际执行耗时（毫秒）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double actualTime;
+
+    /**
+     * EXPLAIN ANALYZE 实际返回行数
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long actualRows;
+}
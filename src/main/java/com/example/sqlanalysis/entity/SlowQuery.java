@@ -0,0 +1,76 @@
+package com.example.sqlanalysis.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 慢查询记录
+ */
+@Data
+public class SlowQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 查询ID
+     */
+    private String queryId;
+
+    /**
+     * 数据源类型
+     */
+    private String dataSourceType;
+
+    /**
+     * 命名数据源
+     */
+    private String dataSource;
+
+    /**
+     * 语句指纹ID
+     */
+    private String fingerprint;
+
+    /**
+     * 原始语句
+     */
+    private String sql;
+
+    /**
+     * 执行结果：success/error/cancelled
+     */
+    private String outcome;
+
+    /**
+     * 执行耗时（毫秒）
+     */
+    private Long executionTime;
+
+    /**
+     * 返回行数
+     */
+    private Long rows;
+
+    /**
+     * 结果大小（估算字节数）
+     */
+    private Long bytes;
+
+    /**
+     * 结束时间
+     */
+    private Long finishTime;
+
+    /**
+     * MySQL执行计划（EXPLAIN的结果行），异步获取，未获取或不支持时为null
+     */
+    private volatile List<Map<String, Object>> explain;
+
+    /**
+     * 获取执行计划失败的原因
+     */
+    private volatile String explainError;
+}
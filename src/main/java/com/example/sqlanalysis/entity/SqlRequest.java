@@ -1,8 +1,11 @@
 package com.example.sqlanalysis.entity;
 
+import com.example.sqlanalysis.executor.QueryContext;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * SQL请求实体类
@@ -18,6 +21,12 @@ public class SqlRequest implements Serializable {
      */
     private String dataSourceType = "mysql";
 
+    /**
+     * 命名数据源（sql.datasources.*中配置的名称），如 orders-replica-3
+     * 指定时按该数据源的类型和连接池执行，忽略dataSourceType；为空时使用默认数据源
+     */
+    private String dataSource;
+
     /**
      * SQL语句/查询命令
      * - MySQL: SQL语句，如 "SELECT * FROM users"
@@ -26,11 +35,68 @@ public class SqlRequest implements Serializable {
      */
     private String sql;
 
+    /**
+     * SQL参数（仅MySQL），按顺序绑定到sql中的?占位符
+     * 相同语句不同参数时可复用预编译语句，如 "SELECT * FROM users WHERE id = ?" + [1]
+     */
+    private List<Object> params;
+
     /**
      * 查询超时时间（秒），默认30秒
      */
     private Integer timeout = 30;
-}
 
+    /**
+     * 页码，从1开始，配合pageSize使用
+     */
+    private Integer page;
+
+    /**
+     * 每页行数，为空表示不分页
+     */
+    private Integer pageSize;
+
+    /**
+     * 最多返回的行数，下推到数据源执行（MySQL LIMIT、MongoDB limit）
+     */
+    private Integer maxRows;
+
+    /**
+     * 分页游标，取自上一页结果的nextCursor，优先于page
+     * - MySQL/MongoDB: 下一页的起始偏移量
+     * - Redis: SCAN游标
+     */
+    private String cursor;
+
+    /**
+     * 结果格式：map（默认）、array、columnar
+     * - map: data为每行一个Map
+     * - array: columns只返回一次，rows为每行一个数组
+     * - columnar: columnData按列返回，数值列为基本类型数组
+     */
+    private String resultFormat;
+
+    /**
+     * 结果缓存时间（秒），为空使用默认值（sql.cache.ttl），0表示不使用缓存
+     * 只对只读查询生效
+     */
+    private Integer cacheTtl;
 
+    /**
+     * 会话标识（可选），用于读写分离的写后读一致性
+     * 同一会话写入后的一段时间内，读语句仍走主库
+     */
+    private String sessionId;
+
+    /**
+     * 查询标识（可选），用于取消执行中的查询（DELETE /api/sql/queries/{queryId}）
+     * 为空时自动生成
+     */
+    private String queryId;
 
+    /**
+     * 执行中的查询上下文，由服务端登记查询时设置
+     */
+    @JsonIgnore
+    private transient QueryContext context;
+}
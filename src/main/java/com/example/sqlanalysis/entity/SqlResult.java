@@ -1,5 +1,7 @@
 package com.example.sqlanalysis.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -47,6 +49,65 @@ public class SqlResult implements Serializable {
      * SQL语句
      */
     private String sql;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标，请求下一页时原样放入SqlRequest.cursor
+     */
+    private String nextCursor;
+
+    /**
+     * 结果格式（map、array、columnar）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String resultFormat;
+
+    /**
+     * 按行的数组数据（resultFormat=array时返回），值的顺序与columns一致
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Object[]> rows;
+
+    /**
+     * 按列的数据（resultFormat=columnar时返回），与columns一一对应
+     * 整数列为long[]，浮点列为double[]，其他列为普通数组
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Object> columnData;
+
+    /**
+     * 每列的java.sql.Types类型（MySQL查询结果），用于Arrow格式输出时确定列类型，不返回给JSON客户端
+     */
+    @JsonIgnore
+    private int[] columnTypes;
+
+    /**
+     * 错误信息（批量执行时单条失败返回）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String errorMessage;
+
+    /**
+     * 是否来自结果缓存
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean cached;
+
+    /**
+     * 提示信息（如代价守卫自动限制了结果行数）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String notice;
+
+    /**
+     * 执行计划分析结果（/api/sql/explain 返回）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QueryPlan plan;
 }
 
 
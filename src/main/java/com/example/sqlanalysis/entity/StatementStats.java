@@ -0,0 +1,89 @@
+package com.example.sqlanalysis.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 按语句指纹汇总的执行统计
+ */
+@Data
+public class StatementStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 语句指纹ID
+     */
+    private String fingerprint;
+
+    /**
+     * 规范化后的语句（字面量替换为?）
+     */
+    private String statement;
+
+    /**
+     * 最近一次执行的原始语句
+     */
+    private String sample;
+
+    /**
+     * 数据源类型
+     */
+    private String dataSourceType;
+
+    /**
+     * SQL类型（SELECT、MONGODB_FIND、REDIS等）
+     */
+    private String sqlType;
+
+    /**
+     * 执行次数
+     */
+    private Long count;
+
+    /**
+     * 失败次数（含取消）
+     */
+    private Long errorCount;
+
+    /**
+     * 累计耗时（毫秒）
+     */
+    private Long totalTime;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private Long avgTime;
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    private Long maxTime;
+
+    /**
+     * 累计返回行数
+     */
+    private Long rows;
+
+    /**
+     * 累计结果大小（估算字节数）
+     */
+    private Long bytes;
+
+    /**
+     * 开始统计前可能漏计的累计耗时上限（毫秒），指纹曾被淘汰过时不为0
+     */
+    private Long timeError;
+
+    /**
+     * 开始统计的时间
+     */
+    private Long firstSeen;
+
+    /**
+     * 最近一次执行的时间
+     */
+    private Long lastSeen;
+}
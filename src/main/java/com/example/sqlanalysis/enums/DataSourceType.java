@@ -1,5 +1,9 @@
 package com.example.sqlanalysis.enums;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * 数据源类型枚举
  */
@@ -20,6 +24,17 @@ public enum DataSourceType {
      */
     REDIS("redis", "Redis缓存");
     
+    /**
+     * code到枚举的索引（小写）
+     */
+    private static final Map<String, DataSourceType> CODE_INDEX = new HashMap<>();
+
+    static {
+        for (DataSourceType type : values()) {
+            CODE_INDEX.put(type.code, type);
+        }
+    }
+
     private final String code;
     private final String description;
     
@@ -44,10 +59,13 @@ public enum DataSourceType {
             return MYSQL; // 默认MySQL
         }
         
-        for (DataSourceType type : values()) {
-            if (type.code.equalsIgnoreCase(code)) {
-                return type;
-            }
+        // 绝大多数请求本身就是小写，先直接查找
+        DataSourceType type = CODE_INDEX.get(code);
+        if (type == null) {
+            type = CODE_INDEX.get(code.trim().toLowerCase(Locale.ROOT));
+        }
+        if (type != null) {
+            return type;
         }
         
         throw new IllegalArgumentException("不支持的数据源类型: " + code);
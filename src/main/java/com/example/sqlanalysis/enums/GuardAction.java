@@ -0,0 +1,50 @@
+package com.example.sqlanalysis.enums;
+
+/**
+ * 代价守卫对超过阈值的语句采取的处理方式
+ */
+public enum GuardAction {
+
+    /**
+     * 拒绝执行
+     */
+    REJECT("reject", "拒绝执行"),
+
+    /**
+     * 自动分页，只返回前若干行（不能分页的语句拒绝执行）
+     */
+    LIMIT("limit", "自动限制结果行数"),
+
+    /**
+     * 放入低优先级队列执行
+     */
+    QUEUE("queue", "放入低优先级队列");
+
+    private final String code;
+    private final String description;
+
+    GuardAction(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static GuardAction fromCode(String code) {
+        for (GuardAction action : values()) {
+            if (action.code.equalsIgnoreCase(code)) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("不支持的代价守卫处理方式: " + code);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sqlanalysis.enums;
+
+/**
+ * 异步查询任务状态枚举
+ */
+public enum JobStatus {
+
+    /**
+     * 已提交，等待执行
+     */
+    PENDING("等待执行"),
+
+    /**
+     * 执行中，结果正在写入本地文件
+     */
+    RUNNING("执行中"),
+
+    /**
+     * 执行成功，可以分页获取结果
+     */
+    SUCCEEDED("执行成功"),
+
+    /**
+     * 执行失败
+     */
+    FAILED("执行失败");
+
+    private final String description;
+
+    JobStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 是否已结束（成功或失败）
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.sqlanalysis.enums;
+
+/**
+ * 查询结果格式枚举
+ */
+public enum ResultFormat {
+
+    /**
+     * 每行一个Map（默认，兼容旧客户端）
+     */
+    MAP("map", "每行一个Map，列名作为key"),
+
+    /**
+     * 列名只返回一次，每行一个数组
+     */
+    ARRAY("array", "列名只返回一次，每行一个数组"),
+
+    /**
+     * 按列返回，数值列使用基本类型数组
+     */
+    COLUMNAR("columnar", "按列返回，数值列使用基本类型数组");
+
+    private final String code;
+    private final String description;
+
+    ResultFormat(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static ResultFormat fromCode(String code) {
+        if (code == null || code.trim().isEmpty()) {
+            return MAP; // 默认Map格式
+        }
+
+        for (ResultFormat format : values()) {
+            if (format.code.equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+
+        throw new IllegalArgumentException("不支持的结果格式: " + code);
+    }
+}
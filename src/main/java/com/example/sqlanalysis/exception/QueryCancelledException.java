@@ -0,0 +1,13 @@
+package com.example.sqlanalysis.exception;
+
+/**
+ * 查询被取消：调用方主动取消、客户端断开、超过截止时间，或结果超过行数/大小上限
+ */
+public class QueryCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryCancelledException(String message) {
+        super(message);
+    }
+}
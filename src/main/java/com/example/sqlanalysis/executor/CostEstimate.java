@@ -0,0 +1,50 @@
+package com.example.sqlanalysis.executor;
+
+/**
+ * 执行前的代价估算（由执行器在不执行语句的前提下给出）
+ */
+public final class CostEstimate {
+
+    /**
+     * 估算扫描的行数（文档数、元素数）
+     */
+    private final long rows;
+
+    /**
+     * 需要对全部结果排序或使用临时表，语句自带的LIMIT不能提前结束扫描
+     */
+    private final boolean fullSort;
+
+    /**
+     * 语句本身带有LIMIT（如 LIMIT 10、find的limit、$limit）
+     */
+    private final boolean bounded;
+
+    /**
+     * 能否通过分页参数（pageSize）自动限制结果行数，写语句和Redis命令不能
+     */
+    private final boolean limitable;
+
+    public CostEstimate(long rows, boolean fullSort, boolean bounded, boolean limitable) {
+        this.rows = rows;
+        this.fullSort = fullSort;
+        this.bounded = bounded;
+        this.limitable = limitable;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public boolean isFullSort() {
+        return fullSort;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isLimitable() {
+        return limitable;
+    }
+}
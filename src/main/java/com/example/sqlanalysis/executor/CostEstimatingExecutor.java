@@ -0,0 +1,16 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+
+/**
+ * 支持执行前估算代价的查询执行器（MySQL EXPLAIN、MongoDB explain、Redis集合大小）
+ */
+public interface CostEstimatingExecutor extends QueryExecutor {
+
+    /**
+     * 估算语句的代价，语句本身不执行
+     * @param request 请求对象
+     * @return 估算结果，无法估算（如不支持的语句类型）时返回null
+     */
+    CostEstimate estimateCost(SqlRequest request);
+}
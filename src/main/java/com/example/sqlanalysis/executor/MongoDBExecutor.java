@@ -2,34 +2,70 @@ package com.example.sqlanalysis.executor;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.example.sqlanalysis.common.Pagination;
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.datasource.DataSourceCatalog;
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
 import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.example.sqlanalysis.stream.ResultStreamWriter;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.CountOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MongoDB查询执行器
  */
 @Slf4j
 @Component
-public class MongoDBExecutor implements QueryExecutor {
+public class MongoDBExecutor implements StreamingQueryExecutor, CostEstimatingExecutor {
 
     @Autowired(required = false)
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private DataSourceCatalog dataSourceCatalog;
+
+    /**
+     * 游标每批从服务端拉取的文档数
+     */
+    @Value("${sql.mongodb.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 聚合是否允许使用磁盘临时文件（大数据量的$group/$sort超过内存限制时需要）
+     */
+    @Value("${sql.mongodb.aggregate.allow-disk-use:true}")
+    private boolean allowDiskUse;
+
+    /**
+     * 代价守卫估算索引范围扫描时最多计数的文档数，超过时按集合的文档数估算
+     */
+    @Value("${sql.guard.mongodb.count-probe:10000}")
+    private int countProbe;
+
     @Override
     public SqlResult execute(SqlRequest request) {
-        if (mongoTemplate == null) {
-            throw new RuntimeException("MongoDB未配置，无法执行查询");
-        }
+        MongoTemplate mongoTemplate = resolveMongoTemplate(request);
 
         String command = request.getSql();
         if (command == null || command.trim().isEmpty()) {
@@ -38,6 +74,7 @@ public class MongoDBExecutor implements QueryExecutor {
 
         log.info("开始执行MongoDB查询: {}", command);
         long startTime = System.currentTimeMillis();
+        QueryContext context = QueryContext.of(request);
 
         try {
             // 解析JSON命令
@@ -49,6 +86,8 @@ public class MongoDBExecutor implements QueryExecutor {
                 throw new IllegalArgumentException("collection字段不能为空");
             }
 
+            ResultFormat format = ResultFormat.fromCode(request.getResultFormat());
+
             SqlResult result = new SqlResult();
             result.setSql(command);
             result.setSqlType("MONGODB_" + (operation != null ? operation.toUpperCase() : "QUERY"));
@@ -56,26 +95,30 @@ public class MongoDBExecutor implements QueryExecutor {
             // 根据操作类型执行不同的查询
             switch (operation != null ? operation.toLowerCase() : "find") {
                 case "find":
-                    executeFindQuery(jsonCommand, collection, result);
+                    executeFindQuery(mongoTemplate, jsonCommand, collection, result, Pagination.of(request), format,
+                            request.getTimeout(), context);
                     break;
                 case "count":
-                    executeCountQuery(jsonCommand, collection, result);
+                    executeCountQuery(mongoTemplate, jsonCommand, collection, result, request.getTimeout());
                     break;
                 case "aggregate":
-                    executeAggregateQuery(jsonCommand, collection, result);
+                    executeAggregateQuery(mongoTemplate, jsonCommand, collection, result, Pagination.of(request),
+                            request.getTimeout(), context);
                     break;
                 case "insert":
-                    executeInsert(jsonCommand, collection, result);
+                    executeInsert(mongoTemplate, jsonCommand, collection, result);
                     break;
                 case "update":
-                    executeUpdate(jsonCommand, collection, result);
+                    executeUpdate(mongoTemplate, jsonCommand, collection, result);
                     break;
                 case "delete":
-                    executeDelete(jsonCommand, collection, result);
+                    executeDelete(mongoTemplate, jsonCommand, collection, result);
                     break;
                 default:
                     throw new IllegalArgumentException("不支持的MongoDB操作: " + operation);
             }
+            // find之外的操作结果很小，统一按Map构建后再转换格式
+            ResultCollector.convert(result, format);
 
             long endTime = System.currentTimeMillis();
             result.setExecutionTime(endTime - startTime);
@@ -84,14 +127,315 @@ public class MongoDBExecutor implements QueryExecutor {
             return result;
         } catch (Exception e) {
             log.error("MongoDB查询执行失败: {}", e.getMessage(), e);
+            // 被killOp中止时驱动只报告操作中断，改为返回取消原因
+            context.checkCancelled();
             throw new RuntimeException("MongoDB查询执行失败: " + e.getMessage(), e);
+        } finally {
+            context.onCancel(null);
+        }
+    }
+
+    @Override
+    public void executeStream(SqlRequest request, ResultStreamWriter writer) {
+        MongoTemplate mongoTemplate = resolveMongoTemplate(request);
+
+        String command = request.getSql();
+        if (command == null || command.trim().isEmpty()) {
+            throw new IllegalArgumentException("MongoDB查询命令不能为空");
+        }
+
+        JSONObject jsonCommand = JSON.parseObject(command);
+        String collection = jsonCommand.getString("collection");
+        String operation = jsonCommand.getString("operation");
+        if (collection == null || collection.trim().isEmpty()) {
+            throw new IllegalArgumentException("collection字段不能为空");
+        }
+
+        String op = operation != null ? operation.toLowerCase() : "find";
+        QueryContext context = QueryContext.of(request);
+        MongoIterable<Document> iterable;
+        if ("find".equals(op)) {
+            iterable = buildFind(mongoTemplate, jsonCommand, collection, request.getMaxRows(), request.getTimeout(),
+                    context.getQueryId());
+        } else if ("aggregate".equals(op)) {
+            // 流式查询不分页，只下推maxRows
+            iterable = buildAggregate(mongoTemplate, jsonCommand, collection, Pagination.ofMaxRows(request.getMaxRows()),
+                    request.getTimeout(), context.getQueryId());
+        } else {
+            throw new IllegalArgumentException("流式查询只支持find和aggregate操作");
+        }
+
+        log.info("开始流式执行MongoDB查询: {}", command);
+        long startTime = System.currentTimeMillis();
+
+        SqlResult meta = new SqlResult();
+        meta.setSql(command);
+        meta.setSqlType("MONGODB_" + op.toUpperCase());
+
+        int rowCount = 0;
+        onCancelKill(mongoTemplate, context);
+        try (MongoCursor<Document> cursor = iterable.iterator()) {
+            // 流式输出必须先写表头，列取第一个文档的字段；后续文档出现新字段时追加列
+            List<String> columns = new ArrayList<>();
+            Document first = cursor.hasNext() ? cursor.next() : null;
+            if (first != null) {
+                columns.addAll(first.keySet());
+            }
+            Set<String> known = new HashSet<>(columns);
+            meta.setColumns(new ArrayList<>(columns));
+            writer.writeHeader(meta);
+
+            Object[] values = new Object[columns.size()];
+            Document doc = first;
+            while (doc != null) {
+                List<String> added = null;
+                for (String key : doc.keySet()) {
+                    if (known.add(key)) {
+                        if (added == null) {
+                            added = new ArrayList<>();
+                        }
+                        added.add(key);
+                    }
+                }
+                if (added != null) {
+                    columns.addAll(added);
+                    writer.addColumns(added);
+                    values = new Object[columns.size()];
+                }
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = doc.get(columns.get(c));
+                }
+                writer.writeRow(values);
+                rowCount++;
+                context.checkCancelled();
+                doc = cursor.hasNext() ? cursor.next() : null;
+            }
+
+            SqlResult summary = new SqlResult();
+            summary.setAffectedRows(rowCount);
+            summary.setExecutionTime(System.currentTimeMillis() - startTime);
+            writer.writeFooter(summary);
+            log.info("MongoDB流式查询成功，行数: {}，耗时: {}ms", rowCount, summary.getExecutionTime());
+        } catch (IOException e) {
+            // 关闭游标时会通知服务端killCursors，不再继续拉取
+            throw new UncheckedIOException("写出查询结果失败", e);
+        } catch (RuntimeException e) {
+            context.checkCancelled();
+            throw e;
+        } finally {
+            context.onCancel(null);
+        }
+    }
+
+    /**
+     * 登记取消动作：按comment（即queryId）在服务端查找并killOp
+     * 驱动的游标不能跨线程关闭，取消时直接中止服务端的操作
+     */
+    private void onCancelKill(MongoTemplate mongoTemplate, QueryContext context) {
+        if (context.getQueryId() != null) {
+            context.onCancel(() -> killOperations(mongoTemplate, context.getQueryId()));
+        }
+    }
+
+    /**
+     * 中止comment为queryId的服务端操作（find/aggregate及其getMore），需要killop权限
+     */
+    private void killOperations(MongoTemplate mongoTemplate, String queryId) {
+        MongoDatabase admin = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin");
+        Document currentOp = admin.runCommand(new Document("currentOp", true)
+                .append("$or", Arrays.asList(new Document("command.comment", queryId),
+                        new Document("originatingCommand.comment", queryId))));
+        for (Document op : currentOp.getList("inprog", Document.class, Collections.emptyList())) {
+            admin.runCommand(new Document("killOp", 1).append("op", op.get("opid")));
+            log.info("已中止MongoDB操作: {}, queryId: {}", op.get("opid"), queryId);
+        }
+    }
+
+    /**
+     * 对find、aggregate执行explain（queryPlanner模式，不执行查询）估算扫描的文档数，其它操作不估算
+     * - 全集合扫描（COLLSCAN）或首个索引字段不限范围的索引扫描：按集合的文档数估算
+     * - 索引范围扫描：按过滤条件计数（走同一个索引），最多数 sql.guard.mongodb.count-probe 个，数满时按集合的文档数估算
+     * - 按_id等值查找等不扫描范围的计划：按0估算
+     */
+    @Override
+    public CostEstimate estimateCost(SqlRequest request) {
+        String command = request.getSql();
+        if (command == null || command.trim().isEmpty()) {
+            return null;
+        }
+        JSONObject jsonCommand = JSON.parseObject(command);
+        String collection = jsonCommand.getString("collection");
+        String operation = jsonCommand.getString("operation");
+        operation = operation != null ? operation.toLowerCase() : "find";
+        if (collection == null || collection.trim().isEmpty()
+                || !"find".equals(operation) && !"aggregate".equals(operation)) {
+            return null;
+        }
+
+        Document explained;
+        Document filter;
+        boolean bounded;
+        if ("find".equals(operation)) {
+            String queryStr = jsonCommand.getString("query");
+            Integer limit = jsonCommand.getInteger("limit");
+            filter = queryStr != null && !queryStr.trim().isEmpty() ? Document.parse(queryStr) : new Document();
+            explained = new Document("find", collection).append("filter", filter);
+            bounded = limit != null && limit > 0;
+        } else {
+            List<Document> pipeline = parsePipeline(jsonCommand);
+            explained = new Document("aggregate", collection).append("pipeline", pipeline).append("cursor", new Document());
+            bounded = pipeline.stream().anyMatch(stage -> stage.containsKey("$limit"));
+            // 只有开头的$match能用到索引
+            Object match = pipeline.isEmpty() ? null : pipeline.get(0).get("$match");
+            filter = match instanceof Document ? (Document) match : new Document();
+        }
+        if (request.getTimeout() != null && request.getTimeout() > 0) {
+            explained.append("maxTimeMS", request.getTimeout() * 1000L);
+        }
+
+        MongoTemplate mongoTemplate = resolveMongoTemplate(request);
+        Document plan = mongoTemplate.getDb().runCommand(
+                new Document("explain", explained).append("verbosity", "queryPlanner"));
+        Set<String> stages = new HashSet<>();
+        List<Map<?, ?>> indexScans = new ArrayList<>();
+        collectStages(plan, stages, indexScans);
+
+        long rows;
+        if (stages.contains("COLLSCAN") || indexScans.stream().anyMatch(MongoDBExecutor::isFullIndexScan)
+                || !indexScans.isEmpty() && filter.isEmpty()) {
+            rows = mongoTemplate.getCollection(collection).estimatedDocumentCount();
+        } else if (!indexScans.isEmpty()) {
+            rows = countMatches(mongoTemplate, collection, filter, request.getTimeout());
+        } else {
+            rows = 0;
+        }
+        return new CostEstimate(rows, stages.contains("SORT") || stages.contains("$sort"), bounded, true);
+    }
+
+    /**
+     * 收集执行计划中出现的阶段：stage字段（COLLSCAN、IXSCAN、SORT等）以及聚合阶段名（$sort等）
+     * 未选中的计划（rejectedPlans）不会执行，跳过
+     */
+    private void collectStages(Object node, Set<String> stages, List<Map<?, ?>> indexScans) {
+        if (node instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) node;
+            if ("IXSCAN".equals(map.get("stage"))) {
+                indexScans.add(map);
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                if ("rejectedPlans".equals(key)) {
+                    continue;
+                }
+                if ("stage".equals(key) && entry.getValue() instanceof String) {
+                    stages.add((String) entry.getValue());
+                } else if (key.startsWith("$")) {
+                    stages.add(key);
+                }
+                collectStages(entry.getValue(), stages, indexScans);
+            }
+        } else if (node instanceof Collection) {
+            for (Object element : (Collection<?>) node) {
+                collectStages(element, stages, indexScans);
+            }
+        }
+    }
+
+    /**
+     * 索引扫描的首个字段是否不限范围（[MinKey, MaxKey]），这时会扫描整个索引
+     */
+    static boolean isFullIndexScan(Map<?, ?> indexScan) {
+        Object bounds = indexScan.get("indexBounds");
+        if (!(bounds instanceof Map) || ((Map<?, ?>) bounds).isEmpty()) {
+            return false;
+        }
+        Object leading = ((Map<?, ?>) bounds).values().iterator().next();
+        if (!(leading instanceof Collection)) {
+            return false;
+        }
+        for (Object interval : (Collection<?>) leading) {
+            String text = String.valueOf(interval);
+            if (text.contains("MinKey") && text.contains("MaxKey")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 统计匹配过滤条件的文档数，最多数 sql.guard.mongodb.count-probe 个
+     * 数满或在估算超时时间内数不完时，改用集合的文档数（元数据，不扫描）作为上限估算
+     */
+    private long countMatches(MongoTemplate mongoTemplate, String collection, Document filter, Integer timeout) {
+        CountOptions options = new CountOptions().limit(countProbe);
+        if (timeout != null && timeout > 0) {
+            options.maxTime(timeout, TimeUnit.SECONDS);
+        }
+        try {
+            long count = mongoTemplate.getCollection(collection).countDocuments(filter, options);
+            if (count < countProbe) {
+                return count;
+            }
+        } catch (MongoExecutionTimeoutException e) {
+            log.debug("估算计数超时，按集合文档数估算: {}", collection);
+        }
+        return mongoTemplate.getCollection(collection).estimatedDocumentCount();
+    }
+
+    /**
+     * 构建find游标（流式查询使用）
+     */
+    private FindIterable<Document> buildFind(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection,
+                                             Integer maxRows, Integer timeout, String comment) {
+        String queryStr = jsonCommand.getString("query");
+        String fieldsStr = jsonCommand.getString("fields");
+        Integer limit = jsonCommand.getInteger("limit");
+        Integer skip = jsonCommand.getInteger("skip");
+
+        Document filter = queryStr != null && !queryStr.trim().isEmpty() ? Document.parse(queryStr) : new Document();
+        FindIterable<Document> iterable = mongoTemplate.getCollection(collection).find(filter).batchSize(batchSize);
+        if (fieldsStr != null && !fieldsStr.trim().isEmpty()) {
+            iterable.projection(Document.parse(fieldsStr));
+        }
+        if (skip != null && skip > 0) {
+            iterable.skip(skip);
+        }
+        int fetchLimit = limit != null && limit > 0 ? limit : 0;
+        if (maxRows != null && maxRows > 0) {
+            fetchLimit = fetchLimit > 0 ? Math.min(fetchLimit, maxRows) : maxRows;
+        }
+        if (fetchLimit > 0) {
+            iterable.limit(fetchLimit);
+        }
+        if (timeout != null && timeout > 0) {
+            iterable.maxTime(timeout, TimeUnit.SECONDS);
+        }
+        if (comment != null) {
+            iterable.comment(comment);
+        }
+        return iterable;
+    }
+
+    /**
+     * 获取请求对应的MongoTemplate：指定了命名数据源时使用该数据源的连接池
+     */
+    private MongoTemplate resolveMongoTemplate(SqlRequest request) {
+        String dataSource = request.getDataSource();
+        if (dataSource != null && !dataSource.trim().isEmpty()) {
+            return dataSourceCatalog.getMongoTemplate(dataSource.trim());
+        }
+        if (mongoTemplate == null) {
+            throw new RuntimeException("MongoDB未配置，无法执行查询");
         }
+        return mongoTemplate;
     }
 
     /**
      * 执行find查询
+     * 逐个文档读取并统计结果大小，超过上限时立即停止，不等整个结果加载完
      */
-    private void executeFindQuery(JSONObject jsonCommand, String collection, SqlResult result) {
+    private void executeFindQuery(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result, Pagination pagination,
+                                  ResultFormat format, Integer timeout, QueryContext context) {
         String queryStr = jsonCommand.getString("query");
         String fieldsStr = jsonCommand.getString("fields");
         Integer limit = jsonCommand.getInteger("limit");
@@ -105,22 +449,78 @@ public class MongoDBExecutor implements QueryExecutor {
             query = new Query();
         }
 
-        if (limit != null && limit > 0) {
-            query.limit(limit);
+        // 命令中的skip/limit确定查询窗口，分页参数在窗口内继续偏移
+        long baseSkip = skip != null && skip > 0 ? skip : 0;
+        Integer fetchLimit = limit != null && limit > 0 ? limit : null;
+        if (pagination.isLimited()) {
+            long pageFetch = pagination.getFetchLimit();
+            if (fetchLimit != null) {
+                long remaining = fetchLimit - pagination.getOffset();
+                pageFetch = Math.max(0, Math.min(pageFetch, remaining));
+            }
+            if (pageFetch == 0) {
+                result.setData(new ArrayList<>());
+                result.setColumns(new ArrayList<>());
+                result.setAffectedRows(0);
+                pagination.fillResult(result, 0);
+                return;
+            }
+            baseSkip += pagination.getOffset();
+            fetchLimit = (int) pageFetch;
         }
-        if (skip != null && skip > 0) {
-            query.skip(skip);
+
+        // 不分页时把结果行数上限下推（多取一行用于判断超限）
+        if (!pagination.isLimited() && context.getFetchLimit() > 0
+                && (fetchLimit == null || fetchLimit > context.getFetchLimit())) {
+            fetchLimit = context.getFetchLimit();
+        }
+        if (fetchLimit != null) {
+            query.limit(fetchLimit);
+        }
+        if (baseSkip > 0) {
+            query.skip(baseSkip);
+        }
+        if (timeout != null && timeout > 0) {
+            query.maxTime(timeout, TimeUnit.SECONDS);
+        }
+        if (context.getQueryId() != null) {
+            query.comment(context.getQueryId());
         }
 
         // 执行查询
-        List<Document> documents = mongoTemplate.find(query, Document.class, collection);
-        
-        // 转换结果（使用LinkedHashMap保持字段顺序）
-        List<Map<String, Object>> data = new ArrayList<>();
+        List<Document> documents = new ArrayList<>();
+        onCancelKill(mongoTemplate, context);
+        try (CloseableIterator<Document> cursor = mongoTemplate.stream(query, Document.class, collection)) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                // 分页时多取的一行不计入结果大小
+                if (!pagination.isLimited() || documents.size() < pagination.getLimit()) {
+                    context.addRow(doc);
+                }
+                documents.add(doc);
+            }
+        }
+        // 分页时多取的一行只用于判断hasMore
+        int rowCount = pagination.isLimited() ? Math.min(documents.size(), pagination.getLimit()) : documents.size();
+
+        fillDocuments(documents, rowCount, result, format);
+        pagination.fillResult(result, documents.size());
+    }
+
+    /**
+     * 把查询到的前rowCount个文档按结果格式写入结果
+     * - MAP格式：每个文档复制为LinkedHashMap（保持字段顺序），列为所有文档字段的并集
+     * - 数组/列式格式：直接读取Document，不再为每行复制一个Map
+     */
+    static void fillDocuments(List<Document> documents, int rowCount, SqlResult result, ResultFormat format) {
+        if (format != ResultFormat.MAP) {
+            fillCompactResult(documents, rowCount, result, format);
+            return;
+        }
+
+        List<Map<String, Object>> data = new ArrayList<>(rowCount);
         Set<String> allColumns = new LinkedHashSet<>();
-        
-        for (Document doc : documents) {
-            // Document本身就保持插入顺序，转换为LinkedHashMap保持顺序
+        for (Document doc : documents.subList(0, rowCount)) {
             Map<String, Object> row = new LinkedHashMap<>(doc);
             allColumns.addAll(row.keySet());
             data.add(row);
@@ -131,20 +531,41 @@ public class MongoDBExecutor implements QueryExecutor {
         result.setAffectedRows(data.size());
     }
 
+    /**
+     * 按数组/列式格式填充结果：先汇总所有文档的字段作为列，再按列取值
+     */
+    private static void fillCompactResult(List<Document> documents, int rowCount, SqlResult result, ResultFormat format) {
+        Set<String> allColumns = new LinkedHashSet<>();
+        for (int i = 0; i < rowCount; i++) {
+            allColumns.addAll(documents.get(i).keySet());
+        }
+
+        List<String> columns = new ArrayList<>(allColumns);
+        ResultCollector collector = new ResultCollector(format, columns, null);
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < rowCount; i++) {
+            Document doc = documents.get(i);
+            for (int c = 0; c < values.length; c++) {
+                values[c] = doc.get(columns.get(c));
+            }
+            collector.addRow(values);
+        }
+        collector.fill(result);
+    }
+
     /**
      * 执行count查询
      */
-    private void executeCountQuery(JSONObject jsonCommand, String collection, SqlResult result) {
+    private void executeCountQuery(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result,
+                                   Integer timeout) {
         String queryStr = jsonCommand.getString("query");
-        
-        Query query;
-        if (queryStr != null && !queryStr.trim().isEmpty()) {
-            query = new BasicQuery(queryStr);
-        } else {
-            query = new Query();
-        }
 
-        long count = mongoTemplate.count(query, collection);
+        Document filter = queryStr != null && !queryStr.trim().isEmpty() ? Document.parse(queryStr) : new Document();
+        CountOptions options = new CountOptions();
+        if (timeout != null && timeout > 0) {
+            options.maxTime(timeout, TimeUnit.SECONDS);
+        }
+        long count = mongoTemplate.getCollection(collection).countDocuments(filter, options);
         
         Map<String, Object> countResult = new LinkedHashMap<>();
         countResult.put("count", count);
@@ -155,29 +576,94 @@ public class MongoDBExecutor implements QueryExecutor {
     }
 
     /**
-     * 执行aggregate查询
+     * 执行aggregate查询：管道在服务端执行，结果从游标逐批读取，不先收集成文档列表
      */
-    private void executeAggregateQuery(JSONObject jsonCommand, String collection, SqlResult result) {
-        String pipelineStr = jsonCommand.getString("pipeline");
-        if (pipelineStr == null || pipelineStr.trim().isEmpty()) {
-            throw new IllegalArgumentException("aggregate操作需要pipeline参数");
-        }
+    private void executeAggregateQuery(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result,
+                                       Pagination pagination, Integer timeout, QueryContext context) {
+        AggregateIterable<Document> iterable = buildAggregate(mongoTemplate, jsonCommand, collection, pagination, timeout,
+                context.getQueryId());
+        onCancelKill(mongoTemplate, context);
 
-        // 这里简化处理，实际应该解析pipeline
+        // Document本身就是保持字段顺序的Map，直接作为行数据
         List<Map<String, Object>> data = new ArrayList<>();
-        Map<String, Object> placeholder = new LinkedHashMap<>();
-        placeholder.put("message", "aggregate功能需要根据具体pipeline实现");
-        data.add(placeholder);
+        Set<String> allColumns = new LinkedHashSet<>();
+        int fetched = 0;
+        try (MongoCursor<Document> cursor = iterable.iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                fetched++;
+                // 分页时多取的一行只用于判断hasMore
+                if (pagination.isLimited() && data.size() >= pagination.getLimit()) {
+                    continue;
+                }
+                context.addRow(doc);
+                allColumns.addAll(doc.keySet());
+                data.add(doc);
+            }
+        }
 
         result.setData(data);
-        result.setColumns(Collections.singletonList("message"));
-        result.setAffectedRows(1);
+        result.setColumns(new ArrayList<>(allColumns));
+        result.setAffectedRows(data.size());
+        pagination.fillResult(result, fetched);
+    }
+
+    /**
+     * 构建聚合游标
+     * 分页和行数限制追加为管道末尾的$skip/$limit，在服务端执行；以$out/$merge结尾的管道不追加
+     */
+    private AggregateIterable<Document> buildAggregate(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection,
+                                                       Pagination pagination, Integer timeout, String comment) {
+        List<Document> pipeline = parsePipeline(jsonCommand);
+
+        boolean writesOutput = false;
+        if (!pipeline.isEmpty()) {
+            Document last = pipeline.get(pipeline.size() - 1);
+            writesOutput = last.containsKey("$out") || last.containsKey("$merge");
+        }
+        if (pagination.isLimited() && !writesOutput) {
+            if (pagination.getOffset() > 0) {
+                pipeline.add(new Document("$skip", pagination.getOffset()));
+            }
+            pipeline.add(new Document("$limit", pagination.getFetchLimit()));
+        }
+
+        AggregateIterable<Document> iterable = mongoTemplate.getCollection(collection)
+                .aggregate(pipeline)
+                .allowDiskUse(allowDiskUse)
+                .batchSize(batchSize);
+        if (timeout != null && timeout > 0) {
+            iterable.maxTime(timeout, TimeUnit.SECONDS);
+        }
+        if (comment != null) {
+            iterable.comment(comment);
+        }
+        return iterable;
+    }
+
+    /**
+     * 解析pipeline参数：可以是JSON数组，也可以是数组格式的字符串（支持MongoDB扩展JSON，如{"$date": ...}）
+     */
+    private List<Document> parsePipeline(JSONObject jsonCommand) {
+        Object pipelineValue = jsonCommand.get("pipeline");
+        String pipelineStr = pipelineValue instanceof String ? (String) pipelineValue
+                : pipelineValue != null ? JSON.toJSONString(pipelineValue) : null;
+        if (pipelineStr == null || pipelineStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("aggregate操作需要pipeline参数");
+        }
+        if (!pipelineStr.trim().startsWith("[")) {
+            throw new IllegalArgumentException("pipeline必须是数组，如 [{\"$match\": {...}}, {\"$group\": {...}}]");
+        }
+
+        // Document.parse只能解析对象，包一层后取出数组
+        List<Document> stages = Document.parse("{\"pipeline\": " + pipelineStr + "}").getList("pipeline", Document.class);
+        return new ArrayList<>(stages);
     }
 
     /**
      * 执行insert操作
      */
-    private void executeInsert(JSONObject jsonCommand, String collection, SqlResult result) {
+    private void executeInsert(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result) {
         String documentStr = jsonCommand.getString("document");
         if (documentStr == null || documentStr.trim().isEmpty()) {
             throw new IllegalArgumentException("insert操作需要document参数");
@@ -194,7 +680,7 @@ public class MongoDBExecutor implements QueryExecutor {
     /**
      * 执行update操作
      */
-    private void executeUpdate(JSONObject jsonCommand, String collection, SqlResult result) {
+    private void executeUpdate(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result) {
         String queryStr = jsonCommand.getString("query");
         String updateStr = jsonCommand.getString("update");
 
@@ -218,7 +704,7 @@ public class MongoDBExecutor implements QueryExecutor {
     /**
      * 执行delete操作
      */
-    private void executeDelete(JSONObject jsonCommand, String collection, SqlResult result) {
+    private void executeDelete(MongoTemplate mongoTemplate, JSONObject jsonCommand, String collection, SqlResult result) {
         String queryStr = jsonCommand.getString("query");
         if (queryStr == null || queryStr.trim().isEmpty()) {
             throw new IllegalArgumentException("delete操作需要query参数");
@@ -233,8 +719,8 @@ public class MongoDBExecutor implements QueryExecutor {
     }
 
     @Override
-    public boolean support(String dataSourceType) {
-        return DataSourceType.MONGODB.getCode().equalsIgnoreCase(dataSourceType);
+    public DataSourceType getDataSourceType() {
+        return DataSourceType.MONGODB;
     }
 }
 
@@ -1,30 +1,79 @@
 package com.example.sqlanalysis.executor;
 
+import com.example.sqlanalysis.common.Pagination;
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.datasource.ReadWriteRouter;
+import com.example.sqlanalysis.entity.QueryPlan;
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
 import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.example.sqlanalysis.metrics.StatementFingerprint;
+import com.example.sqlanalysis.stream.ResultStreamWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * MySQL查询执行器
  */
 @Slf4j
 @Component
-public class MySQLExecutor implements QueryExecutor {
+public class MySQLExecutor implements StreamingQueryExecutor, CostEstimatingExecutor {
+
+    /**
+     * 语句末尾自带的LIMIT子句：LIMIT n / LIMIT m, n / LIMIT n OFFSET m（数字也可以是?占位符）
+     */
+    private static final Pattern TRAILING_LIMIT = Pattern.compile(
+            "\\blimit\\s+(\\d+|\\?)(\\s*,\\s*(\\d+|\\?)|\\s+offset\\s+(\\d+|\\?))?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 语句末尾的加锁子句（FOR UPDATE [OF ...] [NOWAIT|SKIP LOCKED] / LOCK IN SHARE MODE），分页时LIMIT插在它前面
+     */
+    private static final Pattern TRAILING_LOCK = Pattern.compile(
+            "\\s+(for\\s+(update|share)(\\s+of\\s+.+?)?(\\s+(nowait|skip\\s+locked))?|lock\\s+in\\s+share\\s+mode)\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * 加锁读：SELECT ... FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE（在归一化后的语句上匹配，注释和字符串里的同名文字不算）
+     */
+    private static final Pattern LOCKING_READ = Pattern.compile(
+            "\\b(for\\s+update|for\\s+share|lock\\s+in\\s+share\\s+mode)\\b");
 
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private ReadWriteRouter readWriteRouter;
+
+    /**
+     * 流式查询的fetchSize，Integer.MIN_VALUE表示MySQL驱动逐行读取
+     * 如果连接串开启了useCursorFetch=true，可配置为正数按批读取
+     */
+    @Value("${sql.stream.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int streamFetchSize;
+
+    /**
+     * 执行计划分析时，估算扫描行数达到该值给出警告
+     */
+    @Value("${sql.explain.large-scan-rows:100000}")
+    private long largeScanRows;
 
     @Override
     public SqlResult execute(SqlRequest request) {
@@ -39,19 +88,33 @@ public class MySQLExecutor implements QueryExecutor {
         long startTime = System.currentTimeMillis();
         SqlResult result = new SqlResult();
         result.setSql(sql);
+        QueryContext context = QueryContext.of(request);
 
         try {
             // 判断SQL类型
             String sqlType = getSqlType(sql);
             result.setSqlType(sqlType);
 
-            if ("SELECT".equalsIgnoreCase(sqlType)) {
-                // 执行查询
-                executeQuery(sql, result, request.getTimeout());
-            } else {
-                // 执行更新（INSERT、UPDATE、DELETE等）
-                executeUpdate(sql, result, request.getTimeout());
+            // SELECT走从库（如果配置了），其余语句和加锁读走主库（从库上加的锁对主库的写入不起作用）
+            boolean query = "SELECT".equalsIgnoreCase(sqlType);
+            ReadWriteRouter.Route route = readWriteRouter.route(request, !query || isLockingRead(sql));
+            try {
+                if (query) {
+                    // 执行查询（分页和行数限制下推到MySQL）
+                    executeQuery(route.getJdbcTemplate(), sql, request.getParams(), result, request.getTimeout(),
+                            Pagination.of(request), ResultFormat.fromCode(request.getResultFormat()), context);
+                } else {
+                    // 执行更新（INSERT、UPDATE、DELETE等）
+                    executeUpdate(route.getJdbcTemplate(), sql, request.getParams(), result, request.getTimeout(), context);
+                }
+            } catch (CannotGetJdbcConnectionException e) {
+                route.markFailed();
+                throw e;
+            } finally {
+                context.onCancel(null);
+                route.release();
             }
+            log.debug("SQL路由到数据源: {}", route.getTarget());
 
             long endTime = System.currentTimeMillis();
             result.setExecutionTime(endTime - startTime);
@@ -60,19 +123,255 @@ public class MySQLExecutor implements QueryExecutor {
             return result;
         } catch (Exception e) {
             log.error("SQL执行失败: {}", e.getMessage(), e);
+            // 被取消时驱动只报告语句中断，改为返回取消原因
+            context.checkCancelled();
             throw new RuntimeException("SQL执行失败: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public void executeStream(SqlRequest request, ResultStreamWriter writer) {
+        String sql = request.getSql();
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("SQL语句不能为空");
+        }
+
+        sql = sql.trim();
+        String sqlType = getSqlType(sql);
+        if (!"SELECT".equals(sqlType)) {
+            throw new IllegalArgumentException("流式查询只支持SELECT语句");
+        }
+
+        log.info("开始流式执行SQL: {}", sql);
+        long startTime = System.currentTimeMillis();
+
+        SqlResult meta = new SqlResult();
+        meta.setSql(sql);
+        meta.setSqlType(sqlType);
+
+        Integer timeout = request.getTimeout();
+        Integer maxRows = request.getMaxRows();
+        QueryContext context = QueryContext.of(request);
+        ReadWriteRouter.Route route = readWriteRouter.route(request, false);
+        int rowCount;
+        try {
+            rowCount = streamQuery(route.getJdbcTemplate(), sql, request.getParams(), meta, timeout, maxRows, writer, context);
+        } catch (CannotGetJdbcConnectionException e) {
+            route.markFailed();
+            throw e;
+        } catch (RuntimeException e) {
+            context.checkCancelled();
+            throw e;
+        } finally {
+            context.onCancel(null);
+            route.release();
+        }
+
+        SqlResult summary = new SqlResult();
+        summary.setAffectedRows(rowCount);
+        summary.setExecutionTime(System.currentTimeMillis() - startTime);
+        try {
+            writer.writeFooter(summary);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写出查询结果失败", e);
+        }
+        log.info("SQL流式执行成功，行数: {}，耗时: {}ms", rowCount, summary.getExecutionTime());
+    }
+
+    /**
+     * 获取语句的执行计划（EXPLAIN），语句本身不执行
+     * 只支持SELECT、INSERT、UPDATE、DELETE；按读语句路由，配置了从库时可能在从库上获取
+     */
+    public List<Map<String, Object>> explain(SqlRequest request) {
+        String explainSql = "EXPLAIN " + explainableBody(request.getSql());
+        Integer timeout = request.getTimeout();
+        ReadWriteRouter.Route route = readWriteRouter.route(request, false);
+        try {
+            return route.getJdbcTemplate().query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(explainSql);
+                bindParams(ps, request.getParams(), null);
+                if (timeout != null && timeout > 0) {
+                    ps.setQueryTimeout(timeout);
+                }
+                return ps;
+            }, new ColumnMapRowMapper());
+        } catch (CannotGetJdbcConnectionException e) {
+            route.markFailed();
+            throw e;
+        } finally {
+            route.release();
+        }
+    }
+
+    /**
+     * 分析语句的执行计划：EXPLAIN FORMAT=JSON，标记全表扫描、文件排序、临时表、缺少索引并估算扫描行数
+     * analyze为true时再执行EXPLAIN ANALYZE（MySQL 8.0.18+），会真正执行语句，只支持SELECT
+     */
+    public SqlResult analyzePlan(SqlRequest request, boolean analyze) {
+        String body = explainableBody(request.getSql());
+        if (analyze && !"SELECT".equals(getSqlType(body))) {
+            throw new IllegalArgumentException("EXPLAIN ANALYZE会真正执行语句，只支持SELECT");
+        }
+        log.info("开始分析执行计划: {}", body);
+
+        long startTime = System.currentTimeMillis();
+        QueryContext context = QueryContext.of(request);
+        ReadWriteRouter.Route route = readWriteRouter.route(request, false);
+        try {
+            JdbcTemplate jdbcTemplate = route.getJdbcTemplate();
+            String json = queryForString(jdbcTemplate, "EXPLAIN FORMAT=JSON " + body, request, context);
+            SqlResult result = MySQLPlanAnalyzer.analyze(json, largeScanRows);
+            if (analyze) {
+                String version = jdbcTemplate.execute(
+                        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductVersion());
+                if (!MySQLPlanAnalyzer.supportsExplainAnalyze(version)) {
+                    throw new IllegalArgumentException("EXPLAIN ANALYZE需要MySQL 8.0.18及以上版本，当前版本: " + version);
+                }
+                MySQLPlanAnalyzer.applyAnalyze(result.getPlan(),
+                        queryForString(jdbcTemplate, "EXPLAIN ANALYZE " + body, request, context));
+            }
+            result.setSql(body);
+            result.setExecutionTime(System.currentTimeMillis() - startTime);
+            log.info("执行计划分析完成，估算扫描行数: {}，问题: {}", result.getPlan().getEstimatedRows(),
+                    result.getPlan().getWarnings());
+            return result;
+        } catch (CannotGetJdbcConnectionException e) {
+            route.markFailed();
+            throw e;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            context.checkCancelled();
+            throw new RuntimeException("执行计划分析失败: " + e.getMessage(), e);
+        } finally {
+            context.onCancel(null);
+            route.release();
+        }
+    }
+
+    /**
+     * 通过EXPLAIN估算SELECT、UPDATE、DELETE扫描的行数，其它语句不估算
+     */
+    @Override
+    public CostEstimate estimateCost(SqlRequest request) {
+        String sql = request.getSql();
+        if (sql == null || sql.trim().isEmpty()) {
+            return null;
+        }
+        String sqlType = getSqlType(sql.trim());
+        if (!"SELECT".equals(sqlType) && !"UPDATE".equals(sqlType) && !"DELETE".equals(sqlType)) {
+            return null;
+        }
+
+        QueryPlan plan = analyzePlan(request, false).getPlan();
+        String body = explainableBody(sql);
+        return new CostEstimate(plan.getEstimatedRows(), plan.getFilesort() || plan.getTemporaryTable(),
+                TRAILING_LIMIT.matcher(body).find(), "SELECT".equals(sqlType));
+    }
+
+    /**
+     * 执行只返回一个值的语句（EXPLAIN FORMAT=JSON、EXPLAIN ANALYZE）
+     */
+    private String queryForString(JdbcTemplate jdbcTemplate, String sql, SqlRequest request, QueryContext context) {
+        Integer timeout = request.getTimeout();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            bindParams(ps, request.getParams(), null);
+            if (timeout != null && timeout > 0) {
+                ps.setQueryTimeout(timeout);
+            }
+            context.onCancel(() -> cancelQuietly(ps));
+            return ps;
+        }, rs -> rs.next() ? rs.getString(1) : null);
+    }
+
+    /**
+     * 校验语句可以EXPLAIN（SELECT、INSERT、UPDATE、DELETE），返回去掉末尾分号的语句
+     */
+    private String explainableBody(String sql) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("SQL语句不能为空");
+        }
+
+        String body = stripTrailing(sql.trim());
+        String sqlType = getSqlType(body);
+        if (!"SELECT".equals(sqlType) && !"INSERT".equals(sqlType)
+                && !"UPDATE".equals(sqlType) && !"DELETE".equals(sqlType)) {
+            throw new IllegalArgumentException("EXPLAIN只支持SELECT、INSERT、UPDATE、DELETE语句");
+        }
+        return body;
+    }
+
+    /**
+     * 以只进结果集逐行读取并写出，返回写出的行数
+     */
+    private int streamQuery(JdbcTemplate jdbcTemplate, String sql, List<Object> params, SqlResult meta, Integer timeout,
+                            Integer maxRows, ResultStreamWriter writer, QueryContext context) {
+        return jdbcTemplate.execute(connection -> {
+            // 只进、只读的结果集配合fetchSize，驱动不会一次性把结果加载到内存
+            PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            bindParams(ps, params, null);
+            if (timeout != null && timeout > 0) {
+                ps.setQueryTimeout(timeout);
+            }
+            if (maxRows != null && maxRows > 0) {
+                ps.setMaxRows(maxRows);
+            }
+            context.onCancel(() -> cancelQuietly(ps));
+            return ps;
+        }, (PreparedStatement ps) -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+
+                List<String> columns = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    columns.add(metaData.getColumnLabel(i));
+                }
+                meta.setColumns(columns);
+
+                int count = 0;
+                // 复用同一个数组，每行只做写出不做缓存
+                Object[] values = new Object[columnCount];
+                try {
+                    writer.writeHeader(meta);
+                    while (rs.next()) {
+                        for (int i = 1; i <= columnCount; i++) {
+                            values[i - 1] = rs.getObject(i);
+                        }
+                        writer.writeRow(values);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // 客户端断开连接，取消查询，避免关闭结果集时继续读完剩余数据
+                    ps.cancel();
+                    throw new UncheckedIOException("写出查询结果失败", e);
+                }
+                return count;
+            }
+        });
+    }
+
     /**
      * 执行查询SQL
      */
-    private void executeQuery(String sql, SqlResult result, Integer timeout) {
+    private void executeQuery(JdbcTemplate jdbcTemplate, String sql, List<Object> params, SqlResult result, Integer timeout,
+                              Pagination pagination, ResultFormat format, QueryContext context) {
+        PagedQuery paged = pagination.isLimited() ? applyPagination(sql, pagination) : null;
+        String querySql = paged != null ? paged.sql : sql;
         jdbcTemplate.query(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql);
+            PreparedStatement ps = connection.prepareStatement(querySql);
+            bindParams(ps, params, paged);
             if (timeout != null && timeout > 0) {
                 ps.setQueryTimeout(timeout);
             }
+            // 不分页时把结果行数上限下推给驱动（多取一行用于判断超限），超出的行不会传回
+            if (!pagination.isLimited() && context.getFetchLimit() > 0) {
+                ps.setMaxRows(context.getFetchLimit());
+            }
+            context.onCancel(() -> cancelQuietly(ps));
             return ps;
         }, rs -> {
             try {
@@ -81,39 +380,122 @@ public class MySQLExecutor implements QueryExecutor {
                 int columnCount = metaData.getColumnCount();
                 
                 List<String> columns = new ArrayList<>();
+                int[] sqlTypes = new int[columnCount];
                 for (int i = 1; i <= columnCount; i++) {
                     columns.add(metaData.getColumnLabel(i));
+                    sqlTypes[i - 1] = metaData.getColumnType(i);
                 }
-                result.setColumns(columns);
 
-                // 获取数据（使用LinkedHashMap保持列顺序）
-                List<Map<String, Object>> data = new ArrayList<>();
+                // 按请求的格式收集数据（Map格式使用LinkedHashMap保持列顺序）
+                // 分页时SQL会多取一行，只用于判断是否还有下一页
+                ResultCollector collector = new ResultCollector(format, columns, sqlTypes);
+                Object[] values = new Object[columnCount];
+                int fetched = 0;
                 while (rs.next()) {
-                    Map<String, Object> row = new LinkedHashMap<>();
+                    fetched++;
+                    if (pagination.isLimited() && collector.size() >= pagination.getLimit()) {
+                        continue;
+                    }
                     for (int i = 1; i <= columnCount; i++) {
-                        String columnName = metaData.getColumnLabel(i);
-                        Object value = rs.getObject(i);
-                        row.put(columnName, value);
+                        values[i - 1] = rs.getObject(i);
                     }
-                    data.add(row);
+                    context.addRow(values);
+                    collector.addRow(values);
                 }
-                result.setData(data);
-                result.setAffectedRows(data.size());
+                collector.fill(result);
+                pagination.fillResult(result, fetched);
             } catch (SQLException e) {
                 throw new RuntimeException("处理查询结果失败", e);
             }
         });
     }
 
+    /**
+     * 把分页改写到SQL中，偏移量和行数作为参数绑定，不同页复用同一个预编译语句
+     * - 先去掉末尾的注释和分号，LIMIT插在加锁子句（FOR UPDATE等）之前
+     * - 语句本身带LIMIT时替换为两者的交集：在原LIMIT的窗口内分页；原LIMIT为?占位符时无法计算，不支持分页
+     */
+    static PagedQuery applyPagination(String sql, Pagination pagination) {
+        String body = stripTrailing(sql);
+        String lock = "";
+        Matcher lockMatcher = TRAILING_LOCK.matcher(body);
+        if (lockMatcher.find()) {
+            lock = body.substring(lockMatcher.start());
+            body = body.substring(0, lockMatcher.start());
+        }
+
+        long offset = pagination.getOffset();
+        long rows = pagination.getFetchLimit();
+        Matcher limit = TRAILING_LIMIT.matcher(body);
+        if (limit.find()) {
+            if ("?".equals(limit.group(1)) || "?".equals(limit.group(3)) || "?".equals(limit.group(4))) {
+                throw new IllegalArgumentException("语句的LIMIT使用了参数占位符，不能再分页或限制行数");
+            }
+            long limitOffset = 0;
+            long limitRows = Long.parseLong(limit.group(1));
+            if (limit.group(3) != null) {
+                limitOffset = limitRows;
+                limitRows = Long.parseLong(limit.group(3));
+            } else if (limit.group(4) != null) {
+                limitOffset = Long.parseLong(limit.group(4));
+            }
+            rows = Math.max(0, Math.min(rows, limitRows - offset));
+            offset += limitOffset;
+            body = body.substring(0, limit.start()).trim();
+        }
+        return new PagedQuery(body + " LIMIT ?, ?" + lock, offset, rows);
+    }
+
+    /**
+     * 去掉末尾的注释（-- 、#、块注释）和分号，引号中的内容不当作注释
+     * MySQL的可执行注释（/*!开头）和优化器提示（/*+开头）属于语句本身，保留
+     */
+    static String stripTrailing(String sql) {
+        int length = sql.length();
+        int end = 0;
+        char quote = 0;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                    end = i + 1;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '#' || c == '-' && sql.startsWith("--", i)
+                    && (i + 2 == length || Character.isWhitespace(sql.charAt(i + 2)))) {
+                int newline = sql.indexOf('\n', i);
+                i = newline < 0 ? length : newline;
+            } else if (sql.startsWith("/*", i)) {
+                int close = sql.indexOf("*/", i + 2);
+                boolean code = sql.startsWith("/*!", i) || sql.startsWith("/*+", i);
+                i = close < 0 ? length : close + 1;
+                if (code) {
+                    end = Math.min(i + 1, length);
+                }
+            } else if (c != ';' && !Character.isWhitespace(c)) {
+                end = i + 1;
+            }
+        }
+        // 引号未闭合时保留原文，由MySQL报告语法错误
+        return quote != 0 ? sql.trim() : sql.substring(0, end);
+    }
+
     /**
      * 执行更新SQL（INSERT、UPDATE、DELETE等）
      */
-    private void executeUpdate(String sql, SqlResult result, Integer timeout) {
+    private void executeUpdate(JdbcTemplate jdbcTemplate, String sql, List<Object> params, SqlResult result, Integer timeout,
+                               QueryContext context) {
         int affectedRows = jdbcTemplate.execute(connection -> {
             PreparedStatement ps = connection.prepareStatement(sql);
+            bindParams(ps, params, null);
             if (timeout != null && timeout > 0) {
                 ps.setQueryTimeout(timeout);
             }
+            context.onCancel(() -> cancelQuietly(ps));
             return ps;
         }, (PreparedStatement ps) -> {
             return ps.executeUpdate();
@@ -124,6 +506,43 @@ public class MySQLExecutor implements QueryExecutor {
         result.setColumns(new ArrayList<>());
     }
 
+    /**
+     * 取消执行中的语句（在取消方的线程调用），MySQL驱动会另开连接发送KILL QUERY
+     */
+    private void cancelQuietly(PreparedStatement ps) {
+        try {
+            ps.cancel();
+        } catch (SQLException e) {
+            log.warn("取消SQL执行失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按顺序绑定请求参数，分页时在最后绑定LIMIT的偏移量和行数
+     */
+    private void bindParams(PreparedStatement ps, List<Object> params, PagedQuery paged) throws SQLException {
+        int index = 1;
+        if (params != null) {
+            for (Object param : params) {
+                if (param instanceof Map || param instanceof Collection) {
+                    throw new IllegalArgumentException("SQL参数只支持标量值，第" + index + "个参数为: " + param);
+                }
+                ps.setObject(index++, param);
+            }
+        }
+        if (paged != null) {
+            ps.setLong(index++, paged.offset);
+            ps.setLong(index, paged.rows);
+        }
+    }
+
+    /**
+     * 是否为加锁读（SELECT ... FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE）
+     */
+    public static boolean isLockingRead(String sql) {
+        return LOCKING_READ.matcher(StatementFingerprint.of(DataSourceType.MYSQL, sql).getText()).find();
+    }
+
     /**
      * 获取SQL类型
      */
@@ -152,8 +571,25 @@ public class MySQLExecutor implements QueryExecutor {
     }
 
     @Override
-    public boolean support(String dataSourceType) {
-        return DataSourceType.MYSQL.getCode().equalsIgnoreCase(dataSourceType);
+    public DataSourceType getDataSourceType() {
+        return DataSourceType.MYSQL;
     }
-}
 
+    /**
+     * 改写后的分页语句，末尾两个?依次绑定offset和rows
+     */
+    static final class PagedQuery {
+
+        final String sql;
+
+        final long offset;
+
+        final long rows;
+
+        PagedQuery(String sql, long offset, long rows) {
+            this.sql = sql;
+            this.offset = offset;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.sqlanalysis.executor;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+import com.example.sqlanalysis.entity.QueryPlan;
+import com.example.sqlanalysis.entity.SqlResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 解析MySQL执行计划（EXPLAIN FORMAT=JSON），标记全表扫描、文件排序、临时表、缺少索引，并估算扫描行数
+ * - 每张表一行：访问方式、可用索引、实际使用的索引、每次扫描行数、扫描次数
+ * - 扫描次数：nested_loop中前一张表的 rows_produced_per_join（驱动表为1）
+ * - 估算扫描行数：各表每次扫描行数 × 扫描次数之和
+ */
+public final class MySQLPlanAnalyzer {
+
+    /**
+     * 每张表一行的列
+     */
+    static final List<String> COLUMNS = Arrays.asList("table", "accessType", "possibleKeys", "key",
+            "rowsExaminedPerScan", "rowsProducedPerJoin", "filtered", "scans", "issue");
+
+    /**
+     * EXPLAIN ANALYZE 输出中根节点的实际执行信息，如 (actual time=0.05..12.3 rows=100 loops=1)
+     */
+    private static final Pattern ACTUAL = Pattern.compile(
+            "actual time=([\\d.]+)\\.\\.([\\d.]+) rows=([\\d.]+) loops=(\\d+)");
+
+    private static final Pattern VERSION = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+
+    private MySQLPlanAnalyzer() {
+    }
+
+    /**
+     * 分析执行计划
+     * @param json EXPLAIN FORMAT=JSON 的结果
+     * @param largeScanRows 估算扫描行数达到该值时给出警告，0表示不检查
+     * @return 每张表一行的结果，分析结论在plan中
+     */
+    public static SqlResult analyze(String json, long largeScanRows) {
+        JSONObject root = JSON.parseObject(json, Feature.OrderedField);
+        QueryPlan plan = new QueryPlan();
+        plan.setRawPlan(root);
+        plan.setFullScan(false);
+        plan.setFullIndexScan(false);
+        plan.setFilesort(false);
+        plan.setTemporaryTable(false);
+        plan.setMissingIndex(false);
+        plan.setEstimatedRows(0L);
+
+        JSONObject queryBlock = root.getJSONObject("query_block");
+        if (queryBlock != null && queryBlock.getJSONObject("cost_info") != null) {
+            plan.setQueryCost(toDouble(queryBlock.getJSONObject("cost_info").get("query_cost")));
+        }
+
+        List<Map<String, Object>> tables = new ArrayList<>();
+        walk(root, 1, plan, tables);
+
+        if (plan.getFilesort()) {
+            plan.getWarnings().add("使用文件排序（Using filesort），可为ORDER BY/GROUP BY的列建立索引");
+        }
+        if (plan.getTemporaryTable()) {
+            plan.getWarnings().add("使用临时表（Using temporary），常见于GROUP BY、DISTINCT、UNION或排序列与分组列不一致");
+        }
+        if (largeScanRows > 0 && plan.getEstimatedRows() >= largeScanRows) {
+            plan.getWarnings().add("估算扫描" + plan.getEstimatedRows() + "行，超过" + largeScanRows + "行");
+        }
+
+        SqlResult result = new SqlResult();
+        result.setSqlType("EXPLAIN");
+        result.setColumns(new ArrayList<>(COLUMNS));
+        result.setData(tables);
+        result.setAffectedRows(tables.size());
+        result.setPlan(plan);
+        return result;
+    }
+
+    /**
+     * 把EXPLAIN ANALYZE的输出加入分析结果，实际耗时和行数取根节点
+     */
+    public static void applyAnalyze(QueryPlan plan, String output) {
+        plan.setAnalyzeOutput(output);
+        if (output == null) {
+            return;
+        }
+        Matcher matcher = ACTUAL.matcher(output);
+        if (matcher.find()) {
+            plan.setActualTime(Double.parseDouble(matcher.group(2)));
+            plan.setActualRows(Math.round(Double.parseDouble(matcher.group(3))));
+        }
+    }
+
+    /**
+     * 服务端版本是否支持EXPLAIN ANALYZE（MySQL 8.0.18及以上，MariaDB语法不同不支持）
+     */
+    public static boolean supportsExplainAnalyze(String version) {
+        if (version == null || version.toLowerCase().contains("mariadb")) {
+            return false;
+        }
+        Matcher matcher = VERSION.matcher(version.trim());
+        if (!matcher.find()) {
+            return false;
+        }
+        int major = Integer.parseInt(matcher.group(1));
+        int minor = Integer.parseInt(matcher.group(2));
+        int patch = Integer.parseInt(matcher.group(3));
+        if (major != 8) {
+            return major > 8;
+        }
+        return minor > 0 || patch >= 18;
+    }
+
+    /**
+     * 遍历计划树，表节点可能出现在 query_block、nested_loop、ordering_operation、子查询等任意层级
+     * @param scans 当前节点的扫描次数
+     */
+    private static void walk(Object node, long scans, QueryPlan plan, List<Map<String, Object>> tables) {
+        if (node instanceof JSONArray) {
+            for (Object element : (JSONArray) node) {
+                walk(element, scans, plan, tables);
+            }
+            return;
+        }
+        if (!(node instanceof JSONObject)) {
+            return;
+        }
+
+        JSONObject object = (JSONObject) node;
+        if (Boolean.TRUE.equals(object.get("using_filesort"))) {
+            plan.setFilesort(true);
+        }
+        if (Boolean.TRUE.equals(object.get("using_temporary_table"))) {
+            plan.setTemporaryTable(true);
+        }
+        if (object.containsKey("table_name") && object.containsKey("access_type")) {
+            addTable(object, scans, plan, tables);
+        }
+
+        for (Map.Entry<String, Object> entry : object.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if ("nested_loop".equals(key) && value instanceof JSONArray) {
+                // 被驱动表的扫描次数为前面各表连接后产生的行数
+                long loopScans = scans;
+                for (Object element : (JSONArray) value) {
+                    walk(element, loopScans, plan, tables);
+                    JSONObject table = element instanceof JSONObject ? ((JSONObject) element).getJSONObject("table") : null;
+                    Long produced = table != null ? toLong(table.get("rows_produced_per_join")) : null;
+                    if (produced != null) {
+                        loopScans = multiply(scans, Math.max(produced, 1));
+                    }
+                }
+            } else if ("query_block".equals(key)) {
+                // 子查询（物化、UNION分支等）单独计算扫描次数
+                walk(value, 1, plan, tables);
+            } else {
+                walk(value, scans, plan, tables);
+            }
+        }
+    }
+
+    private static void addTable(JSONObject table, long scans, QueryPlan plan, List<Map<String, Object>> tables) {
+        String name = table.getString("table_name");
+        String accessType = table.getString("access_type");
+        JSONArray possibleKeys = table.getJSONArray("possible_keys");
+        Long examined = toLong(table.get("rows_examined_per_scan"));
+        // 派生表、UNION结果等内部临时表（<derived2>），扫描是物化的结果，不检查索引
+        boolean internal = name != null && name.startsWith("<");
+
+        String issue = null;
+        if ("ALL".equals(accessType) && !internal) {
+            plan.setFullScan(true);
+            if (possibleKeys == null || possibleKeys.isEmpty()) {
+                plan.setMissingIndex(true);
+                issue = "MISSING_INDEX";
+                plan.getWarnings().add("表" + name + "全表扫描且没有可用索引（每次扫描约" + examined + "行）");
+            } else {
+                issue = "FULL_SCAN";
+                plan.getWarnings().add("表" + name + "全表扫描，可用索引" + possibleKeys + "未被使用（每次扫描约" + examined + "行）");
+            }
+        } else if ("index".equals(accessType) && !internal) {
+            plan.setFullIndexScan(true);
+            issue = "FULL_INDEX_SCAN";
+            plan.getWarnings().add("表" + name + "全索引扫描（索引" + table.getString("key") + "，每次扫描约" + examined + "行）");
+        }
+
+        if (examined != null) {
+            long total = plan.getEstimatedRows() + multiply(examined, scans);
+            plan.setEstimatedRows(total < 0 ? Long.MAX_VALUE : total);
+        }
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("table", name);
+        row.put("accessType", accessType);
+        row.put("possibleKeys", possibleKeys);
+        row.put("key", table.getString("key"));
+        row.put("rowsExaminedPerScan", examined);
+        row.put("rowsProducedPerJoin", toLong(table.get("rows_produced_per_join")));
+        row.put("filtered", toDouble(table.get("filtered")));
+        row.put("scans", scans);
+        row.put("issue", issue);
+        tables.add(row);
+    }
+
+    private static long multiply(long a, long b) {
+        long product = a * b;
+        // 溢出时取上限，估算值只用于比较
+        if (a != 0 && (product / a != b || product < 0)) {
+            return Long.MAX_VALUE;
+        }
+        return product;
+    }
+
+    private static Long toLong(Object value) {
+        Double number = toDouble(value);
+        return number != null ? Math.round(number) : null;
+    }
+
+    /**
+     * 计划中的数值有的是数字，有的是字符串（如 "filtered": "10.00"）
+     */
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return new BigDecimal((String) value).doubleValue();
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
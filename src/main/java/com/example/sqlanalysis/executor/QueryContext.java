@@ -0,0 +1,179 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.exception.QueryCancelledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 执行中查询的上下文：取消标记、取消动作和结果大小统计
+ * - 执行器开始向数据源发送请求前用onCancel登记取消动作（Statement.cancel、killOp等），取消时在取消方的线程执行
+ * - 执行器每收集一行调用addRow，超过行数或大小上限时抛出异常，不再继续读取
+ */
+@Slf4j
+public class QueryContext {
+
+    private final String queryId;
+
+    private final String dataSourceType;
+
+    private final String sql;
+
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 结果行数上限，0表示不限制（流式查询不限制）
+     */
+    private final long maxRows;
+
+    /**
+     * 结果大小上限（估算字节数），0表示不限制
+     */
+    private final long maxBytes;
+
+    private volatile boolean cancelled;
+
+    private volatile String cancelReason;
+
+    private Runnable cancelAction;
+
+    private volatile long rows;
+
+    private volatile long bytes;
+
+    public QueryContext(String queryId, String dataSourceType, String sql, long maxRows, long maxBytes) {
+        this.queryId = queryId;
+        this.dataSourceType = dataSourceType;
+        this.sql = sql;
+        this.maxRows = Math.max(0, maxRows);
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * 请求对应的上下文；未登记的请求（如直接调用执行器）返回不限制的上下文
+     */
+    public static QueryContext of(SqlRequest request) {
+        QueryContext context = request.getContext();
+        return context != null ? context : new QueryContext(request.getQueryId(), request.getDataSourceType(),
+                request.getSql(), 0, 0);
+    }
+
+    /**
+     * 登记取消动作，传入null表示清除；已经取消时立即执行
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelAction = action;
+                return;
+            }
+        }
+        runQuietly(action);
+    }
+
+    /**
+     * 取消查询，返回是否为首次取消
+     */
+    public boolean cancel(String reason) {
+        Runnable action;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            cancelReason = reason;
+            action = cancelAction;
+            cancelAction = null;
+        }
+        log.info("取消查询: {}, 原因: {}", queryId, reason);
+        runQuietly(action);
+        return true;
+    }
+
+    private void runQuietly(Runnable action) {
+        if (action == null) {
+            return;
+        }
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.warn("执行取消动作失败: {}, 错误: {}", queryId, e.getMessage());
+        }
+    }
+
+    /**
+     * 已取消时抛出异常
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new QueryCancelledException("查询已取消: " + cancelReason);
+        }
+    }
+
+    /**
+     * 统计一行结果（数组形式）
+     */
+    public void addRow(Object[] values) {
+        long rowBytes = 16;
+        for (Object value : values) {
+            rowBytes += 8 + ResultCollector.estimateBytes(value);
+        }
+        count(rowBytes);
+    }
+
+    /**
+     * 统计一行结果（Map形式，如MongoDB文档）
+     */
+    public void addRow(Map<String, ?> row) {
+        count(ResultCollector.estimateBytes(row));
+    }
+
+    private void count(long rowBytes) {
+        checkCancelled();
+        rows++;
+        bytes += rowBytes;
+        if (maxRows > 0 && rows > maxRows) {
+            throw new QueryCancelledException("结果超过" + maxRows + "行上限，请使用分页（pageSize）或流式查询");
+        }
+        if (maxBytes > 0 && bytes > maxBytes) {
+            throw new QueryCancelledException("结果超过" + maxBytes + "字节上限，请使用分页（pageSize）或流式查询");
+        }
+    }
+
+    /**
+     * 下推到数据源的行数：多取一行，用来判断是否超过上限；不限制时返回0
+     */
+    public int getFetchLimit() {
+        return maxRows > 0 && maxRows < Integer.MAX_VALUE ? (int) maxRows + 1 : 0;
+    }
+
+    public String getQueryId() {
+        return queryId;
+    }
+
+    public String getDataSourceType() {
+        return dataSourceType;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+}
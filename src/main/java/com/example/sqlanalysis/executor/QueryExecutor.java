@@ -2,10 +2,11 @@ package com.example.sqlanalysis.executor;
 
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
-import org.springframework.beans.factory.InitializingBean;
+import com.example.sqlanalysis.enums.DataSourceType;
 
 /**
  * 查询执行器接口
+ * 执行器在启动时注册到QueryExecutorRegistry，按数据源类型（或实例名称）直接查找
  */
 public interface QueryExecutor {
     
@@ -15,14 +16,28 @@ public interface QueryExecutor {
      * @return 查询结果
      */
     SqlResult execute(SqlRequest request);
+
+    /**
+     * 执行器对应的数据源类型
+     * @return 数据源类型
+     */
+    DataSourceType getDataSourceType();
+
+    /**
+     * 执行器实例名称，为空表示该类型的默认执行器
+     * 同一类型存在多个实例（如多个MySQL集群）时，通过名称区分
+     * @return 实例名称
+     */
+    default String getName() {
+        return null;
+    }
     
     /**
      * 判断是否支持该数据源类型
      * @param dataSourceType 数据源类型
      * @return 是否支持
      */
-    boolean support(String dataSourceType);
+    default boolean support(String dataSourceType) {
+        return getDataSourceType().getCode().equalsIgnoreCase(dataSourceType);
+    }
 }
-
-
-
@@ -0,0 +1,110 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.datasource.DataSourceCatalogProperties;
+import com.example.sqlanalysis.datasource.DataSourceTargetProperties;
+import com.example.sqlanalysis.enums.DataSourceType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 查询执行器注册表
+ * 启动时按数据源类型建立索引，路由只需一次Map查找
+ * 同一类型的多个实例按名称注册，互不影响查找开销
+ */
+@Slf4j
+@Component
+public class QueryExecutorRegistry {
+
+    @Autowired
+    private List<QueryExecutor> executors;
+
+    @Autowired
+    private DataSourceCatalogProperties catalogProperties;
+
+    /**
+     * 每种数据源类型的默认执行器
+     */
+    private final Map<DataSourceType, QueryExecutor> defaultExecutors = new EnumMap<>(DataSourceType.class);
+
+    /**
+     * 按名称注册的执行器实例
+     */
+    private final Map<String, QueryExecutor> namedExecutors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (QueryExecutor executor : executors) {
+            if (executor.getName() == null) {
+                QueryExecutor existing = defaultExecutors.putIfAbsent(executor.getDataSourceType(), executor);
+                if (existing != null) {
+                    throw new IllegalStateException("数据源类型 " + executor.getDataSourceType().getCode()
+                            + " 存在多个默认执行器: " + existing.getClass().getSimpleName()
+                            + ", " + executor.getClass().getSimpleName());
+                }
+            } else {
+                register(executor.getName(), executor);
+            }
+        }
+
+        // 命名数据源（sql.datasources.*）交给对应类型的执行器，执行器按名称取连接池
+        for (Map.Entry<String, DataSourceTargetProperties> entry : catalogProperties.getDatasources().entrySet()) {
+            if (entry.getValue().getType() == null) {
+                throw new IllegalStateException("数据源 " + entry.getKey() + " 未配置type");
+            }
+            register(entry.getKey(), get(DataSourceType.fromCode(entry.getValue().getType())));
+        }
+        log.info("查询执行器注册完成，默认执行器: {}，命名实例: {}", defaultExecutors.keySet(), namedExecutors.keySet());
+    }
+
+    /**
+     * 按名称注册执行器实例
+     * @param name 实例名称
+     * @param executor 执行器
+     */
+    public void register(String name, QueryExecutor executor) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("执行器实例名称不能为空");
+        }
+        QueryExecutor existing = namedExecutors.putIfAbsent(name, executor);
+        if (existing != null && existing != executor) {
+            throw new IllegalStateException("执行器实例名称重复: " + name);
+        }
+    }
+
+    /**
+     * 获取数据源类型的默认执行器
+     */
+    public QueryExecutor get(DataSourceType type) {
+        QueryExecutor executor = defaultExecutors.get(type);
+        if (executor == null) {
+            throw new IllegalArgumentException("不支持的数据源类型: " + type.getCode());
+        }
+        return executor;
+    }
+
+    /**
+     * 按名称获取执行器实例
+     */
+    public QueryExecutor get(String name) {
+        QueryExecutor executor = namedExecutors.get(name);
+        if (executor == null) {
+            throw new IllegalArgumentException("未找到数据源实例: " + name);
+        }
+        return executor;
+    }
+
+    /**
+     * 已注册的实例名称
+     */
+    public Map<String, QueryExecutor> getNamedExecutors() {
+        return Collections.unmodifiableMap(namedExecutors);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.sqlanalysis.executor;
+
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.CommandOutput;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 通用的Redis回复解析
+ * Spring Data Redis按命令名推断输出类型，未登记的命令（如SCAN、XRANGE）返回数组时会被截断。
+ * 这里按RESP结构原样解析：字符串 -> String，整数 -> Long，数组 -> List（支持嵌套），nil -> null
+ */
+class RawReplyOutput extends CommandOutput<byte[], byte[], Object> {
+
+    /**
+     * 正在解析的数组（栈顶为最内层）
+     */
+    private final Deque<List<Object>> arrays = new ArrayDeque<>();
+
+    /**
+     * 每个数组还差的元素个数，与arrays一一对应
+     */
+    private final Deque<Integer> remaining = new ArrayDeque<>();
+
+    RawReplyOutput() {
+        super(ByteArrayCodec.INSTANCE, null);
+    }
+
+    @Override
+    public void set(ByteBuffer bytes) {
+        add(bytes != null ? StandardCharsets.UTF_8.decode(bytes).toString() : null);
+    }
+
+    @Override
+    public void setSingle(ByteBuffer bytes) {
+        add(bytes != null ? StandardCharsets.UTF_8.decode(bytes).toString() : null);
+    }
+
+    @Override
+    public void setBigNumber(ByteBuffer bytes) {
+        add(bytes != null ? StandardCharsets.UTF_8.decode(bytes).toString() : null);
+    }
+
+    @Override
+    public void set(long integer) {
+        add(integer);
+    }
+
+    @Override
+    public void set(double number) {
+        add(number);
+    }
+
+    @Override
+    public void set(boolean value) {
+        add(value);
+    }
+
+    @Override
+    public void multi(int count) {
+        if (count < 0) {
+            // nil数组
+            add(null);
+            return;
+        }
+        arrays.push(new ArrayList<>(count));
+        remaining.push(count);
+        if (count == 0) {
+            completeArrays();
+        }
+    }
+
+    private void add(Object value) {
+        if (arrays.isEmpty()) {
+            output = value;
+            return;
+        }
+        arrays.peek().add(value);
+        remaining.push(remaining.pop() - 1);
+        completeArrays();
+    }
+
+    /**
+     * 元素收齐的数组出栈，作为外层数组的一个元素（或最终结果）
+     */
+    private void completeArrays() {
+        while (!arrays.isEmpty() && remaining.peek() == 0) {
+            List<Object> done = arrays.pop();
+            remaining.pop();
+            if (arrays.isEmpty()) {
+                output = done;
+            } else {
+                arrays.peek().add(done);
+                remaining.push(remaining.pop() - 1);
+            }
+        }
+    }
+}
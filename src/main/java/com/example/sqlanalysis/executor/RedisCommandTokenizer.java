@@ -0,0 +1,114 @@
+package com.example.sqlanalysis.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis原生命令分词，规则与redis-cli一致
+ * - 空白分隔参数
+ * - 双引号内支持转义：\n \r \t \b \a \" \\ 以及 \xHH
+ * - 单引号内原样保留，只支持 \' 转义
+ * - 闭合引号后必须是空白或行尾
+ * 例如：SET greeting "hello world" -> [SET, greeting, hello world]
+ */
+public final class RedisCommandTokenizer {
+
+    private RedisCommandTokenizer() {
+    }
+
+    public static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int length = line.length();
+        int i = 0;
+
+        while (true) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                return tokens;
+            }
+
+            StringBuilder token = new StringBuilder();
+            boolean inDouble = false;
+            boolean inSingle = false;
+            while (i < length) {
+                char c = line.charAt(i);
+                if (inDouble) {
+                    if (c == '\\' && i + 3 < length && line.charAt(i + 1) == 'x'
+                            && isHex(line.charAt(i + 2)) && isHex(line.charAt(i + 3))) {
+                        token.append((char) Integer.parseInt(line.substring(i + 2, i + 4), 16));
+                        i += 4;
+                    } else if (c == '\\' && i + 1 < length) {
+                        token.append(unescape(line.charAt(i + 1)));
+                        i += 2;
+                    } else if (c == '"') {
+                        i++;
+                        checkClosingQuote(line, i);
+                        inDouble = false;
+                        break;
+                    } else {
+                        token.append(c);
+                        i++;
+                    }
+                } else if (inSingle) {
+                    if (c == '\\' && i + 1 < length && line.charAt(i + 1) == '\'') {
+                        token.append('\'');
+                        i += 2;
+                    } else if (c == '\'') {
+                        i++;
+                        checkClosingQuote(line, i);
+                        inSingle = false;
+                        break;
+                    } else {
+                        token.append(c);
+                        i++;
+                    }
+                } else if (Character.isWhitespace(c)) {
+                    break;
+                } else if (c == '"') {
+                    inDouble = true;
+                    i++;
+                } else if (c == '\'') {
+                    inSingle = true;
+                    i++;
+                } else {
+                    token.append(c);
+                    i++;
+                }
+            }
+
+            if (inDouble || inSingle) {
+                throw new IllegalArgumentException("Redis命令格式错误：引号未闭合");
+            }
+            tokens.add(token.toString());
+        }
+    }
+
+    private static void checkClosingQuote(String line, int next) {
+        if (next < line.length() && !Character.isWhitespace(line.charAt(next))) {
+            throw new IllegalArgumentException("Redis命令格式错误：闭合引号后必须是空格");
+        }
+    }
+
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'a':
+                return (char) 7;
+            default:
+                return c;
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return Character.digit(c, 16) >= 0;
+    }
+}
@@ -5,24 +5,57 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.datasource.DataSourceCatalog;
 import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.example.sqlanalysis.common.Pagination;
+import com.example.sqlanalysis.stream.ResultStreamWriter;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.MapScanCursor;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ValueScanCursor;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.ProtocolKeyword;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisConnectionUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Redis查询执行器
+ * 原生命令分词后在命令表中查找处理器，命令表启动时构建：命令名 -> 参数个数范围 + 处理器
  */
 @Slf4j
 @Component
-public class RedisExecutor implements QueryExecutor, InitializingBean {
+public class RedisExecutor implements StreamingQueryExecutor, CostEstimatingExecutor, InitializingBean {
 
     @Autowired(required = false)
     private StringRedisTemplate stringRedisTemplate;
@@ -30,11 +63,160 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     @Autowired(required = false)
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private DataSourceCatalog dataSourceCatalog;
+
+    /**
+     * SCAN每次的COUNT提示值
+     */
+    @Value("${sql.redis.scan.count:1000}")
+    private int scanCount;
+
+    /**
+     * 一次请求最多遍历的元素数，达到后停止并返回nextCursor
+     */
+    @Value("${sql.redis.scan.max-keys:100000}")
+    private int scanMaxKeys;
+
+    /**
+     * 单次请求最多执行的命令数（管道/事务）
+     */
+    @Value("${sql.redis.pipeline.max-commands:10000}")
+    private int pipelineMaxCommands;
+
+    /**
+     * 命令表：大写命令名（子命令用空格连接，如"MEMORY USAGE"）-> 命令定义
+     */
+    private final Map<String, RedisCommand> commandTable = new HashMap<>();
+
+    /**
+     * 构建命令表
+     */
+    @PostConstruct
+    public void initCommandTable() {
+        // 字符串
+        register("GET", "GET key", 1, 1, true, (redis, args, result, request) -> executeGet(redis, args.get(0), result, request));
+        register("SET", "SET key value [EX seconds]", 2, 4, true, (redis, args, result, request) -> executeSet(redis, args, result, request));
+        register("MGET", "MGET key [key ...]", 1, -1, true, (redis, args, result, request) -> executeMultiGet(redis, args, result, request));
+        registerScalar("STRLEN", "length", "key");
+        registerScalar("INCR", "value", "key");
+        registerScalar("DECR", "value", "key");
+
+        // 键
+        RedisCommand del = register("DEL", "DEL key [key ...]", 1, -1, true,
+                (redis, args, result, request) -> executeDelete(redis, args, result, request));
+        commandTable.put("DELETE", del);
+        register("EXISTS", "EXISTS key", 1, 1, true, (redis, args, result, request) -> executeExists(redis, args.get(0), result, request));
+        register("TTL", "TTL key", 1, 1, true, (redis, args, result, request) -> executeTTL(redis, args.get(0), result, request));
+        register("EXPIRE", "EXPIRE key seconds", 2, 2, true, (redis, args, result, request) -> executeExpire(redis, args, result, request));
+        registerScalar("PTTL", "pttl", "key");
+        registerScalar("TYPE", "type", "key");
+        registerScalar("MEMORY USAGE", "bytes", "key");
+        registerScalar("OBJECT ENCODING", "encoding", "key");
+        registerScalar("DBSIZE", "size");
+        register("INFO", "INFO [section]", 0, 1, true, (redis, args, result, request) -> executeInfo(redis, args, result, request));
+        // KEYS会阻塞Redis，统一改用SCAN增量遍历，也不允许放进管道
+        register("KEYS", "KEYS pattern", 0, 1, false,
+                (redis, args, result, request) -> executeScan(redis, "KEYS", args, result, request));
+        register("SCAN", "SCAN cursor [MATCH pattern] [COUNT count]", 1, 5, true,
+                (redis, args, result, request) -> executeScan(redis, "SCAN", args, result, request));
+
+        // Hash
+        register("HGET", "HGET key field", 2, 2, true, (redis, args, result, request) -> executeHashGet(redis, args, result, request));
+        register("HSET", "HSET key field value", 3, 3, true, (redis, args, result, request) -> executeHashSet(redis, args, result, request));
+        register("HMGET", "HMGET key field [field ...]", 2, -1, true,
+                (redis, args, result, request) -> executeHashMultiGet(redis, args, result, request));
+        // 大Hash改用HSCAN分批遍历，管道中无法分批，也不允许放进管道
+        register("HGETALL", "HGETALL key", 1, 1, false, (redis, args, result, request) -> {
+            if (needsScan(redis, ScanMode.HASH, args.get(0), request)) {
+                executeScan(redis, "HGETALL", args, result, request);
+            } else {
+                executeHashGetAll(redis, args.get(0), result, request);
+            }
+        });
+        register("HSCAN", "HSCAN key cursor [MATCH pattern] [COUNT count]", 2, 6, true,
+                (redis, args, result, request) -> executeScan(redis, "HSCAN", args, result, request));
+        registerScalar("HLEN", "length", "key");
+        registerScalar("HEXISTS", "exists", "key", "field");
+
+        // List
+        register("LRANGE", "LRANGE key start end", 3, 3, true, (redis, args, result, request) -> executeListRange(redis, args, result, request));
+        register("LPUSH", "LPUSH key value [value ...]", 2, -1, true,
+                (redis, args, result, request) -> executeListPush(redis, args, result, request, true));
+        register("RPUSH", "RPUSH key value [value ...]", 2, -1, true,
+                (redis, args, result, request) -> executeListPush(redis, args, result, request, false));
+        registerScalar("LLEN", "length", "key");
+        registerScalar("LINDEX", "value", "key", "index");
+
+        // Set
+        // 同HGETALL，大Set改用SSCAN
+        register("SMEMBERS", "SMEMBERS key", 1, 1, false, (redis, args, result, request) -> {
+            if (needsScan(redis, ScanMode.SET, args.get(0), request)) {
+                executeScan(redis, "SMEMBERS", args, result, request);
+            } else {
+                executeSetMembers(redis, args.get(0), result, request);
+            }
+        });
+        register("SADD", "SADD key member [member ...]", 2, -1, true, (redis, args, result, request) -> executeSetAdd(redis, args, result, request));
+        register("SSCAN", "SSCAN key cursor [MATCH pattern] [COUNT count]", 2, 6, true,
+                (redis, args, result, request) -> executeScan(redis, "SSCAN", args, result, request));
+        registerScalar("SCARD", "size", "key");
+        registerScalar("SISMEMBER", "isMember", "key", "member");
+
+        // Sorted Set
+        register("ZRANGE", "ZRANGE key start stop [WITHSCORES]", 3, 4, true,
+                (redis, args, result, request) -> executeZRange(redis, "ZRANGE", args, result, request));
+        register("ZREVRANGE", "ZREVRANGE key start stop [WITHSCORES]", 3, 4, true,
+                (redis, args, result, request) -> executeZRange(redis, "ZREVRANGE", args, result, request));
+        register("ZRANGEBYSCORE", "ZRANGEBYSCORE key min max [WITHSCORES] [LIMIT offset count]", 3, 7, true,
+                (redis, args, result, request) -> executeZRange(redis, "ZRANGEBYSCORE", args, result, request));
+        registerScalar("ZSCORE", "score", "key", "member");
+        registerScalar("ZRANK", "rank", "key", "member");
+        registerScalar("ZCARD", "size", "key");
+        registerScalar("ZCOUNT", "count", "key", "min", "max");
+
+        // Stream
+        register("XRANGE", "XRANGE key start end [COUNT count]", 3, 5, true,
+                (redis, args, result, request) -> executeStreamRange(redis, "XRANGE", args, result, request));
+        register("XREVRANGE", "XREVRANGE key end start [COUNT count]", 3, 5, true,
+                (redis, args, result, request) -> executeStreamRange(redis, "XREVRANGE", args, result, request));
+        registerScalar("XLEN", "length", "key");
+
+        log.info("Redis命令表初始化完成，共{}个命令", commandTable.size());
+    }
+
+    private RedisCommand register(String name, String usage, int minArgs, int maxArgs, boolean pipelined,
+                                  CommandHandler handler) {
+        RedisCommand command = new RedisCommand(name, usage, minArgs, maxArgs, pipelined, handler);
+        commandTable.put(name, command);
+        return command;
+    }
+
+    /**
+     * 注册返回单个值的命令：结果一行，列为各参数名加结果列
+     */
+    private void registerScalar(String name, String resultColumn, String... argNames) {
+        List<String> columns = new ArrayList<>(Arrays.asList(argNames));
+        columns.add(resultColumn);
+        String usage = argNames.length > 0 ? name + " " + String.join(" ", argNames) : name;
+        register(name, usage, argNames.length, argNames.length, true, (redis, args, result, request) -> {
+            Object reply = call(redis, name, args, request);
+
+            Map<String, Object> data = new LinkedHashMap<>();
+            for (int i = 0; i < argNames.length; i++) {
+                data.put(argNames[i], args.get(i));
+            }
+            data.put(resultColumn, reply);
+
+            result.setData(Collections.singletonList(data));
+            result.setColumns(columns);
+            result.setAffectedRows(1);
+        });
+    }
+
     @Override
     public SqlResult execute(SqlRequest request) {
-        if (stringRedisTemplate == null) {
-            throw new RuntimeException("Redis未配置，无法执行查询");
-        }
+        StringRedisTemplate redis = resolveRedisTemplate(request);
 
         String command = request.getSql();
         if (command == null || command.trim().isEmpty()) {
@@ -44,78 +226,29 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
         command = command.trim();
         log.info("开始执行Redis命令: {}", command);
         long startTime = System.currentTimeMillis();
+        QueryContext context = QueryContext.of(request);
 
         try {
-            JSONObject jsonCommand;
-            String operation;
-
-            // 判断是JSON格式还是原生Redis命令
-            if (command.startsWith("{")) {
-                // JSON格式：{"command": "GET", "key": "user:1"}
-                jsonCommand = JSON.parseObject(command);
-                operation = jsonCommand.getString("command");
-                if (operation == null || operation.trim().isEmpty()) {
-                    throw new IllegalArgumentException("command字段不能为空");
-                }
-            } else {
-                // 原生Redis命令格式：GET user:1 或 SET age 10
-                jsonCommand = parseNativeCommand(command);
-                operation = jsonCommand.getString("command");
+            if (isScript(command)) {
+                // 多条命令：一次往返执行
+                SqlResult result = executeScript(redis, command, request);
+                countRows(result, context);
+                ResultCollector.convert(result, ResultFormat.fromCode(request.getResultFormat()));
+                result.setExecutionTime(System.currentTimeMillis() - startTime);
+                log.info("Redis管道执行成功，命令数: {}，耗时: {}ms", result.getAffectedRows(), result.getExecutionTime());
+                return result;
             }
 
+            CommandCall call = resolveCommand(parseCommand(command));
+
             SqlResult result = new SqlResult();
             result.setSql(command);
-            result.setSqlType("REDIS_" + operation.toUpperCase());
+            result.setSqlType("REDIS_" + call.command.name.replace(' ', '_'));
 
-            // 根据命令类型执行不同的操作
-            switch (operation.toUpperCase()) {
-                case "GET":
-                    executeGet(jsonCommand, result);
-                    break;
-                case "SET":
-                    executeSet(jsonCommand, result);
-                    break;
-                case "DEL":
-                case "DELETE":
-                    executeDelete(jsonCommand, result);
-                    break;
-                case "EXISTS":
-                    executeExists(jsonCommand, result);
-                    break;
-                case "KEYS":
-                    executeKeys(jsonCommand, result);
-                    break;
-                case "HGET":
-                    executeHashGet(jsonCommand, result);
-                    break;
-                case "HSET":
-                    executeHashSet(jsonCommand, result);
-                    break;
-                case "HGETALL":
-                    executeHashGetAll(jsonCommand, result);
-                    break;
-                case "LRANGE":
-                    executeListRange(jsonCommand, result);
-                    break;
-                case "LPUSH":
-                case "RPUSH":
-                    executeListPush(jsonCommand, result, operation.toUpperCase());
-                    break;
-                case "SMEMBERS":
-                    executeSetMembers(jsonCommand, result);
-                    break;
-                case "SADD":
-                    executeSetAdd(jsonCommand, result);
-                    break;
-                case "TTL":
-                    executeTTL(jsonCommand, result);
-                    break;
-                case "EXPIRE":
-                    executeExpire(jsonCommand, result);
-                    break;
-                default:
-                    throw new IllegalArgumentException("不支持的Redis命令: " + operation);
-            }
+            call.command.handler.handle(redis, call.args, result, request);
+            countRows(result, context);
+            // Redis结果按Map构建，按请求转换为数组/列式格式
+            ResultCollector.convert(result, ResultFormat.fromCode(request.getResultFormat()));
 
             long endTime = System.currentTimeMillis();
             result.setExecutionTime(endTime - startTime);
@@ -124,163 +257,492 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
             return result;
         } catch (Exception e) {
             log.error("Redis命令执行失败: {}", e.getMessage(), e);
+            context.checkCancelled();
             throw new RuntimeException("Redis命令执行失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 解析原生Redis命令为JSON格式
-     * 例如：GET user:1 -> {"command": "GET", "key": "user:1"}
-     * SET age 10 -> {"command": "SET", "key": "age", "value": "10"}
+     * 估算命令返回的元素数：集合类读命令按集合大小（HLEN、SCARD、LLEN、ZCARD、XLEN，均为O(1)），其它单键命令为1；
+     * 多条命令的脚本不估算
+     * KEYS、HGETALL、SMEMBERS按SCAN执行，最多遍历 sql.redis.scan.max-keys 个元素，估算值不超过该上限并视为自带限制
      */
-    private JSONObject parseNativeCommand(String command) {
-        String[] parts = command.split("\\s+");
-        if (parts.length == 0) {
-            throw new IllegalArgumentException("Redis命令格式错误");
+    @Override
+    public CostEstimate estimateCost(SqlRequest request) {
+        String command = request.getSql();
+        if (command == null || command.trim().isEmpty() || isScript(command.trim())) {
+            return null;
+        }
+        CommandCall call = resolveCommand(parseCommand(command.trim()));
+        StringRedisTemplate redis = resolveRedisTemplate(request);
+        List<String> args = call.args;
+
+        Long rows;
+        switch (call.command.name) {
+            case "KEYS":
+                rows = redis.execute((RedisCallback<Long>) RedisConnection::dbSize);
+                return scanBounded(rows);
+            case "HGETALL":
+                return scanBounded(redis.opsForHash().size(args.get(0)));
+            case "SMEMBERS":
+                return scanBounded(redis.opsForSet().size(args.get(0)));
+            case "LRANGE":
+                rows = rangeSize(redis.opsForList().size(args.get(0)), args.get(1), args.get(2));
+                break;
+            case "ZRANGE":
+            case "ZREVRANGE":
+                rows = rangeSize(redis.opsForZSet().zCard(args.get(0)), args.get(1), args.get(2));
+                break;
+            case "ZRANGEBYSCORE":
+                rows = redis.opsForZSet().zCard(args.get(0));
+                break;
+            case "XRANGE":
+            case "XREVRANGE":
+                rows = redis.opsForStream().size(args.get(0));
+                break;
+            default:
+                rows = 1L;
+        }
+        return new CostEstimate(rows != null ? rows : 0, false, false, false);
+    }
+
+    /**
+     * 按SCAN执行的命令：遍历的元素数不超过 sql.redis.scan.max-keys
+     */
+    private CostEstimate scanBounded(Long size) {
+        return new CostEstimate(size != null ? Math.min(size, scanMaxKeys) : 0, false, true, false);
+    }
+
+    /**
+     * 按Redis下标规则（负数从末尾计）计算区间内的元素数
+     */
+    private static long rangeSize(Long size, String start, String stop) {
+        if (size == null || size == 0) {
+            return 0;
+        }
+        long from = parseLong(start);
+        long to = parseLong(stop);
+        from = Math.max(from < 0 ? size + from : from, 0);
+        to = Math.min(to < 0 ? size + to : to, size - 1);
+        return Math.max(to - from + 1, 0);
+    }
+
+    @Override
+    public void executeStream(SqlRequest request, ResultStreamWriter writer) {
+        StringRedisTemplate redis = resolveRedisTemplate(request);
+
+        String command = request.getSql();
+        if (command == null || command.trim().isEmpty()) {
+            throw new IllegalArgumentException("Redis命令不能为空");
         }
 
-        JSONObject json = new JSONObject();
-        String cmd = parts[0].toUpperCase();
-        json.put("command", cmd);
+        command = command.trim();
+        CommandCall call = resolveCommand(parseCommand(command));
+        ScanSpec spec = scanSpec(call.command.name, call.args);
+        String cursor = resolveScanCursor(spec, request);
+        long limit = request.getMaxRows() != null ? Math.min(request.getMaxRows(), scanMaxKeys) : scanMaxKeys;
+
+        log.info("开始流式执行Redis命令: {}", command);
+        long startTime = System.currentTimeMillis();
+
+        SqlResult meta = new SqlResult();
+        meta.setSql(command);
+        meta.setSqlType("REDIS_" + call.command.name);
+        meta.setColumns(spec.mode.columns);
 
         try {
-            switch (cmd) {
-                case "GET":
-                case "EXISTS":
-                case "TTL":
-                case "HGETALL":
-                case "SMEMBERS":
-                    // 命令格式：COMMAND key
-                    if (parts.length < 2) {
-                        throw new IllegalArgumentException(cmd + " 命令需要指定key");
-                    }
-                    json.put("key", parts[1]);
-                    break;
+            writer.writeHeader(meta);
+            int[] rowCount = new int[1];
+            // 每批SCAN结果直接写出，不在内存中累积
+            String nextCursor = scan(redis, spec, cursor, limit, request, values -> {
+                writer.writeRow(values);
+                rowCount[0]++;
+            });
+
+            SqlResult summary = new SqlResult();
+            summary.setAffectedRows(rowCount[0]);
+            summary.setExecutionTime(System.currentTimeMillis() - startTime);
+            summary.setHasMore(nextCursor != null);
+            summary.setNextCursor(nextCursor);
+            writer.writeFooter(summary);
+            log.info("Redis流式执行成功，行数: {}，耗时: {}ms", rowCount[0], summary.getExecutionTime());
+        } catch (IOException e) {
+            throw new UncheckedIOException("写出查询结果失败", e);
+        }
+    }
 
-                case "SET":
-                    // 命令格式：SET key value [EX seconds]
-                    if (parts.length < 3) {
-                        throw new IllegalArgumentException("SET 命令格式：SET key value [EX seconds]");
-                    }
-                    json.put("key", parts[1]);
-                    json.put("value", parts[2]);
-                    // 检查是否有过期时间
-                    if (parts.length >= 5 && "EX".equalsIgnoreCase(parts[3])) {
-                        json.put("expire", Long.parseLong(parts[4]));
-                    }
-                    break;
+    /**
+     * 统计结果行数和大小：回复已经在内存中，超过上限时不再转换和返回
+     */
+    private void countRows(SqlResult result, QueryContext context) {
+        if (result.getData() != null) {
+            for (Map<String, Object> row : result.getData()) {
+                context.addRow(row);
+            }
+        }
+    }
 
-                case "DEL":
-                case "DELETE":
-                    // 命令格式：DEL key
-                    if (parts.length < 2) {
-                        throw new IllegalArgumentException(cmd + " 命令需要指定key");
-                    }
-                    json.put("key", parts[1]);
-                    break;
+    /**
+     * 是否为多条命令：换行分隔的原生命令，或JSON数组
+     * 以{开头的是单条JSON命令，格式化后跨多行也不算多条
+     */
+    private boolean isScript(String command) {
+        if (command.startsWith("{")) {
+            return false;
+        }
+        return command.startsWith("[") || command.indexOf('\n') >= 0;
+    }
 
-                case "KEYS":
-                    // 命令格式：KEYS pattern
-                    if (parts.length < 2) {
-                        json.put("pattern", "*");
-                    } else {
-                        json.put("pattern", parts[1]);
-                    }
-                    break;
+    /**
+     * 执行多条命令
+     * - 默认使用管道（pipeline）一次发送，所有命令的回复一起返回
+     * - 首行为MULTI、末行为EXEC时在事务中执行
+     * 每条命令一行结果：index、command、result、error（管道中单条命令失败不影响其它命令）
+     */
+    private SqlResult executeScript(StringRedisTemplate redis, String script, SqlRequest request) {
+        List<List<String>> commands = parseScript(script);
+
+        boolean transaction = false;
+        if (commands.size() >= 2 && "MULTI".equalsIgnoreCase(commands.get(0).get(0))
+                && "EXEC".equalsIgnoreCase(commands.get(commands.size() - 1).get(0))) {
+            transaction = true;
+            commands = commands.subList(1, commands.size() - 1);
+        }
+        if (commands.isEmpty()) {
+            throw new IllegalArgumentException("没有需要执行的Redis命令");
+        }
+        if (commands.size() > pipelineMaxCommands) {
+            throw new IllegalArgumentException("单次最多执行" + pipelineMaxCommands + "条命令，当前: " + commands.size());
+        }
 
-                case "HGET":
-                    // 命令格式：HGET key field
-                    if (parts.length < 3) {
-                        throw new IllegalArgumentException("HGET 命令格式：HGET key field");
-                    }
-                    json.put("key", parts[1]);
-                    json.put("field", parts[2]);
-                    break;
+        // 发送前先全部校验（命令名、参数个数），有一条不合法就都不执行
+        List<CommandCall> calls = new ArrayList<>(commands.size());
+        for (List<String> argv : commands) {
+            CommandCall call = resolveCommand(argv);
+            if (!call.command.pipelined) {
+                throw new IllegalArgumentException("管道中不支持的Redis命令: " + call.command.name);
+            }
+            calls.add(call);
+        }
 
-                case "HSET":
-                    // 命令格式：HSET key field value
-                    if (parts.length < 4) {
-                        throw new IllegalArgumentException("HSET 命令格式：HSET key field value");
-                    }
-                    json.put("key", parts[1]);
-                    json.put("field", parts[2]);
-                    json.put("value", parts[3]);
-                    break;
+        List<Object> replies = runPipeline(redis, calls, transaction, request);
 
-                case "LRANGE":
-                    // 命令格式：LRANGE key start end
-                    if (parts.length < 4) {
-                        throw new IllegalArgumentException("LRANGE 命令格式：LRANGE key start end");
-                    }
-                    json.put("key", parts[1]);
-                    json.put("start", Long.parseLong(parts[2]));
-                    json.put("end", Long.parseLong(parts[3]));
-                    break;
+        List<Map<String, Object>> data = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            Object reply = replies != null && i < replies.size() ? replies.get(i) : null;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("index", i);
+            row.put("command", String.join(" ", commands.get(i)));
+            row.put("result", reply instanceof Throwable ? null : reply);
+            row.put("error", reply instanceof Throwable ? ((Throwable) reply).getMessage() : null);
+            data.add(row);
+        }
 
-                case "LPUSH":
-                case "RPUSH":
-                    // 命令格式：LPUSH key value [value ...]
-                    if (parts.length < 3) {
-                        throw new IllegalArgumentException(cmd + " 命令格式：" + cmd + " key value [value ...]");
-                    }
-                    json.put("key", parts[1]);
-                    if (parts.length == 3) {
-                        json.put("value", parts[2]);
-                    } else {
-                        JSONArray values = new JSONArray();
-                        for (int i = 2; i < parts.length; i++) {
-                            values.add(parts[i]);
-                        }
-                        json.put("values", values);
-                    }
-                    break;
+        SqlResult result = new SqlResult();
+        result.setSql(script);
+        result.setSqlType(transaction ? "REDIS_MULTI" : "REDIS_PIPELINE");
+        result.setData(data);
+        result.setColumns(Arrays.asList("index", "command", "result", "error"));
+        result.setAffectedRows(data.size());
+        return result;
+    }
 
-                case "SADD":
-                    // 命令格式：SADD key member [member ...]
-                    if (parts.length < 3) {
-                        throw new IllegalArgumentException("SADD 命令格式：SADD key member [member ...]");
-                    }
-                    json.put("key", parts[1]);
-                    if (parts.length == 3) {
-                        json.put("value", parts[2]);
-                    } else {
-                        JSONArray values = new JSONArray();
-                        for (int i = 2; i < parts.length; i++) {
-                            values.add(parts[i]);
-                        }
-                        json.put("values", values);
-                    }
-                    break;
+    /**
+     * 解析多条命令
+     * - 文本：每行一条原生命令，忽略空行和#开头的注释
+     * - JSON数组：元素为原生命令字符串，或参数数组如 ["SET", "k", "v"]
+     */
+    private List<List<String>> parseScript(String script) {
+        List<List<String>> commands = new ArrayList<>();
+        if (script.startsWith("[")) {
+            for (Object item : JSON.parseArray(script)) {
+                if (item instanceof String) {
+                    addScriptLine(commands, (String) item);
+                } else if (item instanceof JSONArray && !((JSONArray) item).isEmpty()) {
+                    commands.add(((JSONArray) item).toJavaList(String.class));
+                } else {
+                    throw new IllegalArgumentException("命令数组的元素必须是命令字符串或参数数组: " + item);
+                }
+            }
+            return commands;
+        }
+
+        for (String line : script.split("\n")) {
+            addScriptLine(commands, line);
+        }
+        return commands;
+    }
+
+    private void addScriptLine(List<List<String>> commands, String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return;
+        }
+        commands.add(RedisCommandTokenizer.tokenize(trimmed));
+    }
 
-                case "EXPIRE":
-                    // 命令格式：EXPIRE key seconds
-                    if (parts.length < 3) {
-                        throw new IllegalArgumentException("EXPIRE 命令格式：EXPIRE key seconds");
+    /**
+     * 通过管道或MULTI/EXEC执行命令，返回与命令一一对应的回复，失败的命令对应异常对象
+     * 与单条命令一样通过Lettuce异步接口发送，按请求的timeout等待回复，查询取消时不再等待
+     * 打开管道后getNativeConnection返回独占连接，MULTI/EXEC之间不会混入其它线程的命令
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> runPipeline(StringRedisTemplate redis, List<CommandCall> calls, boolean transaction,
+                                     SqlRequest request) {
+        return withConnection(redis, connection -> {
+            List<RedisFuture<Object>> futures = new ArrayList<>(calls.size());
+            connection.openPipeline();
+            try {
+                RedisClusterAsyncCommands<byte[], byte[]> commands =
+                        (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+                if (transaction) {
+                    commands.dispatch(CommandType.MULTI, new StatusOutput<>(ByteArrayCodec.INSTANCE));
+                }
+                for (CommandCall call : calls) {
+                    futures.add(dispatch(commands, call.command.name, call.args));
+                }
+                // Redis按发送顺序回复，EXEC（或最后一条命令）完成时其余命令都已完成
+                if (transaction) {
+                    // 事务中的命令在EXEC时一起执行，命令入队失败时EXEC报错（Redis不会回滚已执行的命令）
+                    await(commands.dispatch(CommandType.EXEC, new RawReplyOutput()), request);
+                } else {
+                    await(futures.get(futures.size() - 1).toCompletableFuture().handle((reply, e) -> null), request);
+                }
+            } catch (RuntimeException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            } finally {
+                connection.closePipeline();
+            }
+
+            List<Object> replies = new ArrayList<>(futures.size());
+            for (RedisFuture<Object> future : futures) {
+                try {
+                    replies.add(future.toCompletableFuture().getNow(null));
+                } catch (CompletionException e) {
+                    if (transaction) {
+                        // 事务中任意一条失败时整体报错
+                        throw new RuntimeException(e.getCause().getMessage(), e.getCause());
                     }
-                    json.put("key", parts[1]);
-                    json.put("seconds", Long.parseLong(parts[2]));
-                    break;
+                    replies.add(e.getCause());
+                }
+            }
+            return replies;
+        });
+    }
 
-                default:
-                    throw new IllegalArgumentException("不支持的Redis命令: " + cmd);
+    /**
+     * 执行一条命令，按RESP结构返回回复（字符串、整数、列表）
+     * 通过Lettuce异步接口发送，按请求的timeout等待回复，查询取消时不再等待
+     */
+    @SuppressWarnings("unchecked")
+    private Object call(StringRedisTemplate redis, String name, List<String> args, SqlRequest request) {
+        return redis.execute((RedisCallback<Object>) connection -> {
+            RedisClusterAsyncCommands<byte[], byte[]> commands =
+                    (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            return await(dispatch(commands, name, args), request);
+        });
+    }
+
+    /**
+     * 等待命令回复：超过请求的timeout（默认30秒）或查询被取消时放弃等待
+     * Redis服务端单线程执行，已发出的命令无法中止，这里只是不再占用执行线程
+     */
+    private <T> T await(Future<T> future, SqlRequest request) {
+        QueryContext context = QueryContext.of(request);
+        long timeoutSeconds = request.getTimeout() != null && request.getTimeout() > 0 ? request.getTimeout() : 30;
+        context.onCancel(() -> future.cancel(true));
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RuntimeException("Redis命令执行被中断", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("Redis命令执行超时（" + timeoutSeconds + "秒）", e);
+        } catch (CancellationException e) {
+            context.checkCancelled();
+            throw e;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            context.onCancel(null);
+        }
+    }
+
+    /**
+     * 通过Lettuce异步接口发送命令，两个词的命令（如MEMORY USAGE）第二个词作为第一个参数发送
+     */
+    private RedisFuture<Object> dispatch(RedisClusterAsyncCommands<byte[], byte[]> commands, String name,
+                                         List<String> args) {
+        int space = name.indexOf(' ');
+        RawCommand command = new RawCommand(space > 0 ? name.substring(0, space) : name);
+        CommandArgs<byte[], byte[]> commandArgs = new CommandArgs<>(ByteArrayCodec.INSTANCE);
+        if (space > 0) {
+            commandArgs.add(name.substring(space + 1));
+        }
+        for (String arg : args) {
+            commandArgs.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+        return commands.dispatch(command, new RawReplyOutput(), commandArgs);
+    }
+
+    /**
+     * 取底层Lettuce连接执行操作（RedisTemplate.execute交给回调的是代理，不能调用Lettuce特有的方法）
+     */
+    private <T> T withConnection(StringRedisTemplate redis, Function<LettuceConnection, T> action) {
+        RedisConnectionFactory factory = redis.getRequiredConnectionFactory();
+        RedisConnection connection = RedisConnectionUtils.getConnection(factory);
+        try {
+            if (!(connection instanceof LettuceConnection)) {
+                throw new IllegalStateException("Redis命令执行需要Lettuce连接");
             }
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("命令参数格式错误：" + e.getMessage());
+            return action.apply((LettuceConnection) connection);
+        } finally {
+            RedisConnectionUtils.releaseConnection(connection, factory);
         }
+    }
 
-        return json;
+    /**
+     * 解析命令为参数列表（第一个元素为命令名），支持原生命令和JSON格式
+     */
+    private List<String> parseCommand(String command) {
+        if (command.startsWith("{")) {
+            // JSON格式命令
+            return parseJsonCommand(JSON.parseObject(command));
+        }
+        // 原生Redis命令格式，引号规则与redis-cli一致：SET greeting "hello world"
+        List<String> argv = RedisCommandTokenizer.tokenize(command);
+        if (argv.isEmpty()) {
+            throw new IllegalArgumentException("Redis命令格式错误");
+        }
+        return argv;
     }
 
     /**
-     * 执行GET命令
+     * JSON格式命令转为参数列表
+     * - {"command": "MGET", "args": ["k1", "k2"]}：args原样作为命令参数
+     * - {"command": "GET", "key": "user:1"}：原有的字段格式，按字段拼成参数
+     */
+    private List<String> parseJsonCommand(JSONObject json) {
+        String name = json.getString("command");
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("command参数不能为空");
+        }
+
+        List<String> argv = new ArrayList<>(RedisCommandTokenizer.tokenize(name));
+        JSONArray args = json.getJSONArray("args");
+        if (args != null) {
+            argv.addAll(args.toJavaList(String.class));
+            return argv;
+        }
+
+        switch (argv.get(0).toUpperCase()) {
+            case "KEYS":
+                addIfPresent(argv, json.getString("pattern"));
+                break;
+            case "SCAN":
+                argv.add(json.getString("cursor") != null ? json.getString("cursor") : ScanCursor.INITIAL.getCursor());
+                addScanOptions(argv, json);
+                break;
+            case "HSCAN":
+            case "SSCAN":
+                addIfPresent(argv, json.getString("key"));
+                argv.add(json.getString("cursor") != null ? json.getString("cursor") : ScanCursor.INITIAL.getCursor());
+                addScanOptions(argv, json);
+                break;
+            case "DEL":
+            case "DELETE":
+                JSONArray keys = json.getJSONArray("keys");
+                if (keys != null && !keys.isEmpty()) {
+                    argv.addAll(keys.toJavaList(String.class));
+                } else {
+                    addIfPresent(argv, json.getString("key"));
+                }
+                break;
+            default:
+                addIfPresent(argv, json.getString("key"));
+                addIfPresent(argv, json.getString("field"));
+                addIfPresent(argv, json.getString("value"));
+                JSONArray values = json.getJSONArray("values");
+                if (values != null) {
+                    argv.addAll(values.toJavaList(String.class));
+                }
+                if (json.containsKey("start") || json.containsKey("end")) {
+                    argv.add(json.getString("start") != null ? json.getString("start") : "0");
+                    argv.add(json.getString("end") != null ? json.getString("end") : "-1");
+                }
+                addIfPresent(argv, json.getString("seconds"));
+                Long expire = json.getLong("expire");
+                if (expire != null && expire > 0) {
+                    argv.add("EX");
+                    argv.add(String.valueOf(expire));
+                }
+                break;
+        }
+        return argv;
+    }
+
+    private void addScanOptions(List<String> argv, JSONObject json) {
+        if (json.getString("pattern") != null) {
+            argv.add("MATCH");
+            argv.add(json.getString("pattern"));
+        }
+        if (json.getInteger("count") != null) {
+            argv.add("COUNT");
+            argv.add(json.getString("count"));
+        }
+    }
+
+    private void addIfPresent(List<String> argv, String value) {
+        if (value != null) {
+            argv.add(value);
+        }
+    }
+
+    /**
+     * 在命令表中查找命令并检查参数个数
+     * 先按第一个词查找，找不到时按前两个词查找（如MEMORY USAGE）
+     */
+    private CommandCall resolveCommand(List<String> argv) {
+        String name = argv.get(0).toUpperCase();
+        RedisCommand command = commandTable.get(name);
+        int argsFrom = 1;
+        if (command == null && argv.size() > 1) {
+            command = commandTable.get(name + " " + argv.get(1).toUpperCase());
+            argsFrom = 2;
+        }
+        if (command == null) {
+            throw new IllegalArgumentException("不支持的Redis命令: " + name);
+        }
+
+        List<String> args = argv.subList(argsFrom, argv.size());
+        if (args.size() < command.minArgs || (command.maxArgs >= 0 && args.size() > command.maxArgs)) {
+            throw new IllegalArgumentException(command.name + " 命令参数个数错误，格式：" + command.usage);
+        }
+        return new CommandCall(command, args);
+    }
+
+    /**
+     * 获取请求对应的StringRedisTemplate：指定了命名数据源时使用该数据源的连接池
      */
-    private void executeGet(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
+    private StringRedisTemplate resolveRedisTemplate(SqlRequest request) {
+        String dataSource = request.getDataSource();
+        if (dataSource != null && !dataSource.trim().isEmpty()) {
+            return dataSourceCatalog.getStringRedisTemplate(dataSource.trim());
         }
+        if (stringRedisTemplate == null) {
+            throw new RuntimeException("Redis未配置，无法执行查询");
+        }
+        return stringRedisTemplate;
+    }
 
-        String value = stringRedisTemplate.opsForValue().get(key);
+    /**
+     * 执行GET命令
+     */
+    private void executeGet(StringRedisTemplate redis, String key, SqlResult result, SqlRequest request) {
+        Object value = call(redis, "GET", Collections.singletonList(key), request);
 
         // 使用LinkedHashMap保持插入顺序
         Map<String, Object> data = new LinkedHashMap<>();
@@ -293,22 +755,15 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     }
 
     /**
-     * 执行SET命令
+     * 执行SET命令：SET key value [EX seconds]
      */
-    private void executeSet(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        String value = jsonCommand.getString("value");
-        Long expire = jsonCommand.getLong("expire");
-
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
-        }
-
-        if (expire != null && expire > 0) {
-            stringRedisTemplate.opsForValue().set(key, value, expire, TimeUnit.SECONDS);
-        } else {
-            stringRedisTemplate.opsForValue().set(key, value);
+    private void executeSet(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        if (args.size() == 4 && "EX".equalsIgnoreCase(args.get(2))) {
+            parseLong(args.get(3));
+        } else if (args.size() != 2) {
+            throw new IllegalArgumentException("SET 命令格式：SET key value [EX seconds]");
         }
+        call(redis, "SET", args, request);
 
         result.setData(new ArrayList<>());
         result.setColumns(new ArrayList<>());
@@ -316,40 +771,44 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     }
 
     /**
-     * 执行DELETE命令
+     * 执行MGET命令，每个key一行
      */
-    private void executeDelete(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        JSONArray keys = jsonCommand.getJSONArray("keys");
+    private void executeMultiGet(StringRedisTemplate redis, List<String> keys, SqlResult result, SqlRequest request) {
+        List<?> values = (List<?>) call(redis, "MGET", keys, request);
 
-        int count;
-        if (keys != null && !keys.isEmpty()) {
-            count = stringRedisTemplate.delete(keys.toJavaList(String.class)).intValue();
-        } else if (key != null && !key.trim().isEmpty()) {
-            count = stringRedisTemplate.delete(key) ? 1 : 0;
-        } else {
-            throw new IllegalArgumentException("key或keys参数不能为空");
+        List<Map<String, Object>> data = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", keys.get(i));
+            row.put("value", values.get(i));
+            data.add(row);
         }
 
+        result.setData(data);
+        result.setColumns(Arrays.asList("key", "value"));
+        result.setAffectedRows(data.size());
+    }
+
+    /**
+     * 执行DELETE命令
+     */
+    private void executeDelete(StringRedisTemplate redis, List<String> keys, SqlResult result, SqlRequest request) {
+        Long count = (Long) call(redis, "DEL", keys, request);
+
         result.setData(new ArrayList<>());
         result.setColumns(new ArrayList<>());
-        result.setAffectedRows(count);
+        result.setAffectedRows(count != null ? count.intValue() : 0);
     }
 
     /**
      * 执行EXISTS命令
      */
-    private void executeExists(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
-        }
-
-        Boolean exists = stringRedisTemplate.hasKey(key);
+    private void executeExists(StringRedisTemplate redis, String key, SqlResult result, SqlRequest request) {
+        Long exists = (Long) call(redis, "EXISTS", Collections.singletonList(key), request);
 
         Map<String, Object> data = new LinkedHashMap<>();
         data.put("key", key);
-        data.put("exists", exists != null && exists);
+        data.put("exists", exists != null && exists > 0);
 
         result.setData(Collections.singletonList(data));
         result.setColumns(Arrays.asList("key", "exists"));
@@ -357,42 +816,199 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     }
 
     /**
-     * 执行KEYS命令
+     * 执行INFO命令，每个指标一行
      */
-    private void executeKeys(JSONObject jsonCommand, SqlResult result) {
-        String pattern = jsonCommand.getString("pattern");
-        if (pattern == null || pattern.trim().isEmpty()) {
-            pattern = "*";
+    private void executeInfo(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        Object reply = call(redis, "INFO", args, request);
+
+        List<Map<String, Object>> data = new ArrayList<>();
+        String section = null;
+        for (String line : String.valueOf(reply).split("\r?\n")) {
+            if (line.startsWith("#")) {
+                section = line.substring(1).trim();
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("section", section);
+            row.put("name", line.substring(0, colon));
+            row.put("value", line.substring(colon + 1));
+            data.add(row);
         }
 
-        Set<String> keys = stringRedisTemplate.keys(pattern);
+        result.setData(data);
+        result.setColumns(Arrays.asList("section", "name", "value"));
+        result.setAffectedRows(data.size());
+    }
+
+    /**
+     * 按SCAN方式执行命令（KEYS、SCAN、HSCAN、SSCAN，以及需要分批的HGETALL/SMEMBERS）
+     * - 分页时从请求的cursor继续遍历，取够pageSize即返回
+     * - 不分页时遍历到结束，或达到maxRows/sql.redis.scan.max-keys上限为止
+     * 上限按批检查，为了保证从nextCursor续扫不丢数据，最后一批不会截断
+     */
+    private void executeScan(StringRedisTemplate redis, String name, List<String> args, SqlResult result,
+                             SqlRequest request) {
+        ScanSpec spec = scanSpec(name, args);
+        String cursor = resolveScanCursor(spec, request);
+
+        long limit;
+        if (request.getPageSize() != null) {
+            limit = Pagination.of(request).getLimit();
+        } else {
+            limit = request.getMaxRows() != null ? Math.min(request.getMaxRows(), scanMaxKeys) : scanMaxKeys;
+        }
 
         List<Map<String, Object>> data = new ArrayList<>();
-        if (keys != null) {
-            for (String key : keys) {
+        String nextCursor;
+        try {
+            nextCursor = scan(redis, spec, cursor, limit, request, values -> {
                 Map<String, Object> row = new LinkedHashMap<>();
-                row.put("key", key);
+                for (int i = 0; i < values.length; i++) {
+                    row.put(spec.mode.columns.get(i), values[i]);
+                }
                 data.add(row);
-            }
+            });
+        } catch (IOException e) {
+            // 收集到内存时不会出现写出异常
+            throw new UncheckedIOException(e);
         }
 
         result.setData(data);
-        result.setColumns(Collections.singletonList("key"));
+        result.setColumns(spec.mode.columns);
         result.setAffectedRows(data.size());
+        result.setHasMore(nextCursor != null);
+        result.setNextCursor(nextCursor);
     }
 
     /**
-     * 执行HGET命令
+     * HGETALL/SMEMBERS是否需要改用HSCAN/SSCAN：
+     * 请求分页或限制了行数，或者集合大小超过sql.redis.scan.max-keys
      */
-    private void executeHashGet(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        String field = jsonCommand.getString("field");
+    private boolean needsScan(StringRedisTemplate redis, ScanMode mode, String key, SqlRequest request) {
+        if (request.getPageSize() != null || request.getMaxRows() != null) {
+            return true;
+        }
+        Long size = (Long) call(redis, mode == ScanMode.HASH ? "HLEN" : "SCARD", Collections.singletonList(key), request);
+        return size != null && size > scanMaxKeys;
+    }
+
+    /**
+     * 根据命令构建SCAN参数
+     */
+    private ScanSpec scanSpec(String name, List<String> args) {
+        switch (name) {
+            case "KEYS":
+                return new ScanSpec(ScanMode.KEYS, null, args.isEmpty() ? "*" : args.get(0), scanCount, null);
+            case "SCAN":
+                return scanSpec(ScanMode.KEYS, null, args.get(0), args, 1);
+            case "HSCAN":
+                return scanSpec(ScanMode.HASH, args.get(0), args.get(1), args, 2);
+            case "SSCAN":
+                return scanSpec(ScanMode.SET, args.get(0), args.get(1), args, 2);
+            case "HGETALL":
+                return new ScanSpec(ScanMode.HASH, args.get(0), "*", scanCount, null);
+            case "SMEMBERS":
+                return new ScanSpec(ScanMode.SET, args.get(0), "*", scanCount, null);
+            default:
+                throw new IllegalArgumentException("流式查询只支持KEYS/SCAN/HSCAN/SSCAN/HGETALL/SMEMBERS");
+        }
+    }
 
-        if (key == null || field == null) {
-            throw new IllegalArgumentException("key和field参数不能为空");
+    /**
+     * 解析SCAN系列命令的MATCH/COUNT选项
+     */
+    private ScanSpec scanSpec(ScanMode mode, String key, String cursor, List<String> args, int optionsFrom) {
+        String pattern = "*";
+        int count = scanCount;
+        for (int i = optionsFrom; i < args.size(); i += 2) {
+            if (i + 1 >= args.size()) {
+                throw new IllegalArgumentException("SCAN选项缺少参数: " + args.get(i));
+            }
+            String option = args.get(i).toUpperCase();
+            if ("MATCH".equals(option)) {
+                pattern = args.get(i + 1);
+            } else if ("COUNT".equals(option)) {
+                count = (int) parseLong(args.get(i + 1));
+            } else {
+                throw new IllegalArgumentException("不支持的SCAN选项: " + args.get(i));
+            }
         }
+        return new ScanSpec(mode, key, pattern, count > 0 ? count : scanCount, cursor);
+    }
 
-        Object value = stringRedisTemplate.opsForHash().get(key, field);
+    /**
+     * 起始游标：请求的cursor（翻页时传入上一页的nextCursor）优先，其次是命令中的cursor
+     */
+    private String resolveScanCursor(ScanSpec spec, SqlRequest request) {
+        String cursor = request.getCursor();
+        if (cursor == null || cursor.trim().isEmpty()) {
+            cursor = spec.cursor;
+        }
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return ScanCursor.INITIAL.getCursor();
+        }
+        return cursor.trim();
+    }
+
+    /**
+     * 从cursor开始循环SCAN，每批结果立即交给sink，达到limit或遍历结束后停止
+     * @return 下一批的游标，遍历结束时返回null
+     */
+    private String scan(StringRedisTemplate redis, ScanSpec spec, String cursor, long limit, SqlRequest request,
+                        RowSink sink) throws IOException {
+        QueryContext context = QueryContext.of(request);
+        long rows = 0;
+        String next = cursor;
+        do {
+            context.checkCancelled();
+            ScanBatch batch = scanOnce(redis, spec, next, request);
+            for (Object[] values : batch.rows) {
+                sink.accept(values);
+                rows++;
+            }
+            next = batch.cursor;
+        } while (next != null && rows < limit);
+        return next;
+    }
+
+    /**
+     * 从指定游标执行一次SCAN/HSCAN/SSCAN
+     * Spring Data Redis的Cursor只能从0开始遍历，这里直接使用Lettuce原生命令以支持断点续扫
+     */
+    @SuppressWarnings("unchecked")
+    private ScanBatch scanOnce(StringRedisTemplate redis, ScanSpec spec, String cursor, SqlRequest request) {
+        ScanArgs args = ScanArgs.Builder.matches(spec.pattern).limit(spec.count);
+        return redis.execute((RedisCallback<ScanBatch>) connection -> {
+            RedisClusterAsyncCommands<byte[], byte[]> commands =
+                    (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            RedisFuture<? extends ScanCursor> future;
+            switch (spec.mode) {
+                case HASH:
+                    future = commands.hscan(spec.keyBytes(), ScanCursor.of(cursor), args);
+                    break;
+                case SET:
+                    future = commands.sscan(spec.keyBytes(), ScanCursor.of(cursor), args);
+                    break;
+                default:
+                    future = commands.scan(ScanCursor.of(cursor), args);
+                    break;
+            }
+            return ScanBatch.of(await(future, request));
+        });
+    }
+
+    /**
+     * 执行HGET命令
+     */
+    private void executeHashGet(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        String key = args.get(0);
+        String field = args.get(1);
+
+        Object value = call(redis, "HGET", args, request);
 
         Map<String, Object> data = new LinkedHashMap<>();
         data.put("key", key);
@@ -407,16 +1023,8 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     /**
      * 执行HSET命令
      */
-    private void executeHashSet(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        String field = jsonCommand.getString("field");
-        String value = jsonCommand.getString("value");
-
-        if (key == null || field == null) {
-            throw new IllegalArgumentException("key和field参数不能为空");
-        }
-
-        stringRedisTemplate.opsForHash().put(key, field, value);
+    private void executeHashSet(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        call(redis, "HSET", args, request);
 
         result.setData(new ArrayList<>());
         result.setColumns(new ArrayList<>());
@@ -426,19 +1034,15 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     /**
      * 执行HGETALL命令
      */
-    private void executeHashGetAll(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
-        }
-
-        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(key);
+    private void executeHashGetAll(StringRedisTemplate redis, String key, SqlResult result, SqlRequest request) {
+        // 回复为field、value交替的数组
+        List<?> reply = (List<?>) call(redis, "HGETALL", Collections.singletonList(key), request);
 
-        List<Map<String, Object>> data = new ArrayList<>();
-        for (Map.Entry<Object, Object> entry : hash.entrySet()) {
+        List<Map<String, Object>> data = new ArrayList<>(reply.size() / 2);
+        for (int i = 0; i + 1 < reply.size(); i += 2) {
             Map<String, Object> row = new LinkedHashMap<>();
-            row.put("field", entry.getKey());
-            row.put("value", entry.getValue());
+            row.put("field", reply.get(i));
+            row.put("value", reply.get(i + 1));
             data.add(row);
         }
 
@@ -448,21 +1052,31 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     }
 
     /**
-     * 执行LRANGE命令
+     * 执行HMGET命令，每个field一行
      */
-    private void executeListRange(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        Long start = jsonCommand.getLong("start");
-        Long end = jsonCommand.getLong("end");
+    private void executeHashMultiGet(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        List<?> values = (List<?>) call(redis, "HMGET", args, request);
 
-        if (key == null) {
-            throw new IllegalArgumentException("key参数不能为空");
+        List<Map<String, Object>> data = new ArrayList<>(args.size() - 1);
+        for (int i = 1; i < args.size(); i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("field", args.get(i));
+            row.put("value", values.get(i - 1));
+            data.add(row);
         }
 
-        start = start != null ? start : 0;
-        end = end != null ? end : -1;
+        result.setData(data);
+        result.setColumns(Arrays.asList("field", "value"));
+        result.setAffectedRows(data.size());
+    }
 
-        List<String> list = stringRedisTemplate.opsForList().range(key, start, end);
+    /**
+     * 执行LRANGE命令
+     */
+    private void executeListRange(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        parseLong(args.get(1));
+        parseLong(args.get(2));
+        List<?> list = (List<?>) call(redis, "LRANGE", args, request);
 
         List<Map<String, Object>> data = new ArrayList<>();
         if (list != null) {
@@ -482,53 +1096,24 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     /**
      * 执行LPUSH/RPUSH命令
      */
-    private void executeListPush(JSONObject jsonCommand, SqlResult result, String operation) {
-        String key = jsonCommand.getString("key");
-        JSONArray values = jsonCommand.getJSONArray("values");
-        String value = jsonCommand.getString("value");
-
-        if (key == null) {
-            throw new IllegalArgumentException("key参数不能为空");
-        }
-
-        long count;
-        if ("LPUSH".equals(operation)) {
-            if (values != null && !values.isEmpty()) {
-                count = stringRedisTemplate.opsForList().leftPushAll(key, values.toArray(new String[0]));
-            } else if (value != null) {
-                count = stringRedisTemplate.opsForList().leftPush(key, value);
-            } else {
-                throw new IllegalArgumentException("value或values参数不能为空");
-            }
-        } else {
-            if (values != null && !values.isEmpty()) {
-                count = stringRedisTemplate.opsForList().rightPushAll(key, values.toArray(new String[0]));
-            } else if (value != null) {
-                count = stringRedisTemplate.opsForList().rightPush(key, value);
-            } else {
-                throw new IllegalArgumentException("value或values参数不能为空");
-            }
-        }
+    private void executeListPush(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request,
+                                 boolean left) {
+        Long count = (Long) call(redis, left ? "LPUSH" : "RPUSH", args, request);
 
         result.setData(new ArrayList<>());
         result.setColumns(new ArrayList<>());
-        result.setAffectedRows((int) count);
+        result.setAffectedRows(count != null ? count.intValue() : 0);
     }
 
     /**
      * 执行SMEMBERS命令
      */
-    private void executeSetMembers(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
-        }
-
-        Set<String> members = stringRedisTemplate.opsForSet().members(key);
+    private void executeSetMembers(StringRedisTemplate redis, String key, SqlResult result, SqlRequest request) {
+        List<?> members = (List<?>) call(redis, "SMEMBERS", Collections.singletonList(key), request);
 
         List<Map<String, Object>> data = new ArrayList<>();
         if (members != null) {
-            for (String member : members) {
+            for (Object member : members) {
                 Map<String, Object> row = new LinkedHashMap<>();
                 row.put("value", member);
                 data.add(row);
@@ -543,39 +1128,75 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     /**
      * 执行SADD命令
      */
-    private void executeSetAdd(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        JSONArray values = jsonCommand.getJSONArray("values");
-        String value = jsonCommand.getString("value");
+    private void executeSetAdd(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        Long count = (Long) call(redis, "SADD", args, request);
 
-        if (key == null) {
-            throw new IllegalArgumentException("key参数不能为空");
+        result.setData(new ArrayList<>());
+        result.setColumns(new ArrayList<>());
+        result.setAffectedRows(count != null ? count.intValue() : 0);
+    }
+
+    /**
+     * 执行ZRANGE/ZREVRANGE/ZRANGEBYSCORE命令，带WITHSCORES时返回member和score两列
+     */
+    private void executeZRange(StringRedisTemplate redis, String name, List<String> args, SqlResult result,
+                               SqlRequest request) {
+        boolean withScores = false;
+        for (int i = 3; i < args.size(); i++) {
+            if ("WITHSCORES".equalsIgnoreCase(args.get(i))) {
+                withScores = true;
+            }
         }
+        List<?> reply = (List<?>) call(redis, name, args, request);
 
-        long count;
-        if (values != null && !values.isEmpty()) {
-            count = stringRedisTemplate.opsForSet().add(key, values.toArray(new String[0]));
-        } else if (value != null) {
-            count = stringRedisTemplate.opsForSet().add(key, value);
-        } else {
-            throw new IllegalArgumentException("value或values参数不能为空");
+        int step = withScores ? 2 : 1;
+        List<Map<String, Object>> data = new ArrayList<>(reply.size() / step);
+        for (int i = 0; i + step <= reply.size(); i += step) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("member", reply.get(i));
+            if (withScores) {
+                row.put("score", reply.get(i + 1));
+            }
+            data.add(row);
         }
 
-        result.setData(new ArrayList<>());
-        result.setColumns(new ArrayList<>());
-        result.setAffectedRows((int) count);
+        result.setData(data);
+        result.setColumns(withScores ? Arrays.asList("member", "score") : Collections.singletonList("member"));
+        result.setAffectedRows(data.size());
     }
 
     /**
-     * 执行TTL命令
+     * 执行XRANGE/XREVRANGE命令，每条消息一行：id和字段
      */
-    private void executeTTL(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("key参数不能为空");
+    private void executeStreamRange(StringRedisTemplate redis, String name, List<String> args, SqlResult result,
+                                    SqlRequest request) {
+        List<?> reply = (List<?>) call(redis, name, args, request);
+
+        List<Map<String, Object>> data = new ArrayList<>(reply.size());
+        for (Object item : reply) {
+            List<?> entry = (List<?>) item;
+            List<?> pairs = (List<?>) entry.get(1);
+            Map<Object, Object> fields = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < pairs.size(); i += 2) {
+                fields.put(pairs.get(i), pairs.get(i + 1));
+            }
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", entry.get(0));
+            row.put("fields", fields);
+            data.add(row);
         }
 
-        Long ttl = stringRedisTemplate.getExpire(key, TimeUnit.SECONDS);
+        result.setData(data);
+        result.setColumns(Arrays.asList("id", "fields"));
+        result.setAffectedRows(data.size());
+    }
+
+    /**
+     * 执行TTL命令
+     */
+    private void executeTTL(StringRedisTemplate redis, String key, SqlResult result, SqlRequest request) {
+        Object ttl = call(redis, "TTL", Collections.singletonList(key), request);
 
         Map<String, Object> data = new LinkedHashMap<>();
         data.put("key", key);
@@ -589,24 +1210,201 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
     /**
      * 执行EXPIRE命令
      */
-    private void executeExpire(JSONObject jsonCommand, SqlResult result) {
-        String key = jsonCommand.getString("key");
-        Long seconds = jsonCommand.getLong("seconds");
-
-        if (key == null || seconds == null) {
-            throw new IllegalArgumentException("key和seconds参数不能为空");
-        }
-
-        Boolean success = stringRedisTemplate.expire(key, seconds, TimeUnit.SECONDS);
+    private void executeExpire(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request) {
+        parseLong(args.get(1));
+        Long success = (Long) call(redis, "EXPIRE", args, request);
 
         result.setData(new ArrayList<>());
         result.setColumns(new ArrayList<>());
-        result.setAffectedRows(success != null && success ? 1 : 0);
+        result.setAffectedRows(success != null && success > 0 ? 1 : 0);
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数必须是整数: " + value);
+        }
     }
 
     @Override
-    public boolean support(String dataSourceType) {
-        return DataSourceType.REDIS.getCode().equalsIgnoreCase(dataSourceType);
+    public DataSourceType getDataSourceType() {
+        return DataSourceType.REDIS;
+    }
+
+    /**
+     * 命令处理器，args不含命令名
+     */
+    @FunctionalInterface
+    private interface CommandHandler {
+        void handle(StringRedisTemplate redis, List<String> args, SqlResult result, SqlRequest request);
+    }
+
+    /**
+     * 命令定义
+     */
+    private static class RedisCommand {
+
+        private final String name;
+
+        /**
+         * 命令格式，参数个数不对时提示
+         */
+        private final String usage;
+
+        private final int minArgs;
+
+        /**
+         * 最多参数个数，-1表示不限
+         */
+        private final int maxArgs;
+
+        /**
+         * 是否允许在管道/事务中执行
+         */
+        private final boolean pipelined;
+
+        private final CommandHandler handler;
+
+        RedisCommand(String name, String usage, int minArgs, int maxArgs, boolean pipelined, CommandHandler handler) {
+            this.name = name;
+            this.usage = usage;
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+            this.pipelined = pipelined;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * 解析后的一次命令调用
+     */
+    private static class CommandCall {
+
+        private final RedisCommand command;
+
+        private final List<String> args;
+
+        CommandCall(RedisCommand command, List<String> args) {
+            this.command = command;
+            this.args = args;
+        }
+    }
+
+    /**
+     * SCAN遍历的对象
+     */
+    private enum ScanMode {
+        KEYS(Collections.singletonList("key")),
+        HASH(Arrays.asList("field", "value")),
+        SET(Collections.singletonList("value"));
+
+        private final List<String> columns;
+
+        ScanMode(List<String> columns) {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * SCAN参数
+     */
+    private static class ScanSpec {
+
+        private final ScanMode mode;
+
+        private final String key;
+
+        private final String pattern;
+
+        private final int count;
+
+        /**
+         * 命令中指定的起始游标，可为空
+         */
+        private final String cursor;
+
+        ScanSpec(ScanMode mode, String key, String pattern, int count, String cursor) {
+            this.mode = mode;
+            this.key = key;
+            this.pattern = pattern;
+            this.count = count;
+            this.cursor = cursor;
+        }
+
+        byte[] keyBytes() {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 一次SCAN的结果：行数据和下一批的游标（遍历结束时为null）
+     */
+    private static class ScanBatch {
+
+        private final List<Object[]> rows;
+
+        private final String cursor;
+
+        private ScanBatch(List<Object[]> rows, String cursor) {
+            this.rows = rows;
+            this.cursor = cursor;
+        }
+
+        @SuppressWarnings("unchecked")
+        static ScanBatch of(ScanCursor scanCursor) {
+            List<Object[]> rows = new ArrayList<>();
+            if (scanCursor instanceof MapScanCursor) {
+                for (Map.Entry<byte[], byte[]> entry : ((MapScanCursor<byte[], byte[]>) scanCursor).getMap().entrySet()) {
+                    rows.add(new Object[]{decode(entry.getKey()), decode(entry.getValue())});
+                }
+            } else if (scanCursor instanceof ValueScanCursor) {
+                for (byte[] value : ((ValueScanCursor<byte[]>) scanCursor).getValues()) {
+                    rows.add(new Object[]{decode(value)});
+                }
+            } else {
+                for (byte[] key : ((KeyScanCursor<byte[]>) scanCursor).getKeys()) {
+                    rows.add(new Object[]{decode(key)});
+                }
+            }
+            return new ScanBatch(rows, scanCursor.isFinished() ? null : scanCursor.getCursor());
+        }
+
+        private static String decode(byte[] bytes) {
+            return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+        }
+    }
+
+    /**
+     * 按名称发送的命令，不依赖Lettuce的CommandType枚举
+     */
+    private static class RawCommand implements ProtocolKeyword {
+
+        private final String name;
+
+        private final byte[] bytes;
+
+        private RawCommand(String name) {
+            this.name = name.toUpperCase(Locale.ROOT);
+            this.bytes = this.name.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+
+    /**
+     * 逐行接收SCAN结果
+     */
+    private interface RowSink {
+        void accept(Object[] values) throws IOException;
     }
 
     @Override
@@ -615,4 +1413,3 @@ public class RedisExecutor implements QueryExecutor, InitializingBean {
         log.info("redis 连接初始化后预热,test:{}", testStr);
     }
 }
-
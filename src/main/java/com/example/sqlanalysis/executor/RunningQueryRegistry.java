@@ -0,0 +1,93 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 执行中的查询登记表
+ * 每个查询登记一个queryId（客户端可以自己指定），用于查看执行中的查询和按queryId取消
+ */
+@Component
+public class RunningQueryRegistry {
+
+    /**
+     * 非流式查询的结果行数上限，0表示不限制
+     */
+    @Value("${sql.limit.max-rows:100000}")
+    private long maxRows;
+
+    /**
+     * 非流式查询的结果大小上限（估算字节数），0表示不限制
+     */
+    @Value("${sql.limit.max-result-bytes:268435456}")
+    private long maxResultBytes;
+
+    private final Map<String, QueryContext> running = new ConcurrentHashMap<>();
+
+    /**
+     * 登记查询，上下文保存在请求中；请求已登记时直接返回原上下文
+     * @param streaming 流式查询结果不在内存中累积，不限制行数和大小
+     */
+    public QueryContext register(SqlRequest request, boolean streaming) {
+        if (request.getContext() != null) {
+            return request.getContext();
+        }
+        String queryId = request.getQueryId();
+        if (queryId == null || queryId.trim().isEmpty()) {
+            queryId = UUID.randomUUID().toString().replace("-", "");
+            request.setQueryId(queryId);
+        }
+
+        QueryContext context = new QueryContext(queryId, request.getDataSourceType(), request.getSql(),
+                streaming ? 0 : maxRows, streaming ? 0 : maxResultBytes);
+        if (running.putIfAbsent(queryId, context) != null) {
+            throw new IllegalArgumentException("queryId已存在: " + queryId);
+        }
+        request.setContext(context);
+        return context;
+    }
+
+    /**
+     * 查询结束后移除
+     */
+    public void unregister(QueryContext context) {
+        if (context != null) {
+            running.remove(context.getQueryId(), context);
+        }
+    }
+
+    /**
+     * 取消查询，查询不存在或已结束时返回false
+     */
+    public boolean cancel(String queryId, String reason) {
+        QueryContext context = queryId != null ? running.get(queryId) : null;
+        return context != null && context.cancel(reason);
+    }
+
+    /**
+     * 执行中的查询
+     */
+    public List<Map<String, Object>> list() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> queries = new ArrayList<>(running.size());
+        for (QueryContext context : running.values()) {
+            Map<String, Object> query = new LinkedHashMap<>();
+            query.put("queryId", context.getQueryId());
+            query.put("dataSourceType", context.getDataSourceType());
+            query.put("sql", context.getSql());
+            query.put("runningTime", now - context.getStartTime());
+            query.put("rows", context.getRows());
+            query.put("cancelled", context.isCancelled());
+            queries.add(query);
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.stream.ResultStreamWriter;
+
+/**
+ * 支持流式输出的查询执行器
+ * 结果逐行写出，内存占用与结果行数无关
+ */
+public interface StreamingQueryExecutor extends QueryExecutor {
+
+    /**
+     * 流式执行查询
+     * @param request 请求对象
+     * @param writer 结果写出器
+     */
+    void executeStream(SqlRequest request, ResultStreamWriter writer);
+}
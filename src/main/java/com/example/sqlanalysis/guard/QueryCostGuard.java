@@ -0,0 +1,172 @@
+package com.example.sqlanalysis.guard;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.GuardAction;
+import com.example.sqlanalysis.executor.CostEstimate;
+import com.example.sqlanalysis.executor.CostEstimatingExecutor;
+import com.example.sqlanalysis.executor.QueryExecutor;
+import com.example.sqlanalysis.metrics.QueryMetrics;
+import com.example.sqlanalysis.metrics.StatementFingerprint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行前的代价守卫
+ * 执行前估算语句的扫描行数（MySQL EXPLAIN、MongoDB explain、Redis集合大小），超过 sql.guard.max-rows 时按
+ * sql.guard.action 拒绝执行、自动分页或放入低优先级队列；估算结果按语句指纹缓存，相同语句不重复EXPLAIN
+ */
+@Slf4j
+@Component
+public class QueryCostGuard {
+
+    @Autowired
+    private QueryMetrics queryMetrics;
+
+    /**
+     * 是否启用
+     */
+    @Value("${sql.guard.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 估算扫描行数上限
+     */
+    @Value("${sql.guard.max-rows:1000000}")
+    private long maxRows;
+
+    /**
+     * 超过上限时的处理方式：reject/limit/queue，默认拒绝；limit会改变结果行数，需要显式开启
+     */
+    @Value("${sql.guard.action:reject}")
+    private String action;
+
+    /**
+     * 自动分页时每页的行数
+     */
+    @Value("${sql.guard.auto-limit:1000}")
+    private int autoLimit;
+
+    /**
+     * 估算结果的缓存时间（秒）
+     */
+    @Value("${sql.guard.estimate-ttl:300}")
+    private long estimateTtl;
+
+    /**
+     * 估算（EXPLAIN）的超时时间（秒）
+     */
+    @Value("${sql.guard.estimate-timeout:5}")
+    private int estimateTimeout;
+
+    private GuardAction guardAction;
+
+    private Cache<String, CostEstimate> estimates;
+
+    @PostConstruct
+    public void init() {
+        guardAction = GuardAction.fromCode(action);
+        estimates = Caffeine.newBuilder()
+                .expireAfterWrite(estimateTtl, TimeUnit.SECONDS)
+                .maximumSize(10000)
+                .build();
+    }
+
+    /**
+     * 检查前是否需要估算（没有缓存的估算结果），需要时由调用方在估算线程池中调用check，避免阻塞请求线程
+     */
+    public boolean requiresEstimate(QueryExecutor executor, SqlRequest request) {
+        if (!enabled || !(executor instanceof CostEstimatingExecutor) || request.getSql() == null) {
+            return false;
+        }
+        return estimates.getIfPresent(estimateKey(executor.getDataSourceType(), request)) == null;
+    }
+
+    /**
+     * 执行前检查语句的代价
+     * - 拒绝时抛出参数异常
+     * - 自动分页时把请求的pageSize设为 sql.guard.auto-limit
+     * @return 采取的处理方式，未超过上限时返回null
+     */
+    public GuardAction check(QueryExecutor executor, SqlRequest request) {
+        if (!enabled || !(executor instanceof CostEstimatingExecutor) || request.getSql() == null) {
+            return null;
+        }
+        CostEstimate estimate = estimate((CostEstimatingExecutor) executor, request);
+        if (estimate == null || estimate.getRows() < maxRows) {
+            return null;
+        }
+        // 带LIMIT或分页、又不需要全量排序时，读够行数就会停止扫描
+        boolean paged = request.getPageSize() != null || request.getCursor() != null;
+        if ((estimate.isBounded() || paged) && !estimate.isFullSort()) {
+            return null;
+        }
+
+        String dataSourceType = executor.getDataSourceType().getCode();
+        GuardAction taken = guardAction;
+        if (taken == GuardAction.LIMIT
+                && (!estimate.isLimitable() || estimate.isBounded() || paged || request.getPage() != null)) {
+            // 写语句、Redis命令以及已经带LIMIT或分页的查询不能再通过分页减少扫描
+            taken = GuardAction.REJECT;
+        }
+        queryMetrics.recordGuard(dataSourceType, taken.getCode());
+
+        switch (taken) {
+            case LIMIT:
+                request.setPageSize(autoLimit);
+                log.warn("语句估算扫描{}行，超过上限{}行，自动限制为前{}行: {}", estimate.getRows(), maxRows, autoLimit,
+                        request.getSql());
+                return taken;
+            case QUEUE:
+                log.warn("语句估算扫描{}行，超过上限{}行，放入低优先级队列: {}", estimate.getRows(), maxRows, request.getSql());
+                return taken;
+            default:
+                log.warn("语句估算扫描{}行，超过上限{}行，拒绝执行: {}", estimate.getRows(), maxRows, request.getSql());
+                throw new IllegalArgumentException("语句估算扫描" + estimate.getRows() + "行，超过上限" + maxRows
+                        + "行，已拒绝执行；请增加过滤条件或使用流式查询、异步任务");
+        }
+    }
+
+    /**
+     * 估算语句代价，按数据源和语句指纹缓存
+     * Redis按完整命令缓存（指纹去掉了键名，不同键的大小不同），估算失败时不拦截，由执行阶段报告错误
+     */
+    private CostEstimate estimate(CostEstimatingExecutor executor, SqlRequest request) {
+        String key = estimateKey(executor.getDataSourceType(), request);
+        CostEstimate cached = estimates.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        SqlRequest estimateRequest = new SqlRequest();
+        estimateRequest.setDataSourceType(request.getDataSourceType());
+        estimateRequest.setDataSource(request.getDataSource());
+        estimateRequest.setSql(request.getSql());
+        estimateRequest.setParams(request.getParams());
+        estimateRequest.setSessionId(request.getSessionId());
+        estimateRequest.setTimeout(estimateTimeout);
+        try {
+            CostEstimate estimate = executor.estimateCost(estimateRequest);
+            if (estimate != null) {
+                estimates.put(key, estimate);
+            }
+            return estimate;
+        } catch (RuntimeException e) {
+            log.warn("估算语句代价失败，跳过检查: {}, 错误: {}", request.getSql(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String estimateKey(DataSourceType type, SqlRequest request) {
+        String statement = type == DataSourceType.REDIS
+                ? request.getSql() : StatementFingerprint.of(type, request.getSql()).getId();
+        return type.getCode() + ':' + request.getDataSource() + ':' + statement;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.sqlanalysis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询执行指标（Micrometer，通过 /actuator/prometheus 导出）
+ * - sql.query：每次执行的耗时，按数据源、SQL类型、结果（success/error/cancelled/cached）区分，带直方图和p50/p99/p999
+ * - sql.query.statement：按语句指纹区分的耗时，指纹个数超过上限后归入other
+ * - sql.query.rows / sql.query.result.bytes：返回的行数和结果大小（估算字节数）
+ * - sql.execution.queue.wait / sql.execution.rejected：执行线程池的排队时间和拒绝次数
+ * - sql.guard.actions：代价守卫拒绝、自动分页、放入低优先级队列的语句数
+ * 分位数由Micrometer基于HdrHistogram的滑动窗口直方图计算
+ */
+@Component
+public class QueryMetrics {
+
+    private static final String OTHER = "other";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * 按语句指纹统计时最多区分的指纹个数，控制指标的时间序列数
+     */
+    @Value("${sql.metrics.max-fingerprints:200}")
+    private int maxFingerprints;
+
+    private final Set<String> fingerprints = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 记录一次查询
+     * @param dataSource 数据源类型
+     * @param target 命名数据源，默认数据源为null
+     * @param sqlType SQL类型
+     * @param fingerprint 语句指纹，为null时不记录按语句的耗时（如命中缓存）
+     * @param outcome 结果：success/error/cancelled/cached
+     */
+    public void recordQuery(String dataSource, String target, String sqlType, StatementFingerprint fingerprint,
+                            String outcome, long nanos) {
+        Timer.builder("sql.query")
+                .description("查询执行耗时")
+                .tag("datasource", dataSource)
+                .tag("target", target != null ? target : "default")
+                .tag("sqlType", sqlType)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        if (fingerprint != null) {
+            // 按语句只输出分位数，不输出直方图桶，避免时间序列过多
+            Timer.builder("sql.query.statement")
+                    .description("按语句指纹的查询执行耗时")
+                    .tag("datasource", dataSource)
+                    .tag("fingerprint", admit(fingerprint.getId()))
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录查询结果的行数和大小
+     */
+    public void recordResult(String dataSource, String sqlType, long rows, long bytes) {
+        DistributionSummary.builder("sql.query.rows")
+                .description("查询返回的行数")
+                .tag("datasource", dataSource)
+                .tag("sqlType", sqlType)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(rows);
+        DistributionSummary.builder("sql.query.result.bytes")
+                .description("查询结果大小（估算字节数）")
+                .baseUnit("bytes")
+                .tag("datasource", dataSource)
+                .tag("sqlType", sqlType)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * 记录在执行线程池中的排队时间
+     */
+    public void recordQueueWait(String dataSource, long nanos) {
+        Timer.builder("sql.execution.queue.wait")
+                .description("查询在执行线程池中的排队时间")
+                .tag("datasource", dataSource)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录执行线程池队列已满被拒绝的查询
+     */
+    public void recordRejected(String dataSource) {
+        Counter.builder("sql.execution.rejected")
+                .description("执行队列已满被拒绝的查询数")
+                .tag("datasource", dataSource)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 记录代价守卫对超过上限的语句采取的处理（reject/limit/queue）
+     */
+    public void recordGuard(String dataSource, String action) {
+        Counter.builder("sql.guard.actions")
+                .description("估算代价超过上限的语句数")
+                .tag("datasource", dataSource)
+                .tag("action", action)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * 指纹个数未达上限时登记并返回原值，否则返回other
+     */
+    private String admit(String fingerprintId) {
+        if (fingerprints.contains(fingerprintId)) {
+            return fingerprintId;
+        }
+        if (fingerprints.size() < maxFingerprints && fingerprints.add(fingerprintId)) {
+            return fingerprintId;
+        }
+        return fingerprints.contains(fingerprintId) ? fingerprintId : OTHER;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.sqlanalysis.metrics;
+
+import com.alibaba.fastjson.JSON;
+import com.example.sqlanalysis.entity.SlowQuery;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.executor.MySQLExecutor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢查询日志
+ * 耗时超过 sql.slow-query.threshold 毫秒的查询记WARN日志并保留最近的若干条；
+ * MySQL慢查询在后台线程获取EXPLAIN执行计划，同一指纹在 sql.slow-query.explain-interval 秒内只获取一次
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+
+    /**
+     * 获取执行计划的超时时间（秒）
+     */
+    private static final int EXPLAIN_TIMEOUT = 10;
+
+    @Autowired
+    private MySQLExecutor mySQLExecutor;
+
+    @Autowired
+    @Qualifier("explainTaskExecutor")
+    private ThreadPoolTaskExecutor explainTaskExecutor;
+
+    /**
+     * 慢查询阈值（毫秒），0表示不记录
+     */
+    @Value("${sql.slow-query.threshold:1000}")
+    private long thresholdMillis;
+
+    /**
+     * 保留的最近慢查询条数
+     */
+    @Value("${sql.slow-query.max-entries:100}")
+    private int maxEntries;
+
+    /**
+     * 是否为MySQL慢查询获取执行计划
+     */
+    @Value("${sql.slow-query.explain:true}")
+    private boolean explainEnabled;
+
+    /**
+     * 同一指纹获取执行计划的最小间隔（秒）
+     */
+    @Value("${sql.slow-query.explain-interval:300}")
+    private long explainIntervalSeconds;
+
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+    /**
+     * 最近获取过执行计划的指纹
+     */
+    private Cache<String, Boolean> explained;
+
+    @PostConstruct
+    public void init() {
+        explained = Caffeine.newBuilder()
+                .expireAfterWrite(explainIntervalSeconds, TimeUnit.SECONDS)
+                .maximumSize(10000)
+                .build();
+    }
+
+    /**
+     * 检查一次执行，超过阈值时记为慢查询
+     * @param outcome 结果：success/error/cancelled
+     */
+    public void record(SqlRequest request, DataSourceType type, StatementFingerprint fingerprint, String outcome,
+                       long nanos, long rows, long bytes) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (thresholdMillis <= 0 || millis < thresholdMillis) {
+            return;
+        }
+
+        SlowQuery slowQuery = new SlowQuery();
+        slowQuery.setQueryId(request.getContext() != null ? request.getContext().getQueryId() : request.getQueryId());
+        slowQuery.setDataSourceType(type.getCode());
+        slowQuery.setDataSource(request.getDataSource());
+        slowQuery.setFingerprint(fingerprint.getId());
+        slowQuery.setSql(request.getSql());
+        slowQuery.setOutcome(outcome);
+        slowQuery.setExecutionTime(millis);
+        slowQuery.setRows(rows);
+        slowQuery.setBytes(bytes);
+        slowQuery.setFinishTime(System.currentTimeMillis());
+        log.warn("慢查询: {}ms, 数据源类型: {}, 数据源: {}, 结果: {}, 行数: {}, 指纹: {}, 语句: {}", millis, type.getCode(),
+                request.getDataSource(), outcome, rows, fingerprint.getId(), request.getSql());
+
+        synchronized (recent) {
+            recent.addFirst(slowQuery);
+            while (recent.size() > maxEntries) {
+                recent.removeLast();
+            }
+        }
+
+        if (explainEnabled && type == DataSourceType.MYSQL && isExplainable(fingerprint)
+                && explained.asMap().putIfAbsent(fingerprint.getId(), Boolean.TRUE) == null) {
+            explainLater(request, slowQuery);
+        }
+    }
+
+    /**
+     * 最近的慢查询，按时间从新到旧
+     */
+    public List<SlowQuery> list() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    /**
+     * 清空慢查询记录
+     */
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+        explained.invalidateAll();
+    }
+
+    /**
+     * 在后台线程获取执行计划，不占用查询线程
+     */
+    private void explainLater(SqlRequest request, SlowQuery slowQuery) {
+        SqlRequest explainRequest = new SqlRequest();
+        explainRequest.setDataSource(request.getDataSource());
+        explainRequest.setSql(request.getSql());
+        explainRequest.setParams(request.getParams());
+        explainRequest.setSessionId(request.getSessionId());
+        explainRequest.setTimeout(EXPLAIN_TIMEOUT);
+        try {
+            explainTaskExecutor.execute(() -> {
+                try {
+                    slowQuery.setExplain(mySQLExecutor.explain(explainRequest));
+                    log.warn("慢查询执行计划, 指纹: {}, 计划: {}", slowQuery.getFingerprint(),
+                            JSON.toJSONString(slowQuery.getExplain()));
+                } catch (RuntimeException e) {
+                    slowQuery.setExplainError(e.getMessage());
+                    log.warn("获取慢查询执行计划失败, 指纹: {}, 错误: {}", slowQuery.getFingerprint(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 下次再出现时重新获取
+            explained.invalidate(slowQuery.getFingerprint());
+            slowQuery.setExplainError("执行计划队列已满");
+        }
+    }
+
+    private static boolean isExplainable(StatementFingerprint fingerprint) {
+        String kind = fingerprint.getKind();
+        return "SELECT".equals(kind) || "INSERT".equals(kind) || "UPDATE".equals(kind) || "DELETE".equals(kind);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.sqlanalysis.metrics;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.executor.RedisCommandTokenizer;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 语句指纹：去掉字面量、统一空白和大小写后的语句
+ * 只有参数不同的语句得到相同的指纹，用于按语句聚合监控指标和慢查询统计
+ * <pre>
+ * SELECT * FROM users WHERE id = 42 AND name IN ('a', 'b')
+ *   -> select * from users where id = ? and name in (?+)
+ * {"collection": "users", "query": {"age": {"$gt": 25}}}
+ *   -> {"collection":"users","query":{"age":{"$gt":"?"}}}
+ * HGET user:1 name
+ *   -> HGET ? ?
+ * </pre>
+ */
+public final class StatementFingerprint {
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+    private static final Pattern LINE_COMMENT = Pattern.compile("(--\\s|#)[^\\n]*");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.|\"\")*\"");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile(
+            "(?<![\\w$.?])(?:0x[0-9a-f]+|-?\\d+(?:\\.\\d+)?(?:e[+-]?\\d+)?)(?![\\w$])", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Pattern MULTI_ROW_VALUES = Pattern.compile("\\(\\?\\+\\)(?:\\s*,\\s*\\(\\?\\+\\))+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 作为SQL类型的语句关键字，其它语句归为OTHER（控制指标标签的取值个数）
+     */
+    private static final Set<String> SQL_KINDS = new HashSet<>(Arrays.asList(
+            "SELECT", "INSERT", "UPDATE", "DELETE", "REPLACE", "CREATE", "DROP", "ALTER", "TRUNCATE",
+            "SHOW", "DESC", "DESCRIBE", "EXPLAIN", "WITH", "CALL", "SET"));
+
+    private static final Set<String> MONGO_OPERATIONS = new HashSet<>(Arrays.asList(
+            "find", "count", "aggregate", "insert", "update", "delete"));
+
+    /**
+     * 指纹ID：规范化文本的MD5前16位
+     */
+    private final String id;
+
+    /**
+     * 规范化后的语句
+     */
+    private final String text;
+
+    /**
+     * 语句类型，如SELECT、MONGODB_FIND、REDIS_GET
+     */
+    private final String kind;
+
+    private StatementFingerprint(String text, String kind) {
+        this.text = text;
+        this.kind = kind;
+        this.id = DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * 计算语句指纹，无法解析的语句按原文规范化空白
+     */
+    public static StatementFingerprint of(DataSourceType type, String statement) {
+        String trimmed = statement != null ? statement.trim() : "";
+        switch (type) {
+            case MONGODB:
+                return mongo(trimmed);
+            case REDIS:
+                return redis(trimmed);
+            default:
+                return sql(trimmed);
+        }
+    }
+
+    private static StatementFingerprint sql(String statement) {
+        // 先替换字符串，字符串中的#、--不当作注释
+        String text = BLOCK_COMMENT.matcher(statement).replaceAll(" ");
+        text = STRING_LITERAL.matcher(text).replaceAll("?");
+        text = LINE_COMMENT.matcher(text).replaceAll(" ");
+        text = NUMBER_LITERAL.matcher(text).replaceAll("?");
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        // IN列表、多行VALUES的元素个数不同也视为同一语句
+        text = VALUE_LIST.matcher(text).replaceAll("(?+)");
+        text = MULTI_ROW_VALUES.matcher(text).replaceAll("(?+)");
+        while (text.endsWith(";")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+
+        int space = text.indexOf(' ');
+        String keyword = (space > 0 ? text.substring(0, space) : text).toUpperCase(Locale.ROOT);
+        return new StatementFingerprint(text, SQL_KINDS.contains(keyword) ? keyword : "OTHER");
+    }
+
+    /**
+     * MongoDB命令：保留collection、operation和查询结构，其它值替换为?
+     */
+    private static StatementFingerprint mongo(String statement) {
+        JSONObject command;
+        try {
+            command = JSON.parseObject(statement, Feature.OrderedField);
+        } catch (Exception e) {
+            command = null;
+        }
+        if (command == null) {
+            return new StatementFingerprint(WHITESPACE.matcher(statement).replaceAll(" "), "MONGODB_OTHER");
+        }
+
+        JSONObject shape = new JSONObject(true);
+        for (Map.Entry<String, Object> entry : command.entrySet()) {
+            String key = entry.getKey();
+            boolean keep = "collection".equals(key) || "operation".equals(key);
+            shape.put(key, keep ? entry.getValue() : shapeOf(entry.getValue()));
+        }
+        String operation = command.getString("operation");
+        operation = operation != null ? operation.toLowerCase(Locale.ROOT) : "find";
+        String kind = MONGO_OPERATIONS.contains(operation) ? "MONGODB_" + operation.toUpperCase(Locale.ROOT) : "MONGODB_OTHER";
+        return new StatementFingerprint(shape.toJSONString(), kind);
+    }
+
+    /**
+     * 字符串形式的query/pipeline先解析再替换；全是标量的数组（如$in）合并为一个?
+     */
+    private static Object shapeOf(Object value) {
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.startsWith("{") || text.startsWith("[")) {
+                try {
+                    return shapeOf(JSON.parse(text, Feature.OrderedField));
+                } catch (Exception e) {
+                    return "?";
+                }
+            }
+            return "?";
+        }
+        if (value instanceof Map) {
+            JSONObject shape = new JSONObject(true);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                shape.put(String.valueOf(entry.getKey()), shapeOf(entry.getValue()));
+            }
+            return shape;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            JSONArray shape = new JSONArray();
+            boolean scalars = true;
+            for (Object item : list) {
+                if (item instanceof Map || item instanceof List) {
+                    scalars = false;
+                    break;
+                }
+            }
+            if (scalars) {
+                shape.add("?+");
+                return shape;
+            }
+            for (Object item : list) {
+                shape.add(shapeOf(item));
+            }
+            return shape;
+        }
+        return "?";
+    }
+
+    /**
+     * Redis命令：命令名加参数个数个?，多条命令按行合并命令名
+     */
+    private static StatementFingerprint redis(String statement) {
+        // 单条JSON命令可能格式化成多行，先于多条命令判断
+        if (statement.startsWith("{")) {
+            JSONObject command;
+            try {
+                command = JSON.parseObject(statement);
+            } catch (Exception e) {
+                command = null;
+            }
+            String name = command != null ? command.getString("command") : null;
+            return new StatementFingerprint(name != null ? name.toUpperCase(Locale.ROOT) + " {json}" : "{json}", "REDIS");
+        }
+        if (statement.startsWith("[") || statement.indexOf('\n') >= 0) {
+            StringBuilder text = new StringBuilder("PIPELINE");
+            for (String line : statement.split("\n")) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                int space = trimmed.indexOf(' ');
+                text.append(' ').append((space > 0 ? trimmed.substring(0, space) : trimmed).toUpperCase(Locale.ROOT));
+            }
+            return new StatementFingerprint(text.toString(), "REDIS_PIPELINE");
+        }
+
+        List<String> argv;
+        try {
+            argv = RedisCommandTokenizer.tokenize(statement);
+        } catch (IllegalArgumentException e) {
+            argv = Arrays.asList(WHITESPACE.split(statement));
+        }
+        if (argv.isEmpty()) {
+            return new StatementFingerprint("", "REDIS");
+        }
+        StringBuilder text = new StringBuilder(argv.get(0).toUpperCase(Locale.ROOT));
+        for (int i = 1; i < argv.size(); i++) {
+            text.append(" ?");
+        }
+        return new StatementFingerprint(text.toString(), "REDIS");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+}
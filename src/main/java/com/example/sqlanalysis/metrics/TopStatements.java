@@ -0,0 +1,172 @@
+package com.example.sqlanalysis.metrics;
+
+import com.example.sqlanalysis.entity.StatementStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按语句指纹汇总执行次数、耗时、行数和结果大小，找出开销最大的语句
+ * 内存有界：最多统计 sql.statement-stats.capacity 个指纹，满了以后按累计耗时做加权Space-Saving——
+ * 淘汰累计耗时最少的指纹，新指纹继承它的累计耗时作为误差（timeError），
+ * 偶尔出现的便宜语句不断被替换，累计耗时高的语句始终保留
+ */
+@Component
+public class TopStatements {
+
+    /**
+     * 统计样例语句的最大长度
+     */
+    private static final int MAX_SAMPLE_LENGTH = 1000;
+
+    /**
+     * 最多统计的指纹个数
+     */
+    @Value("${sql.statement-stats.capacity:500}")
+    private int capacity;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * 记录一次执行
+     * @param dataSourceType 数据源类型
+     * @param fingerprint 语句指纹
+     * @param sql 原始语句
+     * @param failed 是否失败（含取消）
+     */
+    public synchronized void record(String dataSourceType, StatementFingerprint fingerprint, String sql, boolean failed,
+                                    long nanos, long rows, long bytes) {
+        String key = dataSourceType + ':' + fingerprint.getId();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            long inherited = 0;
+            if (entries.size() >= capacity) {
+                Entry min = null;
+                for (Entry candidate : entries.values()) {
+                    if (min == null || candidate.weight() < min.weight()) {
+                        min = candidate;
+                    }
+                }
+                entries.remove(min.key);
+                inherited = min.weight();
+            }
+            entry = new Entry(key, dataSourceType, fingerprint, inherited);
+            entries.put(key, entry);
+        }
+
+        entry.count++;
+        if (failed) {
+            entry.errorCount++;
+        }
+        entry.totalNanos += nanos;
+        entry.maxNanos = Math.max(entry.maxNanos, nanos);
+        entry.rows += rows;
+        entry.bytes += bytes;
+        entry.sample = sql != null && sql.length() > MAX_SAMPLE_LENGTH ? sql.substring(0, MAX_SAMPLE_LENGTH) : sql;
+        entry.lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * 按指定字段从大到小返回前limit个指纹
+     * @param orderBy 排序字段：totalTime（默认）、count、avgTime、maxTime、rows、bytes
+     */
+    public List<StatementStats> top(int limit, String orderBy) {
+        Comparator<StatementStats> comparator = comparator(orderBy);
+        List<StatementStats> list = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                list.add(entry.toStats());
+            }
+        }
+        list.sort(comparator.reversed());
+        return list.size() > limit ? new ArrayList<>(list.subList(0, limit)) : list;
+    }
+
+    /**
+     * 清空统计
+     */
+    public synchronized void reset() {
+        entries.clear();
+    }
+
+    private static Comparator<StatementStats> comparator(String orderBy) {
+        if (orderBy == null || orderBy.isEmpty() || "totalTime".equals(orderBy)) {
+            return Comparator.comparing(StatementStats::getTotalTime);
+        }
+        switch (orderBy) {
+            case "count":
+                return Comparator.comparing(StatementStats::getCount);
+            case "avgTime":
+                return Comparator.comparing(StatementStats::getAvgTime);
+            case "maxTime":
+                return Comparator.comparing(StatementStats::getMaxTime);
+            case "rows":
+                return Comparator.comparing(StatementStats::getRows);
+            case "bytes":
+                return Comparator.comparing(StatementStats::getBytes);
+            default:
+                throw new IllegalArgumentException("不支持的排序字段: " + orderBy
+                        + "，可选值: totalTime、count、avgTime、maxTime、rows、bytes");
+        }
+    }
+
+    private static final class Entry {
+
+        private final String key;
+        private final String dataSourceType;
+        private final StatementFingerprint fingerprint;
+        /**
+         * 从被淘汰的指纹继承的累计耗时
+         */
+        private final long inheritedNanos;
+        private final long firstSeen = System.currentTimeMillis();
+        private long count;
+        private long errorCount;
+        private long totalNanos;
+        private long maxNanos;
+        private long rows;
+        private long bytes;
+        private String sample;
+        private long lastSeen;
+
+        private Entry(String key, String dataSourceType, StatementFingerprint fingerprint, long inheritedNanos) {
+            this.key = key;
+            this.dataSourceType = dataSourceType;
+            this.fingerprint = fingerprint;
+            this.inheritedNanos = inheritedNanos;
+        }
+
+        /**
+         * 淘汰时比较的权重：继承的耗时 + 自身累计耗时
+         */
+        private long weight() {
+            return inheritedNanos + totalNanos;
+        }
+
+        private StatementStats toStats() {
+            StatementStats stats = new StatementStats();
+            stats.setFingerprint(fingerprint.getId());
+            stats.setStatement(fingerprint.getText());
+            stats.setSample(sample);
+            stats.setDataSourceType(dataSourceType);
+            stats.setSqlType(fingerprint.getKind());
+            stats.setCount(count);
+            stats.setErrorCount(errorCount);
+            stats.setTotalTime(TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            stats.setAvgTime(count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos / count) : 0L);
+            stats.setMaxTime(TimeUnit.NANOSECONDS.toMillis(maxNanos));
+            stats.setRows(rows);
+            stats.setBytes(bytes);
+            stats.setTimeError(TimeUnit.NANOSECONDS.toMillis(inheritedNanos));
+            stats.setFirstSeen(firstSeen);
+            stats.setLastSeen(lastSeen);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.sqlanalysis.service;
+
+import com.example.sqlanalysis.common.Pagination;
+import com.example.sqlanalysis.common.ResultCollector;
+import com.example.sqlanalysis.entity.QueryJob;
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.JobStatus;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.example.sqlanalysis.executor.RunningQueryRegistry;
+import com.example.sqlanalysis.stream.SpoolResultReader;
+import com.example.sqlanalysis.stream.SpoolResultStreamWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步查询任务服务
+ * 提交后在任务线程池中以流式方式执行，结果逐行写入本地文件（不占用内存），完成后按页读取；
+ * 结果保留 sql.job.ttl 秒，过期后任务和文件一起清理
+ */
+@Slf4j
+@Service
+public class QueryJobService {
+
+    /**
+     * 获取结果时的默认每页行数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private SqlExecutionService sqlExecutionService;
+
+    @Autowired
+    private RunningQueryRegistry runningQueries;
+
+    @Autowired
+    @Qualifier("jobTaskExecutor")
+    private ThreadPoolTaskExecutor jobTaskExecutor;
+
+    /**
+     * 结果文件目录
+     */
+    @Value("${sql.job.spool-dir:${java.io.tmpdir}/sql-analysis-jobs}")
+    private String spoolDir;
+
+    /**
+     * 任务结束后结果保留时间（秒）
+     */
+    @Value("${sql.job.ttl:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 单个任务结果文件大小上限（字节），超过时任务失败
+     */
+    @Value("${sql.job.max-result-bytes:1073741824}")
+    private long maxResultBytes;
+
+    /**
+     * 保留的任务数上限（含已结束未过期的任务）
+     */
+    @Value("${sql.job.max-jobs:1000}")
+    private int maxJobs;
+
+    private final Map<String, QueryJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 执行中任务的写出器，用于查询进度
+     */
+    private final Map<String, SpoolResultStreamWriter> runningWriters = new ConcurrentHashMap<>();
+
+    private Path spoolPath;
+
+    @PostConstruct
+    public void initSpoolDir() throws IOException {
+        spoolPath = Paths.get(spoolDir);
+        Files.createDirectories(spoolPath);
+        // 任务只保存在内存中，重启后之前的结果文件无法再访问
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolPath, "*.{dat,idx}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.info("异步任务结果目录: {}", spoolPath.toAbsolutePath());
+    }
+
+    /**
+     * 提交任务，支持的语句与流式查询相同（MySQL SELECT、MongoDB find/aggregate、Redis SCAN系列）
+     */
+    public QueryJob submit(SqlRequest request) {
+        // 提前校验，不支持流式执行的数据源直接返回参数错误
+        sqlExecutionService.getStreamingExecutor(request);
+        if (jobs.size() >= maxJobs) {
+            throw new IllegalStateException("任务数已达上限（" + maxJobs + "），请删除已完成的任务或稍后重试");
+        }
+
+        QueryJob job = new QueryJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setStatus(JobStatus.PENDING);
+        job.setDataSourceType(request.getDataSourceType());
+        job.setDataSource(request.getDataSource());
+        job.setSql(request.getSql());
+        job.setRowCount(0L);
+        job.setSubmitTime(System.currentTimeMillis());
+        jobs.put(job.getJobId(), job);
+        // 任务ID同时作为queryId，执行中的任务也出现在查询列表中
+        request.setQueryId(job.getJobId());
+
+        try {
+            jobTaskExecutor.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw new IllegalStateException("任务队列已满，请稍后重试");
+        }
+        log.info("异步任务已提交: {}, 语句: {}", job.getJobId(), request.getSql());
+        return job;
+    }
+
+    /**
+     * 执行任务，结果写入本地文件
+     */
+    private void run(QueryJob job, SqlRequest request) {
+        String jobId = job.getJobId();
+        synchronized (job) {
+            if (job.getStatus() != JobStatus.PENDING) {
+                // 排队期间已被取消
+                return;
+            }
+            // 状态变为执行中之前先登记查询，保证执行中的任务都可以取消
+            runningQueries.register(request, true);
+            job.setStartTime(System.currentTimeMillis());
+            job.setStatus(JobStatus.RUNNING);
+        }
+
+        String error;
+        try (SpoolResultStreamWriter writer =
+                     new SpoolResultStreamWriter(dataFile(jobId), indexFile(jobId), maxResultBytes)) {
+            runningWriters.put(jobId, writer);
+            try {
+                // 执行失败时错误信息写入writer，不会抛出
+                sqlExecutionService.executeStream(request, writer);
+            } finally {
+                runningWriters.remove(jobId);
+            }
+
+            error = writer.getError();
+            if (writer.getMeta() != null) {
+                job.setSqlType(writer.getMeta().getSqlType());
+                job.setColumns(writer.getMeta().getColumns());
+            }
+            if (writer.getSummary() != null) {
+                job.setExecutionTime(writer.getSummary().getExecutionTime());
+                job.setHasMore(writer.getSummary().getHasMore());
+                job.setNextCursor(writer.getSummary().getNextCursor());
+            }
+            job.setRowCount(writer.getRowCount());
+            job.setResultBytes(writer.getBytes());
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+        } finally {
+            runningQueries.unregister(request.getContext());
+        }
+
+        long finishTime = System.currentTimeMillis();
+        job.setFinishTime(finishTime);
+        job.setExpireTime(finishTime + ttlSeconds * 1000);
+        if (error != null) {
+            job.setErrorMessage(error);
+            job.setStatus(JobStatus.FAILED);
+            deleteFiles(jobId);
+            log.warn("异步任务执行失败: {}, 错误: {}", jobId, error);
+        } else {
+            job.setStatus(JobStatus.SUCCEEDED);
+            log.info("异步任务执行成功: {}, 行数: {}, 结果大小: {}字节", jobId, job.getRowCount(), job.getResultBytes());
+        }
+    }
+
+    /**
+     * 查询任务状态
+     */
+    public QueryJob getJob(String jobId) {
+        QueryJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("任务不存在或已过期: " + jobId);
+        }
+        SpoolResultStreamWriter writer = runningWriters.get(jobId);
+        if (writer != null) {
+            job.setRowCount(writer.getRowCount());
+            job.setResultBytes(writer.getBytes());
+        }
+        return job;
+    }
+
+    /**
+     * 分页获取任务结果
+     * @param page 页码，从1开始
+     * @param pageSize 每页行数，默认1000
+     * @param cursor 上一页的nextCursor，优先于page
+     * @param resultFormat 结果格式
+     */
+    public SqlResult fetch(String jobId, Integer page, Integer pageSize, String cursor, String resultFormat) {
+        QueryJob job = getJob(jobId);
+        if (job.getStatus() != JobStatus.SUCCEEDED) {
+            throw new IllegalArgumentException("任务" + job.getStatus().getDescription() + "，没有可获取的结果");
+        }
+
+        SqlRequest pageRequest = new SqlRequest();
+        pageRequest.setPage(page);
+        pageRequest.setPageSize(pageSize != null ? pageSize : DEFAULT_PAGE_SIZE);
+        pageRequest.setCursor(cursor);
+        Pagination pagination = Pagination.of(pageRequest);
+
+        List<Object[]> rows;
+        try {
+            rows = SpoolResultReader.read(dataFile(jobId), indexFile(jobId), job.getRowCount(),
+                    pagination.getOffset(), pagination.getLimit());
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取任务结果失败: " + e.getMessage(), e);
+        }
+
+        List<String> columns = job.getColumns() != null ? job.getColumns() : new ArrayList<>();
+        List<Map<String, Object>> data = new ArrayList<>(rows.size());
+        for (Object[] values : rows) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int c = 0; c < values.length && c < columns.size(); c++) {
+                row.put(columns.get(c), values[c]);
+            }
+            data.add(row);
+        }
+
+        SqlResult result = new SqlResult();
+        result.setSql(job.getSql());
+        result.setSqlType(job.getSqlType());
+        result.setColumns(columns);
+        result.setData(data);
+        result.setAffectedRows(data.size());
+        long next = pagination.getOffset() + rows.size();
+        result.setHasMore(next < job.getRowCount());
+        result.setNextCursor(next < job.getRowCount() ? String.valueOf(next) : null);
+        ResultCollector.convert(result, ResultFormat.fromCode(resultFormat));
+        return result;
+    }
+
+    /**
+     * 取消任务：排队中的任务不再执行，执行中的任务中止数据源上的查询，任务结束为失败
+     */
+    public void cancel(String jobId) {
+        QueryJob job = getJob(jobId);
+        synchronized (job) {
+            if (job.getStatus() == JobStatus.PENDING) {
+                long finishTime = System.currentTimeMillis();
+                job.setFinishTime(finishTime);
+                job.setExpireTime(finishTime + ttlSeconds * 1000);
+                job.setErrorMessage("任务已取消");
+                job.setStatus(JobStatus.FAILED);
+                return;
+            }
+        }
+        if (job.getStatus().isFinished() || !runningQueries.cancel(jobId, "任务已取消")) {
+            throw new IllegalArgumentException("任务" + job.getStatus().getDescription() + "，不能取消");
+        }
+    }
+
+    /**
+     * 删除已结束的任务及其结果文件
+     */
+    public void delete(String jobId) {
+        QueryJob job = getJob(jobId);
+        if (!job.getStatus().isFinished()) {
+            throw new IllegalArgumentException("任务" + job.getStatus().getDescription() + "，不能删除");
+        }
+        jobs.remove(jobId);
+        deleteFiles(jobId);
+    }
+
+    /**
+     * 清理过期的任务和结果文件
+     */
+    @Scheduled(fixedDelayString = "${sql.job.cleanup-interval:60000}")
+    public void cleanExpiredJobs() {
+        long now = System.currentTimeMillis();
+        for (QueryJob job : jobs.values()) {
+            if (job.getStatus().isFinished() && job.getExpireTime() != null && job.getExpireTime() < now) {
+                jobs.remove(job.getJobId());
+                deleteFiles(job.getJobId());
+                log.info("异步任务已过期清理: {}", job.getJobId());
+            }
+        }
+    }
+
+    private void deleteFiles(String jobId) {
+        try {
+            Files.deleteIfExists(dataFile(jobId));
+            Files.deleteIfExists(indexFile(jobId));
+        } catch (IOException e) {
+            log.warn("删除任务结果文件失败: {}, 错误: {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path dataFile(String jobId) {
+        return spoolPath.resolve(jobId + ".dat");
+    }
+
+    private Path indexFile(String jobId) {
+        return spoolPath.resolve(jobId + ".idx");
+    }
+}
@@ -1,15 +1,48 @@
 package com.example.sqlanalysis.service;
 
+import com.example.sqlanalysis.cache.QueryResultCache;
 import com.example.sqlanalysis.entity.SqlRequest;
 import com.example.sqlanalysis.entity.SqlResult;
 import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.GuardAction;
+import com.example.sqlanalysis.executor.MySQLExecutor;
+import com.example.sqlanalysis.executor.QueryContext;
 import com.example.sqlanalysis.executor.QueryExecutor;
+import com.example.sqlanalysis.executor.QueryExecutorRegistry;
+import com.example.sqlanalysis.executor.RunningQueryRegistry;
+import com.example.sqlanalysis.executor.StreamingQueryExecutor;
+import com.example.sqlanalysis.guard.QueryCostGuard;
+import com.example.sqlanalysis.metrics.QueryMetrics;
+import com.example.sqlanalysis.metrics.SlowQueryLog;
+import com.example.sqlanalysis.metrics.StatementFingerprint;
+import com.example.sqlanalysis.metrics.TopStatements;
+import com.example.sqlanalysis.stream.CountingResultStreamWriter;
+import com.example.sqlanalysis.stream.ResultStreamWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * SQL执行服务类（多数据源支持）
@@ -19,7 +52,77 @@ import java.util.List;
 public class SqlExecutionService {
 
     @Autowired
-    private List<QueryExecutor> executors;
+    private QueryExecutorRegistry executorRegistry;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private RunningQueryRegistry runningQueries;
+
+    @Autowired
+    private QueryMetrics queryMetrics;
+
+    @Autowired
+    private TopStatements topStatements;
+
+    @Autowired
+    private QueryCostGuard costGuard;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    @Qualifier("mysqlQueryExecutor")
+    private ThreadPoolTaskExecutor mysqlQueryExecutor;
+
+    @Autowired
+    @Qualifier("mongodbQueryExecutor")
+    private ThreadPoolTaskExecutor mongodbQueryExecutor;
+
+    @Autowired
+    @Qualifier("redisQueryExecutor")
+    private ThreadPoolTaskExecutor redisQueryExecutor;
+
+    @Autowired
+    @Qualifier("lowPriorityQueryExecutor")
+    private ThreadPoolTaskExecutor lowPriorityQueryExecutor;
+
+    @Autowired
+    @Qualifier("estimateTaskExecutor")
+    private ThreadPoolTaskExecutor estimateTaskExecutor;
+
+    /**
+     * 批量并行执行的默认截止时间（秒）
+     */
+    @Value("${sql.batch.default-deadline:60}")
+    private int defaultBatchDeadline;
+
+    /**
+     * 每种数据源的执行线程池
+     */
+    private final Map<DataSourceType, ThreadPoolTaskExecutor> queryPools = new EnumMap<>(DataSourceType.class);
+
+    /**
+     * 批次截止时间到达时结束未完成的请求
+     */
+    private final ScheduledExecutorService deadlineTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-batch-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void initQueryPools() {
+        queryPools.put(DataSourceType.MYSQL, mysqlQueryExecutor);
+        queryPools.put(DataSourceType.MONGODB, mongodbQueryExecutor);
+        queryPools.put(DataSourceType.REDIS, redisQueryExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineTimer.shutdownNow();
+    }
 
     /**
      * 执行查询（根据数据源类型选择执行器）
@@ -29,62 +132,396 @@ public class SqlExecutionService {
             throw new IllegalArgumentException("请求对象不能为空");
         }
 
-        // 获取数据源类型，默认为mysql
-        String dataSourceType = request.getDataSourceType();
-        if (dataSourceType == null || dataSourceType.trim().isEmpty()) {
-            dataSourceType = DataSourceType.MYSQL.getCode();
-        }
-
-        log.info("数据源类型: {}, 查询语句: {}", dataSourceType, request.getSql());
-
         // 查找对应的执行器
-        QueryExecutor executor = findExecutor(dataSourceType);
-        if (executor == null) {
-            throw new IllegalArgumentException("不支持的数据源类型: " + dataSourceType);
+        QueryExecutor executor = resolveExecutor(request);
+        DataSourceType type = executor.getDataSourceType();
+        log.info("数据源类型: {}, 数据源: {}, 查询语句: {}", type.getCode(), request.getDataSource(), request.getSql());
+
+        // 只读查询先查缓存
+        String cacheKey = queryResultCache.keyOf(type, request);
+        long generation = 0;
+        if (cacheKey != null) {
+            long startNanos = System.nanoTime();
+            SqlResult cached = queryResultCache.get(cacheKey);
+            if (cached != null) {
+                long elapsed = System.nanoTime() - startNanos;
+                cached.setExecutionTime(TimeUnit.NANOSECONDS.toMillis(elapsed));
+                queryMetrics.recordQuery(type.getCode(), request.getDataSource(), cached.getSqlType(), null, "cached", elapsed);
+                log.info("命中结果缓存: {}", request.getSql());
+                return cached;
+            }
+            generation = queryResultCache.currentGeneration(type);
         }
 
-        // 执行查询
+        // 执行查询（登记queryId，执行期间可以取消）
+        QueryContext context = runningQueries.register(request, false);
+        StatementFingerprint fingerprint = StatementFingerprint.of(type, request.getSql());
+        String sqlType = fingerprint.getKind();
+        String outcome = "success";
+        long rows = 0;
+        long startNanos = System.nanoTime();
         try {
-            return executor.execute(request);
+            context.checkCancelled();
+            SqlResult result = executor.execute(request);
+            if (result.getSqlType() != null) {
+                sqlType = result.getSqlType();
+            }
+            rows = result.getAffectedRows() != null ? result.getAffectedRows() : context.getRows();
+            queryMetrics.recordResult(type.getCode(), sqlType, rows, context.getBytes());
+            if (cacheKey != null) {
+                queryResultCache.put(cacheKey, type, request, result, generation);
+            } else {
+                queryResultCache.onWrite(type, request);
+            }
+            return result;
         } catch (Exception e) {
+            outcome = context.isCancelled() ? "cancelled" : "error";
+            rows = context.getRows();
             log.error("执行失败: {}", e.getMessage(), e);
             throw e;
+        } finally {
+            recordExecution(request, type, sqlType, fingerprint, outcome, System.nanoTime() - startNanos,
+                    rows, context.getBytes());
+            runningQueries.unregister(context);
+        }
+    }
+
+    /**
+     * 异步执行查询：在数据源对应的线程池中执行，调用方（请求线程）不等待
+     * 提交前经过代价守卫，超过上限的语句拒绝、自动分页或放入低优先级线程池；未缓存的估算在估算线程池中进行
+     * 提交时就登记queryId，排队中的查询也可以取消；参数错误、线程池队列已满等都以失败的future返回
+     */
+    public CompletableFuture<SqlResult> executeSqlAsync(SqlRequest request) {
+        QueryContext context = null;
+        try {
+            if (request == null) {
+                throw new IllegalArgumentException("请求对象不能为空");
+            }
+            QueryExecutor executor = resolveExecutor(request);
+            DataSourceType type = executor.getDataSourceType();
+            String dataSourceType = type.getCode();
+            QueryContext registered = context = runningQueries.register(request, false);
+            return guard(executor, request).thenCompose(guardAction -> {
+                long submitNanos = System.nanoTime();
+                return submit(() -> {
+                    queryMetrics.recordQueueWait(dataSourceType, System.nanoTime() - submitNanos);
+                    return withGuardNotice(executeSql(request), request, guardAction);
+                }, type, guardAction, "执行队列已满，请稍后重试");
+            }).whenComplete((result, e) -> runningQueries.unregister(registered));
+        } catch (RuntimeException e) {
+            runningQueries.unregister(context);
+            return failed(e);
+        }
+    }
+
+    /**
+     * 分析MySQL语句的执行计划，analyze为true时执行EXPLAIN ANALYZE（会真正执行语句，期间可以取消）
+     */
+    public SqlResult explain(SqlRequest request, boolean analyze) {
+        if (request == null) {
+            throw new IllegalArgumentException("请求对象不能为空");
+        }
+
+        QueryExecutor executor = resolveExecutor(request);
+        if (!(executor instanceof MySQLExecutor)) {
+            throw new IllegalArgumentException("执行计划分析只支持MySQL数据源");
+        }
+        log.info("数据源: {}, 分析执行计划: {}, analyze: {}", request.getDataSource(), request.getSql(), analyze);
+
+        QueryContext context = runningQueries.register(request, false);
+        try {
+            return ((MySQLExecutor) executor).analyzePlan(request, analyze);
+        } finally {
+            runningQueries.unregister(context);
+        }
+    }
+
+    /**
+     * 取消执行中或排队中的查询，查询不存在或已结束时返回false
+     */
+    public boolean cancel(String queryId, String reason) {
+        return runningQueries.cancel(queryId, reason);
+    }
+
+    /**
+     * 取消请求对应的查询，请求未登记（如参数错误）时忽略
+     */
+    public void cancel(SqlRequest request, String reason) {
+        QueryContext context = request.getContext();
+        if (context != null) {
+            context.cancel(reason);
+        }
+    }
+
+    /**
+     * 执行中的查询列表
+     */
+    public List<Map<String, Object>> listRunningQueries() {
+        return runningQueries.list();
+    }
+
+    /**
+     * 获取支持流式输出的执行器，不支持时抛出参数异常
+     * 在开始写出响应之前调用，保证参数错误仍能以普通JSON返回
+     */
+    public StreamingQueryExecutor getStreamingExecutor(SqlRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("请求对象不能为空");
         }
+
+        QueryExecutor executor = resolveExecutor(request);
+        if (!(executor instanceof StreamingQueryExecutor)) {
+            throw new IllegalArgumentException("该数据源不支持流式查询: " + executor.getDataSourceType().getCode());
+        }
+        return (StreamingQueryExecutor) executor;
     }
 
     /**
-     * 查找对应的执行器
+     * 流式执行查询，结果逐行写出
+     * 响应头已经发出，执行失败时在流的末尾写出错误信息
      */
-    private QueryExecutor findExecutor(String dataSourceType) {
-        for (QueryExecutor executor : executors) {
-            if (executor.support(dataSourceType)) {
-                return executor;
+    public void executeStream(SqlRequest request, ResultStreamWriter writer) {
+        StreamingQueryExecutor executor = getStreamingExecutor(request);
+        log.info("数据源类型: {}, 流式查询语句: {}", request.getDataSourceType(), request.getSql());
+
+        DataSourceType type = executor.getDataSourceType();
+        StatementFingerprint fingerprint = StatementFingerprint.of(type, request.getSql());
+        String outcome = "success";
+        long startNanos = System.nanoTime();
+        QueryContext context = null;
+        try {
+            // 流式结果不在内存中累积，只登记用于取消，不限制行数和大小
+            context = runningQueries.register(request, true);
+            executor.executeStream(request, new CountingResultStreamWriter(writer, context));
+            queryMetrics.recordResult(type.getCode(), fingerprint.getKind(), context.getRows(), context.getBytes());
+        } catch (Exception e) {
+            outcome = context != null && context.isCancelled() ? "cancelled" : "error";
+            log.error("流式执行失败: {}", e.getMessage(), e);
+            try {
+                writer.writeError(e.getMessage());
+            } catch (IOException ioe) {
+                log.warn("写出错误信息失败，客户端可能已断开: {}", ioe.getMessage());
             }
+        } finally {
+            recordExecution(request, type, fingerprint.getKind(), fingerprint, outcome, System.nanoTime() - startNanos,
+                    context != null ? context.getRows() : 0, context != null ? context.getBytes() : 0);
+            runningQueries.unregister(context);
+        }
+    }
+
+    /**
+     * 记录一次执行：耗时指标、按语句指纹汇总、慢查询日志
+     */
+    private void recordExecution(SqlRequest request, DataSourceType type, String sqlType, StatementFingerprint fingerprint,
+                                 String outcome, long nanos, long rows, long bytes) {
+        queryMetrics.recordQuery(type.getCode(), request.getDataSource(), sqlType, fingerprint, outcome, nanos);
+        topStatements.record(type.getCode(), fingerprint, request.getSql(), !"success".equals(outcome), nanos, rows, bytes);
+        slowQueryLog.record(request, type, fingerprint, outcome, nanos, rows, bytes);
+    }
+
+    /**
+     * 查找请求对应的执行器
+     * 指定了命名数据源时按名称查找，否则按数据源类型（默认mysql）查找
+     */
+    private QueryExecutor resolveExecutor(SqlRequest request) {
+        String dataSource = request.getDataSource();
+        if (dataSource != null && !dataSource.trim().isEmpty()) {
+            return executorRegistry.get(dataSource.trim());
+        }
+        return executorRegistry.get(DataSourceType.fromCode(request.getDataSourceType()));
+    }
+
+    /**
+     * 批量执行SQL，逐条执行：上一条完成后再提交下一条
+     */
+    public CompletableFuture<List<SqlResult>> executeBatchSql(List<SqlRequest> requests) {
+        CompletableFuture<List<SqlResult>> chain = CompletableFuture.completedFuture(new ArrayList<>(requests.size()));
+        for (SqlRequest request : requests) {
+            chain = chain.thenCompose(results -> orErrorResult(request, executeSqlAsync(request))
+                    .thenApply(result -> {
+                        results.add(result);
+                        return results;
+                    }));
         }
-        return null;
+        return chain;
     }
 
     /**
-     * 批量执行SQL
+     * 批量并行执行SQL
+     * 请求提交到各数据源的有界线程池，线程数即每种数据源的并发上限；结果顺序与请求顺序一致
+     * @param requests 请求列表
+     * @param deadlineSeconds 整个批次的截止时间（秒），为空时使用默认值
      */
-    public List<SqlResult> executeBatchSql(List<SqlRequest> requests) {
-        List<SqlResult> results = new ArrayList<>();
+    public CompletableFuture<List<SqlResult>> executeBatchSqlParallel(List<SqlRequest> requests, Integer deadlineSeconds) {
+        int deadline = deadlineSeconds != null && deadlineSeconds > 0 ? deadlineSeconds : defaultBatchDeadline;
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(deadline);
+
+        List<CompletableFuture<SqlResult>> futures = new ArrayList<>(requests.size());
         for (SqlRequest request : requests) {
+            futures.add(executeBeforeDeadline(request, deadlineNanos));
+        }
+
+        // 到截止时间仍未完成的请求按超时返回并取消：还在队列中的不会再执行，已在执行的中止数据源上的查询
+        ScheduledFuture<?> timer = deadlineTimer.schedule(() -> {
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).completeExceptionally(new TimeoutException("超过批量执行截止时间（" + deadline + "秒）"))
+                        && requests.get(i).getContext() != null) {
+                    requests.get(i).getContext().cancel("超过批量执行截止时间");
+                }
+            }
+        }, deadline, TimeUnit.SECONDS);
+
+        List<CompletableFuture<SqlResult>> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(orErrorResult(requests.get(i), futures.get(i)));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            timer.cancel(false);
+            List<SqlResult> list = new ArrayList<>(results.size());
+            for (CompletableFuture<SqlResult> result : results) {
+                list.add(result.join());
+            }
+            return list;
+        });
+    }
+
+    /**
+     * 提交到线程池，开始执行时把查询超时收紧到批次剩余时间以内
+     */
+    private CompletableFuture<SqlResult> executeBeforeDeadline(SqlRequest request, long deadlineNanos) {
+        QueryContext context = null;
+        try {
+            QueryExecutor executor = resolveExecutor(request);
+            DataSourceType type = executor.getDataSourceType();
+            String dataSourceType = type.getCode();
+            QueryContext registered = context = runningQueries.register(request, false);
+            CompletableFuture<SqlResult> future = guard(executor, request).thenCompose(guardAction -> {
+                long submitNanos = System.nanoTime();
+                return submit(() -> {
+                    queryMetrics.recordQueueWait(dataSourceType, System.nanoTime() - submitNanos);
+                    try {
+                        long remainingSeconds = TimeUnit.NANOSECONDS.toSeconds(deadlineNanos - System.nanoTime());
+                        if (remainingSeconds <= 0) {
+                            throw new IllegalStateException("超过批量执行截止时间");
+                        }
+                        if (request.getTimeout() == null || request.getTimeout() <= 0 || request.getTimeout() > remainingSeconds) {
+                            request.setTimeout((int) remainingSeconds);
+                        }
+                        return withGuardNotice(executeSql(request), request, guardAction);
+                    } finally {
+                        runningQueries.unregister(registered);
+                    }
+                }, type, guardAction, "批量执行队列已满，请稍后重试");
+            });
+            // 估算失败、拒绝执行或队列已满时任务不会执行，在这里注销
+            future.whenComplete((result, e) -> {
+                if (e != null) {
+                    runningQueries.unregister(registered);
+                }
+            });
+            return future;
+        } catch (RuntimeException e) {
+            runningQueries.unregister(context);
+            return failed(e);
+        }
+    }
+
+    /**
+     * 代价守卫检查：没有缓存的估算结果时在估算线程池中估算，不阻塞调用方（请求线程）；有缓存时直接检查
+     */
+    private CompletableFuture<GuardAction> guard(QueryExecutor executor, SqlRequest request) {
+        if (!costGuard.requiresEstimate(executor, request)) {
             try {
-                SqlResult result = executeSql(request);
-                results.add(result);
-            } catch (Exception e) {
-                SqlResult errorResult = new SqlResult();
-                errorResult.setSql(request.getSql());
-                errorResult.setSqlType("ERROR");
-                errorResult.setExecutionTime(0L);
-                results.add(errorResult);
-                log.error("批量执行SQL失败，SQL: {}, 错误: {}", request.getSql(), e.getMessage());
+                return CompletableFuture.completedFuture(costGuard.check(executor, request));
+            } catch (RuntimeException e) {
+                return failed(e);
             }
         }
-        return results;
+        try {
+            return CompletableFuture.supplyAsync(() -> costGuard.check(executor, request), estimateTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            queryMetrics.recordRejected(executor.getDataSourceType().getCode());
+            return failed(new IllegalStateException("执行队列已满，请稍后重试"));
+        }
+    }
+
+    /**
+     * 提交到执行线程池，队列已满时返回失败的future
+     */
+    private CompletableFuture<SqlResult> submit(Supplier<SqlResult> task, DataSourceType type, GuardAction guardAction,
+                                                String queueFullMessage) {
+        try {
+            return CompletableFuture.supplyAsync(task, poolFor(type, guardAction));
+        } catch (RejectedExecutionException e) {
+            queryMetrics.recordRejected(type.getCode());
+            return failed(new IllegalStateException(queueFullMessage));
+        }
+    }
+
+    /**
+     * 代价守卫判定放入低优先级队列的语句使用低优先级线程池，其余使用数据源对应的线程池
+     */
+    private ThreadPoolTaskExecutor poolFor(DataSourceType type, GuardAction guardAction) {
+        return guardAction == GuardAction.QUEUE ? lowPriorityQueryExecutor : queryPools.get(type);
+    }
+
+    /**
+     * 代价守卫自动分页时，在结果中说明只返回了部分行
+     * 结果可能是查询缓存中的同一个对象，在副本上设置，避免说明被缓存后出现在其它请求的结果中
+     */
+    private SqlResult withGuardNotice(SqlResult result, SqlRequest request, GuardAction guardAction) {
+        if (guardAction == GuardAction.LIMIT) {
+            SqlResult copy = new SqlResult();
+            BeanUtils.copyProperties(result, copy);
+            result = copy;
+            result.setNotice("估算扫描行数超过上限，结果已自动限制为前" + request.getPageSize() + "行，可通过nextCursor继续获取");
+        }
+        return result;
     }
-}
 
+    /**
+     * 执行失败时转换为单条失败的结果，保证批次中其它请求的结果正常返回
+     */
+    private CompletableFuture<SqlResult> orErrorResult(SqlRequest request, CompletableFuture<SqlResult> future) {
+        return future.handle((result, e) -> {
+            if (e == null) {
+                return result;
+            }
+            Throwable cause = unwrap(e);
+            if (cause instanceof TimeoutException) {
+                log.warn("批量执行SQL超时，SQL: {}", request.getSql());
+            } else {
+                log.error("批量执行SQL失败，SQL: {}, 错误: {}", request.getSql(), cause.getMessage());
+            }
+            return errorResult(request, cause.getMessage());
+        });
+    }
 
+    /**
+     * 取出CompletableFuture包装的原始异常
+     */
+    public static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
 
+    /**
+     * 构建单条失败的结果
+     */
+    private SqlResult errorResult(SqlRequest request, String message) {
+        SqlResult errorResult = new SqlResult();
+        errorResult.setSql(request.getSql());
+        errorResult.setSqlType("ERROR");
+        errorResult.setExecutionTime(0L);
+        errorResult.setErrorMessage(message);
+        return errorResult;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.sqlanalysis.stream;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.executor.QueryContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 统计写出行数和大小的流式写出器，同时在每行写出前检查查询是否已取消
+ */
+public class CountingResultStreamWriter implements ResultStreamWriter {
+
+    private final ResultStreamWriter delegate;
+
+    private final QueryContext context;
+
+    public CountingResultStreamWriter(ResultStreamWriter delegate, QueryContext context) {
+        this.delegate = delegate;
+        this.context = context;
+    }
+
+    @Override
+    public void writeHeader(SqlResult meta) throws IOException {
+        delegate.writeHeader(meta);
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        context.addRow(values);
+        delegate.writeRow(values);
+    }
+
+    @Override
+    public void addColumns(List<String> columns) throws IOException {
+        delegate.addColumns(columns);
+    }
+
+    @Override
+    public void writeFooter(SqlResult summary) throws IOException {
+        delegate.writeFooter(summary);
+    }
+
+    @Override
+    public void writeError(String message) throws IOException {
+        delegate.writeError(message);
+    }
+}
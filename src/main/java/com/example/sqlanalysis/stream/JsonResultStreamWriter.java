@@ -0,0 +1,213 @@
+package com.example.sqlanalysis.stream;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统一响应格式（code/message/data/success）的流式结果写出器
+ * 行数据从游标直接写入响应流，不构建每行的Map，也不在内存中保留完整结果；
+ * 成功与否要到最后才能确定，所以data在前，code/message/success在后：
+ * <pre>
+ * {"data":{"sqlType":"SELECT","sql":"...","columns":["id","name"],"data":[{"id":1,"name":"张三"}],
+ *  "affectedRows":1,"executionTime":15},"code":200,"message":"SQL执行成功","success":true}
+ * </pre>
+ * 执行中途失败时data中追加error，code为500、success为false，响应仍是完整的JSON
+ * 表头之后出现的新字段（MongoDB结构不一致的文档）按名称写入行对象，并在data末尾的addedColumns中列出
+ */
+public class JsonResultStreamWriter implements ResultStreamWriter {
+
+    /**
+     * 每写出多少行主动flush一次，保证客户端能及时收到数据
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final JsonGenerator generator;
+
+    private final OutputStream outputStream;
+
+    /**
+     * 行写为数组（resultFormat=array），否则写为对象
+     */
+    private final boolean arrayRows;
+
+    private String[] columns;
+
+    private boolean headerWritten;
+
+    /**
+     * 表头写出后追加的列
+     */
+    private final List<String> addedColumns = new ArrayList<>();
+
+    private long rowCount;
+
+    /**
+     * @param format 行格式：array按数组写出；列式格式需要全部数据，流式时同样按数组写出；其余按对象写出
+     */
+    public JsonResultStreamWriter(ObjectMapper objectMapper, OutputStream outputStream, ResultFormat format)
+            throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        // 由容器负责关闭响应流
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // ObjectMapper写出对象后会flush，不传递给响应流，只在flush()中按间隔刷新（压缩响应每次刷新都会结束一个压缩块）
+        this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.outputStream = outputStream;
+        this.arrayRows = format == ResultFormat.ARRAY || format == ResultFormat.COLUMNAR;
+    }
+
+    @Override
+    public void writeHeader(SqlResult meta) throws IOException {
+        columns = meta.getColumns() != null ? meta.getColumns().toArray(new String[0]) : new String[0];
+
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("data");
+        generator.writeStringField("sqlType", meta.getSqlType());
+        generator.writeStringField("sql", meta.getSql());
+        generator.writeArrayFieldStart("columns");
+        for (String column : columns) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+        if (arrayRows) {
+            generator.writeStringField("resultFormat", ResultFormat.ARRAY.getCode());
+        }
+        generator.writeArrayFieldStart(arrayRows ? "rows" : "data");
+        headerWritten = true;
+        flush();
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        if (arrayRows) {
+            generator.writeStartArray();
+            for (Object value : values) {
+                writeValue(value);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(i < columns.length ? columns[i] : "column" + (i + 1));
+                writeValue(values[i]);
+            }
+            generator.writeEndObject();
+        }
+
+        if (++rowCount % FLUSH_INTERVAL == 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public void addColumns(List<String> added) {
+        addedColumns.addAll(added);
+        String[] all = new String[columns.length + added.size()];
+        System.arraycopy(columns, 0, all, 0, columns.length);
+        for (int i = 0; i < added.size(); i++) {
+            all[columns.length + i] = added.get(i);
+        }
+        columns = all;
+    }
+
+    @Override
+    public void writeFooter(SqlResult summary) throws IOException {
+        generator.writeEndArray();
+        if (!addedColumns.isEmpty()) {
+            generator.writeArrayFieldStart("addedColumns");
+            for (String column : addedColumns) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeObjectField("affectedRows", summary.getAffectedRows());
+        generator.writeObjectField("executionTime", summary.getExecutionTime());
+        // 遍历达到上限时返回续扫游标（Redis SCAN）
+        if (summary.getHasMore() != null) {
+            generator.writeObjectField("hasMore", summary.getHasMore());
+        }
+        if (summary.getNextCursor() != null) {
+            generator.writeStringField("nextCursor", summary.getNextCursor());
+        }
+        generator.writeEndObject();
+        writeEnvelope(200, "SQL执行成功", true);
+    }
+
+    @Override
+    public void writeError(String message) throws IOException {
+        if (!headerWritten) {
+            generator.writeStartObject();
+            generator.writeNullField("data");
+        } else {
+            // 关闭未写完的行和行数组，回到data对象
+            while (depth(generator.getOutputContext()) > 2) {
+                if (generator.getOutputContext().inArray()) {
+                    generator.writeEndArray();
+                } else {
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        }
+        writeEnvelope(500, "SQL执行失败: " + message, false);
+    }
+
+    private void flush() throws IOException {
+        generator.flush();
+        outputStream.flush();
+    }
+
+    private void writeEnvelope(int code, String message, boolean success) throws IOException {
+        generator.writeNumberField("code", code);
+        generator.writeStringField("message", message);
+        generator.writeBooleanField("success", success);
+        generator.writeEndObject();
+        flush();
+    }
+
+    /**
+     * 嵌套层数：外层对象为1，data对象为2
+     */
+    private static int depth(JsonStreamContext context) {
+        int depth = 0;
+        for (JsonStreamContext c = context; c.getParent() != null; c = c.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * 常见类型直接写出，其余类型（日期、Mongo文档等）交给ObjectMapper，与普通响应的序列化结果一致
+     */
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeObject(value);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.sqlanalysis.stream;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NDJSON格式的流式结果写出器
+ * 每行一个JSON：第一行为表头对象，中间每行为一个数组（一行数据），最后一行为汇总对象
+ * <pre>
+ * {"sqlType":"SELECT","sql":"SELECT id, name FROM users","columns":["id","name"]}
+ * [1,"张三"]
+ * [2,"李四"]
+ * {"affectedRows":2,"executionTime":15}
+ * </pre>
+ * 表头之后出现新字段时（MongoDB结构不一致的文档），先写一行只含完整columns的对象，之后的行按新的列数写出
+ */
+public class NdjsonResultStreamWriter implements ResultStreamWriter {
+
+    /**
+     * 每写出多少行主动flush一次，保证客户端能及时收到数据
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final JsonGenerator generator;
+
+    private final OutputStream outputStream;
+
+    private long rowCount;
+
+    private final List<String> columns = new ArrayList<>();
+
+    public NdjsonResultStreamWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        // 由容器负责关闭响应流
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // ObjectMapper写出对象后会flush，不传递给响应流，只在flush()中按间隔刷新（压缩响应每次刷新都会结束一个压缩块）
+        this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void writeHeader(SqlResult meta) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("sqlType", meta.getSqlType());
+        generator.writeStringField("sql", meta.getSql());
+        if (meta.getColumns() != null) {
+            columns.addAll(meta.getColumns());
+        }
+        writeColumns();
+        generator.writeEndObject();
+        endLine();
+        flush();
+    }
+
+    @Override
+    public void addColumns(List<String> added) throws IOException {
+        columns.addAll(added);
+        generator.writeStartObject();
+        writeColumns();
+        generator.writeEndObject();
+        endLine();
+    }
+
+    private void writeColumns() throws IOException {
+        generator.writeArrayFieldStart("columns");
+        for (String column : columns) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        generator.writeStartArray();
+        for (Object value : values) {
+            generator.writeObject(value);
+        }
+        generator.writeEndArray();
+        endLine();
+
+        if (++rowCount % FLUSH_INTERVAL == 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public void writeFooter(SqlResult summary) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("affectedRows", summary.getAffectedRows());
+        generator.writeObjectField("executionTime", summary.getExecutionTime());
+        // 遍历达到上限时返回续扫游标（Redis SCAN）
+        if (summary.getHasMore() != null) {
+            generator.writeObjectField("hasMore", summary.getHasMore());
+        }
+        if (summary.getNextCursor() != null) {
+            generator.writeStringField("nextCursor", summary.getNextCursor());
+        }
+        generator.writeEndObject();
+        endLine();
+        flush();
+    }
+
+    @Override
+    public void writeError(String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+        endLine();
+        flush();
+    }
+
+    private void flush() throws IOException {
+        generator.flush();
+        outputStream.flush();
+    }
+
+    private void endLine() throws IOException {
+        generator.writeRaw('\n');
+    }
+}
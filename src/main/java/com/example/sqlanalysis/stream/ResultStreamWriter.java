@@ -0,0 +1,44 @@
+package com.example.sqlanalysis.stream;
+
+import com.example.sqlanalysis.entity.SqlResult;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 流式结果写出器
+ * 执行器每读到一行就写出一行，不在内存中累积结果集
+ */
+public interface ResultStreamWriter {
+
+    /**
+     * 写出结果头（sqlType、sql、columns）
+     * @param meta 只包含元信息的结果对象，data为空
+     */
+    void writeHeader(SqlResult meta) throws IOException;
+
+    /**
+     * 写出一行数据，值的顺序与表头columns一致
+     * 注意：调用方会复用values数组，实现类不能持有该引用
+     * @param values 行数据
+     */
+    void writeRow(Object[] values) throws IOException;
+
+    /**
+     * 追加列：表头写出后才出现的字段（如MongoDB后续文档中的新字段），之后写出的行按追加后的列给出值
+     * @param columns 新增的列名，排在已有列之后
+     */
+    void addColumns(List<String> columns) throws IOException;
+
+    /**
+     * 写出结果尾（affectedRows、executionTime）
+     * @param summary 汇总信息
+     */
+    void writeFooter(SqlResult summary) throws IOException;
+
+    /**
+     * 写出错误信息（执行过程中失败时调用）
+     * @param message 错误信息
+     */
+    void writeError(String message) throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.example.sqlanalysis.stream;
+
+import com.alibaba.fastjson.JSON;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 读取 {@link SpoolResultStreamWriter} 写出的结果文件
+ * 通过内存映射读取：先在索引文件中取出起始行和结束行的偏移量，再只映射数据文件中这一段
+ */
+public final class SpoolResultReader {
+
+    private SpoolResultReader() {
+    }
+
+    /**
+     * 读取一页数据
+     * @param dataFile 数据文件
+     * @param indexFile 索引文件
+     * @param rowCount 总行数
+     * @param from 起始行（从0开始）
+     * @param limit 最多读取的行数
+     * @return 行数据，值的顺序与写出时一致
+     */
+    public static List<Object[]> read(Path dataFile, Path indexFile, long rowCount, long from, int limit)
+            throws IOException {
+        if (from >= rowCount || limit <= 0) {
+            return Collections.emptyList();
+        }
+        long to = Math.min(rowCount, from + limit);
+
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            // 不是最后一页时多映射一个偏移量，作为本页数据的结束位置
+            long offsets = to < rowCount ? to - from + 1 : to - from;
+            MappedByteBuffer offsetBuffer = index.map(FileChannel.MapMode.READ_ONLY, from * Long.BYTES, offsets * Long.BYTES);
+            long start = offsetBuffer.getLong(0);
+            long end = to < rowCount ? offsetBuffer.getLong((int) ((to - from) * Long.BYTES)) : data.size();
+
+            MappedByteBuffer buffer = data.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            List<Object[]> rows = new ArrayList<>((int) (to - from));
+            for (long i = from; i < to; i++) {
+                Object[] values = new Object[buffer.getInt()];
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = readValue(buffer);
+                }
+                rows.add(values);
+            }
+            return rows;
+        }
+    }
+
+    private static Object readValue(MappedByteBuffer buffer) throws IOException {
+        byte type = buffer.get();
+        switch (type) {
+            case SpoolResultStreamWriter.TYPE_NULL:
+                return null;
+            case SpoolResultStreamWriter.TYPE_LONG:
+                return buffer.getLong();
+            case SpoolResultStreamWriter.TYPE_DOUBLE:
+                return buffer.getDouble();
+            case SpoolResultStreamWriter.TYPE_BOOLEAN:
+                return buffer.get() != 0;
+            case SpoolResultStreamWriter.TYPE_STRING:
+                return readString(buffer);
+            case SpoolResultStreamWriter.TYPE_DECIMAL:
+                return new BigDecimal(readString(buffer));
+            case SpoolResultStreamWriter.TYPE_DATE:
+                return new Date(buffer.getLong());
+            case SpoolResultStreamWriter.TYPE_BYTES:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return bytes;
+            case SpoolResultStreamWriter.TYPE_JSON:
+                return JSON.parse(readString(buffer));
+            default:
+                throw new IOException("结果文件已损坏，未知的类型标记: " + type);
+        }
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] utf8 = new byte[buffer.getInt()];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
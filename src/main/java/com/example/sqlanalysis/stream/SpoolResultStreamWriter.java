@@ -0,0 +1,192 @@
+package com.example.sqlanalysis.stream;
+
+import com.alibaba.fastjson.JSON;
+import com.example.sqlanalysis.entity.SqlResult;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把结果写到本地文件的流式写出器（异步任务使用），读取见 {@link SpoolResultReader}
+ * - 数据文件：按行顺序存放，每行为值个数（int）+ 各个值，每个值为1字节类型标记 + 二进制内容
+ * - 索引文件：每行一个long，为该行在数据文件中的起始位置，分页读取时直接定位到起始行
+ */
+public class SpoolResultStreamWriter implements ResultStreamWriter, Closeable {
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_LONG = 1;
+    static final byte TYPE_DOUBLE = 2;
+    static final byte TYPE_STRING = 3;
+    static final byte TYPE_BOOLEAN = 4;
+    static final byte TYPE_DECIMAL = 5;
+    static final byte TYPE_DATE = 6;
+    static final byte TYPE_BYTES = 7;
+    /**
+     * 嵌套结构（Map、List，如MongoDB的子文档），以JSON字符串存放
+     */
+    static final byte TYPE_JSON = 8;
+
+    private final OutputStream data;
+
+    private final DataOutputStream index;
+
+    /**
+     * 单行编码缓冲，编码完成后整行写入数据文件，便于记录偏移量和检查大小上限
+     */
+    private final ByteArrayOutputStream rowBuffer = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream row = new DataOutputStream(rowBuffer);
+
+    /**
+     * 数据文件大小上限（字节）
+     */
+    private final long maxBytes;
+
+    private volatile long rowCount;
+
+    private volatile long bytes;
+
+    private SqlResult meta;
+
+    private SqlResult summary;
+
+    private String error;
+
+    public SpoolResultStreamWriter(Path dataFile, Path indexFile, long maxBytes) throws IOException {
+        this.data = new BufferedOutputStream(Files.newOutputStream(dataFile), 64 * 1024);
+        this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 16 * 1024));
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void writeHeader(SqlResult meta) {
+        this.meta = meta;
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        rowBuffer.reset();
+        row.writeInt(values.length);
+        for (Object value : values) {
+            writeValue(value);
+        }
+
+        if (bytes + rowBuffer.size() > maxBytes) {
+            throw new IOException("结果超过落盘大小上限（" + maxBytes + "字节）");
+        }
+        index.writeLong(bytes);
+        rowBuffer.writeTo(data);
+        bytes += rowBuffer.size();
+        rowCount++;
+    }
+
+    /**
+     * 追加的列记入表头，任务的columns为完整列名，先写出的行值个数较少，读取时只包含行中已有的列
+     */
+    @Override
+    public void addColumns(List<String> columns) {
+        List<String> all = new ArrayList<>(meta.getColumns());
+        all.addAll(columns);
+        meta.setColumns(all);
+    }
+
+    @Override
+    public void writeFooter(SqlResult summary) {
+        this.summary = summary;
+    }
+
+    @Override
+    public void writeError(String message) {
+        this.error = message;
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            row.writeByte(TYPE_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            row.writeByte(TYPE_LONG);
+            row.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            row.writeByte(TYPE_DOUBLE);
+            row.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            row.writeByte(TYPE_BOOLEAN);
+            row.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            row.writeByte(TYPE_DECIMAL);
+            writeString(value.toString());
+        } else if (value instanceof Date) {
+            row.writeByte(TYPE_DATE);
+            row.writeLong(((Date) value).getTime());
+        } else if (value instanceof byte[]) {
+            row.writeByte(TYPE_BYTES);
+            row.writeInt(((byte[]) value).length);
+            row.write((byte[]) value);
+        } else if (value instanceof Map || value instanceof Collection || value instanceof Object[]) {
+            row.writeByte(TYPE_JSON);
+            writeString(JSON.toJSONString(value));
+        } else {
+            // 字符串，以及LocalDateTime、ObjectId等按字符串形式保存
+            row.writeByte(TYPE_STRING);
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        row.writeInt(utf8.length);
+        row.write(utf8);
+    }
+
+    /**
+     * 已写出的行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 数据文件大小（字节）
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public SqlResult getMeta() {
+        return meta;
+    }
+
+    public SqlResult getSummary() {
+        return summary;
+    }
+
+    /**
+     * 执行过程中的错误信息，成功时为null
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
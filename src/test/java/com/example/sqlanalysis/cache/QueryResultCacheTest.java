@@ -0,0 +1,41 @@
+package com.example.sqlanalysis.cache;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.enums.DataSourceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryResultCacheTest {
+
+    @Test
+    void collapsesWhitespaceOnlyOutsideLiterals() {
+        assertEquals("SELECT * FROM t WHERE id = 1", QueryResultCache.normalize("  SELECT *\n  FROM t\tWHERE id = 1 ;"));
+        assertEquals("SELECT * FROM t WHERE name='a  b'", QueryResultCache.normalize("SELECT *  FROM t  WHERE name='a  b'"));
+        assertNotEquals(QueryResultCache.normalize("SELECT * FROM t WHERE name='a  b'"),
+                QueryResultCache.normalize("SELECT * FROM t WHERE name='a b'"));
+        assertNotEquals(QueryResultCache.normalize("{\"collection\": \"users\", \"query\": \"{\\\"name\\\": \\\"a  b\\\"}\"}"),
+                QueryResultCache.normalize("{\"collection\": \"users\", \"query\": \"{\\\"name\\\": \\\"a b\\\"}\"}"));
+        assertNotEquals(QueryResultCache.normalize("SELECT 'x' -- it's\nFROM t WHERE name = 'a  b'"),
+                QueryResultCache.normalize("SELECT 'x' -- it's\nFROM t WHERE name = 'a b'"));
+    }
+
+    @Test
+    void skipsLockingReads() {
+        QueryResultCache cache = new QueryResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        assertNotNull(cache.keyOf(DataSourceType.MYSQL, request("SELECT * FROM t WHERE note = 'for share'")));
+        assertNull(cache.keyOf(DataSourceType.MYSQL, request("SELECT * FROM t WHERE id = 1 FOR SHARE")));
+        assertNull(cache.keyOf(DataSourceType.MYSQL, request("SELECT * FROM t WHERE id = 1 for  update")));
+    }
+
+    private static SqlRequest request(String sql) {
+        SqlRequest request = new SqlRequest();
+        request.setSql(sql);
+        return request;
+    }
+}
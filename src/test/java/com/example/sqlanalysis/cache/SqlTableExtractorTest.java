@@ -0,0 +1,35 @@
+package com.example.sqlanalysis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlTableExtractorTest {
+
+    @Test
+    void readTables() {
+        assertEquals(new LinkedHashSet<>(Arrays.asList("users", "orders")),
+                SqlTableExtractor.readTables("SELECT * FROM `test`.users u JOIN orders o ON u.id = o.user_id"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b")),
+                SqlTableExtractor.readTables("select * from a, b where a.id = b.id"));
+        assertTrue(SqlTableExtractor.readTables("SELECT 1").isEmpty());
+    }
+
+    @Test
+    void writeTables() {
+        assertEquals(Collections.singleton("users"),
+                SqlTableExtractor.writeTables("INSERT INTO Users (name) VALUES ('a')"));
+        assertEquals(Collections.singleton("users"),
+                SqlTableExtractor.writeTables("update `test`.`users` set age = 1"));
+        assertEquals(Collections.singleton("orders"),
+                SqlTableExtractor.writeTables("DELETE FROM orders WHERE id = 1"));
+        assertEquals(Collections.singleton("logs"),
+                SqlTableExtractor.writeTables("TRUNCATE TABLE logs"));
+        assertTrue(SqlTableExtractor.writeTables("CALL refresh_stats()").isEmpty());
+    }
+}
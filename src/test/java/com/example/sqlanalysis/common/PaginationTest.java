@@ -0,0 +1,52 @@
+package com.example.sqlanalysis.common;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginationTest {
+
+    @Test
+    void fetchesOneExtraRowToDetectNextPage() {
+        Pagination pagination = Pagination.of(request(2, 10, null));
+        assertEquals(10, pagination.getOffset());
+        assertEquals(10, pagination.getLimit());
+        assertEquals(11, pagination.getFetchLimit());
+
+        SqlResult result = new SqlResult();
+        pagination.fillResult(result, 11);
+        assertTrue(result.getHasMore());
+        assertEquals("20", result.getNextCursor());
+    }
+
+    @Test
+    void capsAllPagesAtMaxRows() {
+        Pagination first = Pagination.of(request(1, 10, 25));
+        assertEquals(10, first.getLimit());
+
+        Pagination last = Pagination.of(request(3, 10, 25));
+        assertEquals(20, last.getOffset());
+        assertEquals(5, last.getLimit());
+        assertEquals(5, last.getFetchLimit());
+        SqlResult result = new SqlResult();
+        last.fillResult(result, 5);
+        assertFalse(result.getHasMore());
+        assertNull(result.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> Pagination.of(request(4, 10, 25)));
+    }
+
+    private static SqlRequest request(Integer page, Integer pageSize, Integer maxRows) {
+        SqlRequest request = new SqlRequest();
+        request.setPage(page);
+        request.setPageSize(pageSize);
+        request.setMaxRows(maxRows);
+        return request;
+    }
+}
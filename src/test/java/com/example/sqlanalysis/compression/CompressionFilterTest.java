@@ -0,0 +1,145 @@
+package com.example.sqlanalysis.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeType;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompressionFilterTest {
+
+    private final CompressionFilter filter = new CompressionFilter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "mimeTypes", new String[]{"application/json", "application/x-ndjson"});
+        ReflectionTestUtils.setField(filter, "minResponseSize", 2048);
+        ReflectionTestUtils.setField(filter, "zstdEnabled", true);
+        ReflectionTestUtils.setField(filter, "zstdLevel", 3);
+        filter.init();
+    }
+
+    @Test
+    void selectsEncodingByQuality() {
+        assertEquals("zstd", CompressionFilter.selectEncoding("gzip, deflate, br, zstd", true));
+        assertEquals("gzip", CompressionFilter.selectEncoding("gzip, deflate, br, zstd", false));
+        assertEquals("gzip", CompressionFilter.selectEncoding("zstd;q=0.5, gzip", true));
+        assertEquals("zstd", CompressionFilter.selectEncoding("*", true));
+        assertNull(CompressionFilter.selectEncoding("gzip;q=0, br", true));
+        assertNull(CompressionFilter.selectEncoding(null, true));
+    }
+
+    @Test
+    void compressesLargeResponseWithZstd() throws Exception {
+        byte[] body = json(10000);
+        MockHttpServletResponse response = execute("gzip, zstd", body);
+
+        assertEquals("zstd", response.getHeader("Content-Encoding"));
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertArrayEquals(body, StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    @Test
+    void writesSmallResponseUncompressed() throws Exception {
+        byte[] body = json(10);
+        MockHttpServletResponse response = execute("gzip, zstd", body);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    void flushesStreamingRowsBeforeThreshold() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sql/stream");
+        request.setAsyncStarted(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setContentType("application/x-ndjson");
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(request, response, "gzip",
+                Collections.singletonList(MimeType.valueOf("application/x-ndjson")), 2048, 3);
+
+        byte[] line = "{\"columns\":[\"id\"]}\n".getBytes(StandardCharsets.UTF_8);
+        wrapper.getOutputStream().write(line);
+        wrapper.getOutputStream().flush();
+
+        // 同步刷新后，不等gzip尾部就能解压出已写出的行
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        byte[] compressed = response.getContentAsByteArray();
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(Arrays.copyOfRange(compressed, 10, compressed.length));
+        byte[] inflated = new byte[line.length];
+        assertEquals(line.length, inflater.inflate(inflated));
+        assertArrayEquals(line, inflated);
+        wrapper.finish();
+    }
+
+    @Test
+    void handsNonBlockingWritesToContainerUncompressed() throws Exception {
+        ServletOutputStream raw = mock(ServletOutputStream.class);
+        when(raw.isReady()).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return raw;
+            }
+        };
+        response.setContentType("application/json");
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(new MockHttpServletRequest(), response,
+                "gzip", Collections.singletonList(MimeType.valueOf("application/json")), 2048, 3);
+
+        byte[] head = json(1);
+        wrapper.getOutputStream().write(head);
+        WriteListener listener = mock(WriteListener.class);
+        wrapper.getOutputStream().setWriteListener(listener);
+
+        // 已缓冲的数据原样写出，之后由容器回调listener
+        verify(raw).write(any(byte[].class), eq(0), eq(head.length));
+        verify(raw).setWriteListener(listener);
+        assertFalse(wrapper.getOutputStream().isReady());
+        assertNull(response.getHeader("Content-Encoding"));
+    }
+
+    private MockHttpServletResponse execute(String acceptEncoding, byte[] body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sql/execute");
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(body);
+            res.getOutputStream().flush();
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static byte[] json(int rows) {
+        StringBuilder builder = new StringBuilder("{\"data\":{\"data\":[");
+        for (int i = 0; i < rows; i++) {
+            builder.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"status\":\"PAID\"}");
+        }
+        return builder.append("]},\"code\":200,\"success\":true}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
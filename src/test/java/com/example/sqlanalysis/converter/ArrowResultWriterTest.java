@@ -0,0 +1,98 @@
+package com.example.sqlanalysis.converter;
+
+import com.example.sqlanalysis.common.Result;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArrowResultWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final BufferAllocator allocator = new RootAllocator();
+
+    @AfterEach
+    void close() {
+        allocator.close();
+    }
+
+    @Test
+    void writesTypedColumnsAndMetadata() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ArrowResultWriter.BATCH_SIZE + 10; i++) {
+            rows.add(new Object[]{(long) i, "user_" + i, new BigDecimal(i % 2 == 0 ? "12.5" : "3.25"), null});
+        }
+        rows.get(1)[3] = "备注";
+        SqlResult sqlResult = new SqlResult();
+        sqlResult.setSqlType("SELECT");
+        sqlResult.setSql("SELECT * FROM orders");
+        sqlResult.setColumns(Arrays.asList("id", "user_name", "amount", "remark"));
+        sqlResult.setColumnTypes(new int[]{Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.VARCHAR});
+        sqlResult.setRows(rows);
+        sqlResult.setAffectedRows(rows.size());
+        sqlResult.setExecutionTime(15L);
+
+        try (ArrowStreamReader reader = read(Result.success("SQL执行成功", sqlResult))) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Schema schema = root.getSchema();
+            assertEquals("SELECT", schema.getCustomMetadata().get("sqlType"));
+            assertEquals("15", schema.getCustomMetadata().get("executionTime"));
+            assertEquals(String.valueOf(rows.size()), schema.getCustomMetadata().get("affectedRows"));
+            assertEquals(new ArrowType.Int(64, true), schema.findField("id").getType());
+            assertEquals(ArrowType.Utf8.INSTANCE, schema.findField("user_name").getType());
+            assertEquals(new ArrowType.Decimal(38, 2, 128), schema.findField("amount").getType());
+
+            int total = 0;
+            assertTrue(reader.loadNextBatch());
+            assertEquals(7L, root.getVector("id").getObject(7));
+            assertEquals("user_7", root.getVector("user_name").getObject(7).toString());
+            assertEquals(new BigDecimal("3.25"), root.getVector("amount").getObject(7));
+            assertEquals("备注", root.getVector("remark").getObject(1).toString());
+            assertTrue(root.getVector("remark").isNull(0));
+            total += root.getRowCount();
+            while (reader.loadNextBatch()) {
+                total += root.getRowCount();
+            }
+            assertEquals(rows.size(), total);
+        }
+    }
+
+    @Test
+    void writesSchemaOnlyStreamForError() throws IOException {
+        try (ArrowStreamReader reader = read(Result.error(400, "SQL语句不能为空"))) {
+            Schema schema = reader.getVectorSchemaRoot().getSchema();
+            assertTrue(schema.getFields().isEmpty());
+            assertEquals("400", schema.getCustomMetadata().get("code"));
+            assertEquals("false", schema.getCustomMetadata().get("success"));
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    private ArrowStreamReader read(Result<?> result) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BufferAllocator child = allocator.newChildAllocator("write", 0, Long.MAX_VALUE)) {
+            ArrowResultWriter.write(result, child, objectMapper, out);
+        }
+        return new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator);
+    }
+}
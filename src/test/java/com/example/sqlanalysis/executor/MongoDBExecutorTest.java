@@ -0,0 +1,29 @@
+package com.example.sqlanalysis.executor;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MongoDBExecutorTest {
+
+    @Test
+    void detectsFullIndexScan() {
+        assertTrue(MongoDBExecutor.isFullIndexScan(indexScan(
+                new Document("createdAt", Collections.singletonList("[MaxKey, MinKey]"))
+                        .append("status", Collections.singletonList("[\"paid\", \"paid\"]")))));
+        assertFalse(MongoDBExecutor.isFullIndexScan(indexScan(
+                new Document("status", Collections.singletonList("[\"paid\", \"paid\"]"))
+                        .append("createdAt", Collections.singletonList("[MinKey, MaxKey]")))));
+        assertFalse(MongoDBExecutor.isFullIndexScan(indexScan(
+                new Document("age", Arrays.asList("[18, 30)", "(60, inf.0]")))));
+    }
+
+    private static Document indexScan(Document bounds) {
+        return new Document("stage", "IXSCAN").append("indexBounds", bounds);
+    }
+}
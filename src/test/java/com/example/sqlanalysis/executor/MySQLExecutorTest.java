@@ -0,0 +1,77 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.common.Pagination;
+import com.example.sqlanalysis.entity.SqlRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MySQLExecutorTest {
+
+    @Test
+    void detectsLockingReads() {
+        assertTrue(MySQLExecutor.isLockingRead("SELECT * FROM t WHERE id = 1 FOR UPDATE"));
+        assertTrue(MySQLExecutor.isLockingRead("SELECT * FROM t WHERE id = 1 LOCK IN SHARE MODE"));
+        assertTrue(MySQLExecutor.isLockingRead("SELECT * FROM t WHERE id = 1 FOR SHARE NOWAIT"));
+        assertTrue(MySQLExecutor.isLockingRead("/* c */ select * from t\n where id = 1\n for   update;"));
+    }
+
+    @Test
+    void ignoresLockingKeywordsInLiteralsAndComments() {
+        assertFalse(MySQLExecutor.isLockingRead("SELECT * FROM t WHERE id = 1"));
+        assertFalse(MySQLExecutor.isLockingRead("SELECT 'for update' FROM t"));
+        assertFalse(MySQLExecutor.isLockingRead("SELECT * FROM t -- for update"));
+        assertFalse(MySQLExecutor.isLockingRead("SELECT * FROM t /* lock in share mode */"));
+    }
+
+    @Test
+    void stripsTrailingCommentsAndSemicolons() {
+        assertEquals("SELECT * FROM t", MySQLExecutor.stripTrailing("SELECT * FROM t; -- all rows"));
+        assertEquals("SELECT * FROM t", MySQLExecutor.stripTrailing("SELECT * FROM t /* note */ ;\n# end"));
+        assertEquals("SELECT '-- x' FROM t", MySQLExecutor.stripTrailing("SELECT '-- x' FROM t -- y"));
+        assertEquals("SELECT a-1 FROM t /*!50000 LOCK IN SHARE MODE */",
+                MySQLExecutor.stripTrailing("SELECT a-1 FROM t /*!50000 LOCK IN SHARE MODE */ -- z"));
+    }
+
+    @Test
+    void insertsLimitBeforeLockingClauseAndComments() {
+        MySQLExecutor.PagedQuery paged = MySQLExecutor.applyPagination(
+                "SELECT * FROM t WHERE id > ? FOR UPDATE SKIP LOCKED; -- lock", page(2, 10, null));
+        assertEquals("SELECT * FROM t WHERE id > ? LIMIT ?, ? FOR UPDATE SKIP LOCKED", paged.sql);
+        assertEquals(10, paged.offset);
+        assertEquals(11, paged.rows);
+
+        paged = MySQLExecutor.applyPagination("SELECT a.id, b.id FROM a JOIN b ON a.bid = b.id LOCK IN SHARE MODE",
+                Pagination.ofMaxRows(100));
+        assertEquals("SELECT a.id, b.id FROM a JOIN b ON a.bid = b.id LIMIT ?, ? LOCK IN SHARE MODE", paged.sql);
+        assertEquals(0, paged.offset);
+        assertEquals(100, paged.rows);
+    }
+
+    @Test
+    void intersectsWithExistingLimit() {
+        MySQLExecutor.PagedQuery paged = MySQLExecutor.applyPagination(
+                "SELECT * FROM a JOIN b ON a.bid = b.id ORDER BY a.id LIMIT 20, 25", page(3, 10, null));
+        assertEquals("SELECT * FROM a JOIN b ON a.bid = b.id ORDER BY a.id LIMIT ?, ?", paged.sql);
+        assertEquals(40, paged.offset);
+        assertEquals(5, paged.rows);
+
+        paged = MySQLExecutor.applyPagination("SELECT * FROM t LIMIT 5 OFFSET 100", page(1, 10, null));
+        assertEquals(100, paged.offset);
+        assertEquals(5, paged.rows);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MySQLExecutor.applyPagination("SELECT * FROM t LIMIT ?", page(1, 10, null)));
+    }
+
+    private static Pagination page(int page, int pageSize, Integer maxRows) {
+        SqlRequest request = new SqlRequest();
+        request.setPage(page);
+        request.setPageSize(pageSize);
+        request.setMaxRows(maxRows);
+        return Pagination.of(request);
+    }
+}
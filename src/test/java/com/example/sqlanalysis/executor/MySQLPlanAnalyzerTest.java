@@ -0,0 +1,55 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.entity.QueryPlan;
+import com.example.sqlanalysis.entity.SqlResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MySQLPlanAnalyzerTest {
+
+    @Test
+    void flagsFullScanFilesortAndEstimatesJoinRows() {
+        String json = "{\"query_block\": {\"select_id\": 1, \"cost_info\": {\"query_cost\": \"1250.50\"},"
+                + "\"ordering_operation\": {\"using_temporary_table\": true, \"using_filesort\": true,"
+                + "\"nested_loop\": ["
+                + "{\"table\": {\"table_name\": \"o\", \"access_type\": \"ALL\", \"possible_keys\": null,"
+                + "\"rows_examined_per_scan\": 1000, \"rows_produced_per_join\": 100, \"filtered\": \"10.00\"}},"
+                + "{\"table\": {\"table_name\": \"u\", \"access_type\": \"eq_ref\", \"possible_keys\": [\"PRIMARY\"],"
+                + "\"key\": \"PRIMARY\", \"rows_examined_per_scan\": 1, \"rows_produced_per_join\": 100, \"filtered\": \"100.00\"}}"
+                + "]}}}";
+
+        SqlResult result = MySQLPlanAnalyzer.analyze(json, 1000);
+        QueryPlan plan = result.getPlan();
+
+        assertEquals(2, result.getData().size());
+        assertEquals("MISSING_INDEX", result.getData().get(0).get("issue"));
+        assertEquals(100L, result.getData().get(1).get("scans"));
+        assertEquals(1100L, plan.getEstimatedRows());
+        assertEquals(1250.5, plan.getQueryCost());
+        assertTrue(plan.getFullScan());
+        assertTrue(plan.getMissingIndex());
+        assertTrue(plan.getFilesort());
+        assertTrue(plan.getTemporaryTable());
+        assertFalse(plan.getFullIndexScan());
+        assertEquals(4, plan.getWarnings().size());
+    }
+
+    @Test
+    void readsExplainAnalyzeOutputAndVersion() {
+        QueryPlan plan = new QueryPlan();
+        MySQLPlanAnalyzer.applyAnalyze(plan, "-> Filter: (o.amount > 100)  (cost=101.25 rows=333) "
+                + "(actual time=0.061..2.512 rows=420 loops=1)\n"
+                + "    -> Table scan on o  (cost=101.25 rows=1000) (actual time=0.055..2.101 rows=1000 loops=1)");
+        assertEquals(2.512, plan.getActualTime());
+        assertEquals(420L, plan.getActualRows());
+
+        assertTrue(MySQLPlanAnalyzer.supportsExplainAnalyze("8.0.33"));
+        assertTrue(MySQLPlanAnalyzer.supportsExplainAnalyze("8.4.0-commercial"));
+        assertFalse(MySQLPlanAnalyzer.supportsExplainAnalyze("8.0.17"));
+        assertFalse(MySQLPlanAnalyzer.supportsExplainAnalyze("5.7.44-log"));
+        assertFalse(MySQLPlanAnalyzer.supportsExplainAnalyze("10.6.12-MariaDB"));
+    }
+}
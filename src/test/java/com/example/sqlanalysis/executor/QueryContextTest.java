@@ -0,0 +1,47 @@
+package com.example.sqlanalysis.executor;
+
+import com.example.sqlanalysis.exception.QueryCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryContextTest {
+
+    @Test
+    void stopsAfterRowLimit() {
+        QueryContext context = new QueryContext("q1", "mysql", "SELECT 1", 2, 0);
+        assertEquals(3, context.getFetchLimit());
+        context.addRow(new Object[]{1L});
+        context.addRow(new Object[]{2L});
+        assertThrows(QueryCancelledException.class, () -> context.addRow(new Object[]{3L}));
+    }
+
+    @Test
+    void stopsAfterByteLimit() {
+        QueryContext context = new QueryContext("q2", "mysql", "SELECT 1", 0, 1000);
+        assertEquals(0, context.getFetchLimit());
+        context.addRow(new Object[]{"short"});
+        assertThrows(QueryCancelledException.class, () -> context.addRow(new Object[]{new String(new char[1000])}));
+    }
+
+    @Test
+    void cancelRunsRegisteredActionOnce() {
+        QueryContext context = new QueryContext("q3", "mysql", "SELECT 1", 0, 0);
+        AtomicInteger calls = new AtomicInteger();
+        context.onCancel(calls::incrementAndGet);
+
+        assertTrue(context.cancel("用户取消"));
+        assertFalse(context.cancel("用户取消"));
+        assertEquals(1, calls.get());
+        assertThrows(QueryCancelledException.class, context::checkCancelled);
+
+        // 取消后登记的动作立即执行
+        context.onCancel(calls::incrementAndGet);
+        assertEquals(2, calls.get());
+    }
+}
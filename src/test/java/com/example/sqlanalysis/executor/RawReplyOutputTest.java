@@ -0,0 +1,55 @@
+package com.example.sqlanalysis.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RawReplyOutputTest {
+
+    @Test
+    void scalarReplies() {
+        RawReplyOutput text = new RawReplyOutput();
+        text.set(bytes("value"));
+        assertEquals("value", text.get());
+
+        RawReplyOutput number = new RawReplyOutput();
+        number.set(42L);
+        assertEquals(42L, number.get());
+
+        RawReplyOutput nil = new RawReplyOutput();
+        nil.set((ByteBuffer) null);
+        assertNull(nil.get());
+    }
+
+    @Test
+    void nestedArrays() {
+        // SCAN的回复：["17", ["a", "b"]]
+        RawReplyOutput output = new RawReplyOutput();
+        output.multi(2);
+        output.set(bytes("17"));
+        output.multi(2);
+        output.set(bytes("a"));
+        output.set(bytes("b"));
+        assertEquals(Arrays.asList("17", Arrays.asList("a", "b")), output.get());
+    }
+
+    @Test
+    void emptyAndNilArrays() {
+        RawReplyOutput output = new RawReplyOutput();
+        output.multi(3);
+        output.multi(0);
+        output.multi(-1);
+        output.set(1L);
+        assertEquals(Arrays.asList(Collections.emptyList(), null, 1L), output.get());
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
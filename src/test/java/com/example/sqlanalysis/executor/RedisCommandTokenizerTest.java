@@ -0,0 +1,35 @@
+package com.example.sqlanalysis.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RedisCommandTokenizerTest {
+
+    @Test
+    void splitsOnWhitespace() {
+        assertEquals(Arrays.asList("GET", "user:1"), RedisCommandTokenizer.tokenize("  GET   user:1 "));
+        assertEquals(Collections.emptyList(), RedisCommandTokenizer.tokenize("   "));
+    }
+
+    @Test
+    void quotedArguments() {
+        assertEquals(Arrays.asList("SET", "greeting", "hello world"),
+                RedisCommandTokenizer.tokenize("SET greeting \"hello world\""));
+        assertEquals(Arrays.asList("SET", "k", "line1\nline2 \"q\" A"),
+                RedisCommandTokenizer.tokenize("SET k \"line1\\nline2 \\\"q\\\" \\x41\""));
+        assertEquals(Arrays.asList("SET", "k", "it's \\n raw"),
+                RedisCommandTokenizer.tokenize("SET k 'it\\'s \\n raw'"));
+        assertEquals(Arrays.asList("SET", "k", ""), RedisCommandTokenizer.tokenize("SET k \"\""));
+    }
+
+    @Test
+    void rejectsMalformedQuotes() {
+        assertThrows(IllegalArgumentException.class, () -> RedisCommandTokenizer.tokenize("SET k \"open"));
+        assertThrows(IllegalArgumentException.class, () -> RedisCommandTokenizer.tokenize("SET k \"a\"b"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.sqlanalysis.guard;
+
+import com.example.sqlanalysis.entity.SqlRequest;
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.DataSourceType;
+import com.example.sqlanalysis.enums.GuardAction;
+import com.example.sqlanalysis.executor.CostEstimate;
+import com.example.sqlanalysis.executor.CostEstimatingExecutor;
+import com.example.sqlanalysis.executor.RedisExecutor;
+import com.example.sqlanalysis.metrics.QueryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryCostGuardTest {
+
+    @Test
+    void limitsExpensiveQueryAndCachesEstimate() {
+        StubExecutor executor = new StubExecutor(new CostEstimate(5_000_000, false, false, true));
+        QueryCostGuard guard = newGuard("limit");
+
+        SqlRequest first = request("SELECT * FROM orders WHERE status = 'paid'");
+        assertTrue(guard.requiresEstimate(executor, first));
+        assertEquals(GuardAction.LIMIT, guard.check(executor, first));
+        assertEquals(Integer.valueOf(1000), first.getPageSize());
+
+        // 字面量不同，指纹相同，复用估算结果
+        SqlRequest second = request("SELECT * FROM orders WHERE status = 'new'");
+        assertFalse(guard.requiresEstimate(executor, second));
+        assertEquals(GuardAction.LIMIT, guard.check(executor, second));
+        assertEquals(1, executor.calls.get());
+
+        // 已分页且不需要全量排序时不拦截
+        SqlRequest paged = request("SELECT * FROM orders WHERE status = 'new'");
+        paged.setPageSize(50);
+        assertNull(guard.check(executor, paged));
+    }
+
+    @Test
+    void rejectsWhenResultCannotBeLimited() {
+        QueryCostGuard guard = newGuard("limit");
+        StubExecutor write = new StubExecutor(new CostEstimate(5_000_000, false, false, false));
+        assertThrows(IllegalArgumentException.class, () -> guard.check(write, request("DELETE FROM orders")));
+
+        StubExecutor sorted = new StubExecutor(new CostEstimate(5_000_000, true, true, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> guard.check(sorted, request("SELECT * FROM orders ORDER BY amount LIMIT 10")));
+
+        StubExecutor cheap = new StubExecutor(new CostEstimate(10, false, false, true));
+        assertNull(guard.check(cheap, request("SELECT * FROM users WHERE id = 1")));
+        assertEquals(GuardAction.QUEUE, newGuard("queue").check(write, request("DELETE FROM orders")));
+    }
+
+    @Test
+    void allowsRedisCommandsExecutedAsCappedScan() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hash = mock(HashOperations.class);
+        SetOperations<String, String> set = mock(SetOperations.class);
+        when(redis.execute(any(RedisCallback.class))).thenReturn(5_000_000L);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hash);
+        when(redis.opsForSet()).thenReturn(set);
+        when(hash.size("big:hash")).thenReturn(5_000_000L);
+        when(set.size("big:set")).thenReturn(5_000_000L);
+
+        RedisExecutor executor = new RedisExecutor();
+        ReflectionTestUtils.setField(executor, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(executor, "scanMaxKeys", 100_000);
+        executor.initCommandTable();
+
+        // KEYS、HGETALL、SMEMBERS按SCAN执行，最多遍历 scanMaxKeys 个元素，超过上限的集合也不拒绝
+        QueryCostGuard guard = newGuard("limit");
+        assertNull(guard.check(executor, request("KEYS user:*")));
+        assertNull(guard.check(executor, request("HGETALL big:hash")));
+        assertNull(guard.check(executor, request("SMEMBERS big:set")));
+        assertEquals(100_000, executor.estimateCost(request("HGETALL big:hash")).getRows());
+    }
+
+    private static QueryCostGuard newGuard(String action) {
+        QueryMetrics metrics = new QueryMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        QueryCostGuard guard = new QueryCostGuard();
+        ReflectionTestUtils.setField(guard, "queryMetrics", metrics);
+        ReflectionTestUtils.setField(guard, "enabled", true);
+        ReflectionTestUtils.setField(guard, "maxRows", 1_000_000L);
+        ReflectionTestUtils.setField(guard, "action", action);
+        ReflectionTestUtils.setField(guard, "autoLimit", 1000);
+        ReflectionTestUtils.setField(guard, "estimateTtl", 60L);
+        ReflectionTestUtils.setField(guard, "estimateTimeout", 5);
+        guard.init();
+        return guard;
+    }
+
+    private static SqlRequest request(String sql) {
+        SqlRequest request = new SqlRequest();
+        request.setSql(sql);
+        return request;
+    }
+
+    private static class StubExecutor implements CostEstimatingExecutor {
+
+        private final CostEstimate estimate;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StubExecutor(CostEstimate estimate) {
+            this.estimate = estimate;
+        }
+
+        @Override
+        public CostEstimate estimateCost(SqlRequest request) {
+            calls.incrementAndGet();
+            return estimate;
+        }
+
+        @Override
+        public SqlResult execute(SqlRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DataSourceType getDataSourceType() {
+            return DataSourceType.MYSQL;
+        }
+    }
+}
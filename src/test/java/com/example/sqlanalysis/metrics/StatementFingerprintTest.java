@@ -0,0 +1,49 @@
+package com.example.sqlanalysis.metrics;
+
+import com.example.sqlanalysis.enums.DataSourceType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class StatementFingerprintTest {
+
+    @Test
+    void stripsSqlLiterals() {
+        StatementFingerprint a = StatementFingerprint.of(DataSourceType.MYSQL,
+                "SELECT * FROM users  WHERE id = 42 AND name IN ('a', 'b') -- 查询用户");
+        StatementFingerprint b = StatementFingerprint.of(DataSourceType.MYSQL,
+                "select *\nfrom users where id = 7 and name in ('it''s');");
+
+        assertEquals("select * from users where id = ? and name in (?+)", a.getText());
+        assertEquals(a.getId(), b.getId());
+        assertEquals("SELECT", a.getKind());
+        assertEquals("insert into t1 (a, b) values (?+)",
+                StatementFingerprint.of(DataSourceType.MYSQL, "INSERT INTO t1 (a, b) VALUES (1, 'x'), (2, 'y')").getText());
+        assertEquals("OTHER", StatementFingerprint.of(DataSourceType.MYSQL, "OPTIMIZE TABLE t1").getKind());
+    }
+
+    @Test
+    void keepsMongoShape() {
+        StatementFingerprint a = StatementFingerprint.of(DataSourceType.MONGODB,
+                "{\"collection\": \"users\", \"operation\": \"find\", \"query\": {\"age\": {\"$gt\": 25}, \"tag\": {\"$in\": [1, 2]}}}");
+        StatementFingerprint b = StatementFingerprint.of(DataSourceType.MONGODB,
+                "{\"collection\": \"users\", \"operation\": \"find\", \"query\": \"{\\\"age\\\": {\\\"$gt\\\": 30}, \\\"tag\\\": {\\\"$in\\\": [3]}}\"}");
+        StatementFingerprint other = StatementFingerprint.of(DataSourceType.MONGODB,
+                "{\"collection\": \"orders\", \"operation\": \"find\", \"query\": {\"age\": {\"$gt\": 25}}}");
+
+        assertEquals("{\"collection\":\"users\",\"operation\":\"find\",\"query\":{\"age\":{\"$gt\":\"?\"},\"tag\":{\"$in\":[\"?+\"]}}}",
+                a.getText());
+        assertEquals(a.getId(), b.getId());
+        assertNotEquals(a.getId(), other.getId());
+        assertEquals("MONGODB_FIND", a.getKind());
+    }
+
+    @Test
+    void redisKeepsCommandName() {
+        assertEquals("HGET ? ?", StatementFingerprint.of(DataSourceType.REDIS, "hget user:1 name").getText());
+        assertEquals("PIPELINE SET GET", StatementFingerprint.of(DataSourceType.REDIS, "SET a 1\nGET a").getText());
+        assertEquals("GET {json}", StatementFingerprint.of(DataSourceType.REDIS,
+                "{\n  \"command\": \"GET\",\n  \"key\": \"user:1\"\n}").getText());
+    }
+}
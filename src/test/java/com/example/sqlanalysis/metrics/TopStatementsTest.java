@@ -0,0 +1,62 @@
+package com.example.sqlanalysis.metrics;
+
+import com.example.sqlanalysis.entity.StatementStats;
+import com.example.sqlanalysis.enums.DataSourceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopStatementsTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void aggregatesByFingerprint() {
+        TopStatements top = newTopStatements(10);
+        top.record("mysql", fingerprint("SELECT * FROM t WHERE id = 1"), "SELECT * FROM t WHERE id = 1", false, 10 * MS, 1, 100);
+        top.record("mysql", fingerprint("SELECT * FROM t WHERE id = 2"), "SELECT * FROM t WHERE id = 2", true, 30 * MS, 0, 0);
+        top.record("mysql", fingerprint("SELECT 1"), "SELECT 1", false, 1 * MS, 1, 8);
+
+        List<StatementStats> stats = top.top(10, null);
+        assertEquals(2, stats.size());
+        StatementStats first = stats.get(0);
+        assertEquals("select * from t where id = ?", first.getStatement());
+        assertEquals(2L, first.getCount());
+        assertEquals(1L, first.getErrorCount());
+        assertEquals(40L, first.getTotalTime());
+        assertEquals(20L, first.getAvgTime());
+        assertEquals(30L, first.getMaxTime());
+        assertEquals("SELECT * FROM t WHERE id = 2", first.getSample());
+        assertEquals("select ?", top.top(10, "bytes").get(1).getStatement());
+        assertEquals(1, top.top(1, "count").size());
+    }
+
+    @Test
+    void evictsCheapestStatementWhenFull() {
+        TopStatements top = newTopStatements(2);
+        top.record("mysql", fingerprint("SELECT * FROM big"), "SELECT * FROM big", false, 500 * MS, 0, 0);
+        top.record("mysql", fingerprint("SELECT * FROM small"), "SELECT * FROM small", false, 2 * MS, 0, 0);
+        top.record("mysql", fingerprint("SELECT * FROM other"), "SELECT * FROM other", false, 3 * MS, 0, 0);
+
+        List<StatementStats> stats = top.top(10, "totalTime");
+        assertEquals(2, stats.size());
+        assertEquals("select * from big", stats.get(0).getStatement());
+        assertEquals("select * from other", stats.get(1).getStatement());
+        assertEquals(3L, stats.get(1).getTotalTime());
+        assertEquals(2L, stats.get(1).getTimeError());
+    }
+
+    private static TopStatements newTopStatements(int capacity) {
+        TopStatements top = new TopStatements();
+        ReflectionTestUtils.setField(top, "capacity", capacity);
+        return top;
+    }
+
+    private static StatementFingerprint fingerprint(String sql) {
+        return StatementFingerprint.of(DataSourceType.MYSQL, sql);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.sqlanalysis.stream;
+
+import com.example.sqlanalysis.entity.SqlResult;
+import com.example.sqlanalysis.enums.ResultFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonResultStreamWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesEnvelopeAroundRows() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonResultStreamWriter writer = new JsonResultStreamWriter(objectMapper, out, ResultFormat.MAP);
+        writer.writeHeader(meta());
+        writer.writeRow(new Object[]{1L, "张三", new BigDecimal("12.50")});
+        writer.writeRow(new Object[]{2L, null, null});
+        writer.writeFooter(summary(2));
+
+        JsonNode root = objectMapper.readTree(out.toByteArray());
+        assertEquals(200, root.get("code").asInt());
+        assertTrue(root.get("success").asBoolean());
+        JsonNode data = root.get("data");
+        assertEquals("SELECT", data.get("sqlType").asText());
+        assertEquals(2, data.get("data").size());
+        assertEquals("张三", data.get("data").get(0).get("name").asText());
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("\"amount\":12.50"));
+        assertTrue(data.get("data").get(1).get("name").isNull());
+        assertEquals(2, data.get("affectedRows").asInt());
+
+        out.reset();
+        writer = new JsonResultStreamWriter(objectMapper, out, ResultFormat.ARRAY);
+        writer.writeHeader(meta());
+        writer.writeRow(new Object[]{1L, "张三", new BigDecimal("12.50")});
+        writer.writeFooter(summary(1));
+
+        data = objectMapper.readTree(out.toByteArray()).get("data");
+        assertEquals("array", data.get("resultFormat").asText());
+        assertEquals("张三", data.get("rows").get(0).get(1).asText());
+        assertFalse(data.has("data"));
+    }
+
+    @Test
+    void writesColumnsAddedAfterHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonResultStreamWriter writer = new JsonResultStreamWriter(objectMapper, out, ResultFormat.MAP);
+        writer.writeHeader(meta());
+        writer.writeRow(new Object[]{1L, "张三", BigDecimal.ONE});
+        writer.addColumns(Arrays.asList("tags"));
+        writer.writeRow(new Object[]{2L, "李四", BigDecimal.ONE, "vip"});
+        writer.writeFooter(summary(2));
+
+        JsonNode data = objectMapper.readTree(out.toByteArray()).get("data");
+        assertFalse(data.get("data").get(0).has("tags"));
+        assertEquals("vip", data.get("data").get(1).get("tags").asText());
+        assertEquals("tags", data.get("addedColumns").get(0).asText());
+    }
+
+    @Test
+    void errorKeepsResponseValidJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonResultStreamWriter writer = new JsonResultStreamWriter(objectMapper, out, ResultFormat.MAP);
+        writer.writeHeader(meta());
+        writer.writeRow(new Object[]{1L, "张三", BigDecimal.ONE});
+        writer.writeError("查询已取消");
+
+        JsonNode root = objectMapper.readTree(out.toByteArray());
+        assertEquals(500, root.get("code").asInt());
+        assertFalse(root.get("success").asBoolean());
+        assertEquals(1, root.get("data").get("data").size());
+        assertEquals("查询已取消", root.get("data").get("error").asText());
+
+        out.reset();
+        writer = new JsonResultStreamWriter(objectMapper, out, ResultFormat.MAP);
+        writer.writeError("连接失败");
+        root = objectMapper.readTree(out.toByteArray());
+        assertTrue(root.get("data").isNull());
+        assertEquals("SQL执行失败: 连接失败", root.get("message").asText());
+    }
+
+    private static SqlResult meta() {
+        SqlResult meta = new SqlResult();
+        meta.setSqlType("SELECT");
+        meta.setSql("SELECT id, name, amount FROM orders");
+        meta.setColumns(Arrays.asList("id", "name", "amount"));
+        return meta;
+    }
+
+    private static SqlResult summary(int rows) {
+        SqlResult summary = new SqlResult();
+        summary.setAffectedRows(rows);
+        summary.setExecutionTime(5L);
+        return summary;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.sqlanalysis.stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpoolResultStreamWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsPagesBack() throws IOException {
+        Path data = dir.resolve("job.dat");
+        Path index = dir.resolve("job.idx");
+        try (SpoolResultStreamWriter writer = new SpoolResultStreamWriter(data, index, Long.MAX_VALUE)) {
+            for (int i = 0; i < 25; i++) {
+                writer.writeRow(new Object[]{i, "name-" + i, i % 2 == 0 ? null : 1.5 * i});
+            }
+            assertEquals(25, writer.getRowCount());
+        }
+
+        List<Object[]> page = SpoolResultReader.read(data, index, 25, 10, 10);
+        assertEquals(10, page.size());
+        assertArrayEquals(new Object[]{10L, "name-10", null}, page.get(0));
+        assertArrayEquals(new Object[]{19L, "name-19", 28.5}, page.get(9));
+
+        List<Object[]> last = SpoolResultReader.read(data, index, 25, 20, 10);
+        assertEquals(5, last.size());
+        assertArrayEquals(new Object[]{24L, "name-24", null}, last.get(4));
+
+        assertTrue(SpoolResultReader.read(data, index, 25, 25, 10).isEmpty());
+    }
+
+    @Test
+    void preservesValueTypes() throws IOException {
+        Path data = dir.resolve("types.dat");
+        Path index = dir.resolve("types.idx");
+        Date now = new Date();
+        try (SpoolResultStreamWriter writer = new SpoolResultStreamWriter(data, index, Long.MAX_VALUE)) {
+            writer.writeRow(new Object[]{true, new BigDecimal("12.30"), now, new byte[]{1, 2},
+                    Collections.singletonMap("city", "杭州")});
+        }
+
+        Object[] row = SpoolResultReader.read(data, index, 1, 0, 1).get(0);
+        assertEquals(true, row[0]);
+        assertEquals(new BigDecimal("12.30"), row[1]);
+        assertEquals(now, row[2]);
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) row[3]);
+        assertEquals("杭州", ((Map<?, ?>) row[4]).get("city"));
+    }
+
+    @Test
+    void rejectsRowsOverSizeLimit() throws IOException {
+        try (SpoolResultStreamWriter writer =
+                     new SpoolResultStreamWriter(dir.resolve("big.dat"), dir.resolve("big.idx"), 64)) {
+            writer.writeRow(new Object[]{"small"});
+            assertThrows(IOException.class, () -> writer.writeRow(new Object[]{new String(new char[100])}));
+            assertEquals(1, writer.getRowCount());
+        }
+    }
+}